@@ -0,0 +1,35 @@
+package ru.ddg.elevator.controller;
+
+import ru.ddg.elevator.scheduler.Scheduler;
+
+/**
+ * Shared benchmark fixtures.
+ */
+final class Benchmarks {
+
+    /**
+     * Scheduler which never runs anything: the controller only makes decisions and does not move.
+     */
+    static final Scheduler FROZEN = new Scheduler() {
+        @Override
+        public long currentTimeMillis() {
+            return 0;
+        }
+
+        @Override
+        public void schedule(long delayMillis, Runnable task) {
+        }
+    };
+
+    private Benchmarks() {
+    }
+
+    static ControllerProps props(int floorsCount) {
+        final ControllerProps props = new ControllerProps();
+        props.setFloorsCount(floorsCount);
+        props.setFloorHeightMeters(10f);
+        props.setLiftSpeedMetersPerSecond(1f);
+        props.setDoorOpenCloseTimeMillis(2000);
+        return props;
+    }
+}
@@ -0,0 +1,118 @@
+package ru.ddg.elevator.controller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ru.ddg.elevator.model.BasicElevator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Button presses from several panel threads racing with a consumer draining the requests.
+ *
+ * The ingestion group presses the buttons of a controller which does not move, so most presses hit lit buttons
+ * and are coalesced, as with a panel spamming presses. The queue group takes the controller out: its consumer
+ * serves every press it takes, like a car stopping at once, so the buttons go out and the presses go through
+ * the request queue.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ButtonPressBenchmark {
+
+    @Param({"7", "50", "200"})
+    private int floorsCount;
+
+    private ElevatorController controller;
+    private ButtonPresses requests;
+
+    @Setup
+    public void setup() {
+        final ControllerProps props = Benchmarks.props(floorsCount);
+        controller = new ElevatorController(new BasicElevator(), props, Benchmarks.FROZEN);
+        requests = new ButtonPresses(props.getRequestQueueSize(), floorsCount);
+    }
+
+    @Benchmark
+    @Group("ingestion")
+    @GroupThreads(2)
+    public void insideButtonPressed(Panel panel) {
+        controller.insideButtonPressed(panel.nextFloor(floorsCount));
+    }
+
+    @Benchmark
+    @Group("ingestion")
+    @GroupThreads(1)
+    public void outsideButtonPressed(Panel panel) {
+        controller.outsideButtonPressed(panel.nextFloor(floorsCount));
+    }
+
+    @Benchmark
+    @Group("ingestion")
+    @GroupThreads(1)
+    public int pressButtons(Panel panel) {
+        return controller.pressButtons(panel.nextFloors(floorsCount), false);
+    }
+
+    @Benchmark
+    @Group("ingestion")
+    @GroupThreads(1)
+    public int collectRequests() {
+        return controller.collectRequests();
+    }
+
+    @Benchmark
+    @Group("queue")
+    @GroupThreads(3)
+    public int press(Panel panel) {
+        return requests.press(panel.nextFloor(floorsCount), panel.nextInside(), 0);
+    }
+
+    @Benchmark
+    @Group("queue")
+    @GroupThreads(1)
+    public int serve() {
+        int served = 0;
+        long press;
+        while ((press = requests.poll()) != 0) {
+            requests.served(ButtonPresses.floorNumber(press), ButtonPresses.inside(press));
+            served++;
+        }
+        return served;
+    }
+
+
+    /**
+     * Per-thread floor sequence, cheap enough not to show up in the results.
+     */
+    @State(Scope.Thread)
+    public static class Panel {
+        private final int[] floors = new int[8];
+        private int floor;
+        private boolean inside;
+
+        int nextFloor(int floorsCount) {
+            floor = floor % floorsCount + 1;
+            return floor;
+        }
+
+        boolean nextInside() {
+            inside = !inside;
+            return inside;
+        }
+
+        int[] nextFloors(int floorsCount) {
+            for (int i = 0; i < floors.length; i++) {
+                floors[i] = nextFloor(floorsCount);
+            }
+            return floors;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package ru.ddg.elevator.controller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ru.ddg.elevator.model.BasicElevator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded cost of the dispatch decisions with every floor called, and of draining the pressed buttons.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ControllerDecisionBenchmark {
+
+    @Param({"7", "50", "200"})
+    private int floorsCount;
+
+    @Benchmark
+    public int selectFloor(Calls calls) {
+        return calls.policy.selectFloor(calls.state, calls.floor, ElevatorState.IDLE, 0);
+    }
+
+    @Benchmark
+    public boolean keepMoving(Calls calls) {
+        return calls.policy.keepMoving(calls.state, calls.floor, ElevatorState.MOVE_UP, 0);
+    }
+
+    /**
+     * Drains a batch of presses from each of the controllers pressed for the invocation.
+     */
+    @Benchmark
+    @OperationsPerInvocation(Pressed.CONTROLLERS)
+    public int collectRequests(Pressed pressed) {
+        int collected = 0;
+        for (ElevatorController pressedController : pressed.controllers) {
+            collected += pressedController.collectRequests();
+        }
+        return collected;
+    }
+
+    /**
+     * Every floor called from both panels but the middle one, where the car stands, so the calls are on both
+     * sides of it. Only the strategy is measured, not the controller acting on its decision.
+     */
+    @State(Scope.Thread)
+    public static class Calls {
+
+        @Param({"INSIDE_FIRST", "LOOK", "SCAN", "NEAREST", "SHORTEST_WAIT"})
+        private DispatchPolicy policy;
+
+        private CarState state;
+        private int floor;
+
+        @Setup
+        public void call(ControllerDecisionBenchmark benchmark) {
+            final int floorsCount = benchmark.floorsCount;
+            final FloorCalls inside = new FloorCalls(floorsCount);
+            final FloorCalls outside = new FloorCalls(floorsCount);
+            floor = (floorsCount + 1) / 2;
+            // pressed from the top so the oldest call is the farthest one
+            for (int floorNumber = floorsCount; floorNumber > 0; floorNumber--) {
+                if (floorNumber != floor) {
+                    inside.add(floorNumber, 0);
+                    outside.add(floorNumber, 0);
+                }
+            }
+            state = new CarState(floorsCount, 10_000, 2000, inside, outside, floor, ElevatorState.IDLE, 0);
+        }
+    }
+
+    /**
+     * Lit buttons coalesce presses, so every drain needs a controller with fresh presses. They are made for
+     * the drains of one invocation at once, only the benchmark taking this state pays for them.
+     */
+    @State(Scope.Thread)
+    public static class Pressed {
+
+        static final int CONTROLLERS = 64;
+        // presses of either panel, on distinct floors so none is coalesced with the fewest floors either
+        private static final int BATCH = 7;
+
+        private final ElevatorController[] controllers = new ElevatorController[CONTROLLERS];
+
+        @Setup(Level.Invocation)
+        public void press(ControllerDecisionBenchmark benchmark) {
+            final int floorsCount = benchmark.floorsCount;
+            for (int c = 0; c < CONTROLLERS; c++) {
+                final ElevatorController controller = new ElevatorController(
+                        new BasicElevator(), Benchmarks.props(floorsCount), Benchmarks.FROZEN
+                );
+                for (int i = 0; i < BATCH; i++) {
+                    controller.insideButtonPressed(floorsCount - i);
+                    controller.outsideButtonPressed(i + 1);
+                }
+                controllers[c] = controller;
+            }
+        }
+    }
+}
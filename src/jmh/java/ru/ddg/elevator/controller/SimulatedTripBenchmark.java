@@ -0,0 +1,52 @@
+package ru.ddg.elevator.controller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ru.ddg.elevator.model.BasicElevator;
+import ru.ddg.elevator.scheduler.VirtualTimeScheduler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole trip across the building in virtual time: ingestion, decisions, moves and door cycles.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SimulatedTripBenchmark {
+
+    @Param({"7", "50", "200"})
+    private int floorsCount;
+
+    private VirtualTimeScheduler scheduler;
+    private ElevatorController controller;
+    private boolean up;
+
+    @Setup
+    public void setup() {
+        scheduler = new VirtualTimeScheduler();
+        controller = new ElevatorController(new BasicElevator(), Benchmarks.props(floorsCount), scheduler);
+        controller.start();
+        scheduler.runUntilIdle();
+        up = true;
+    }
+
+    /**
+     * Goes to the opposite end of the building picking up three hall calls on the way.
+     */
+    @Benchmark
+    public long trip() {
+        controller.insideButtonPressed(up ? floorsCount : 1);
+        controller.outsideButtonPressed(floorsCount / 4 + 1);
+        controller.outsideButtonPressed(floorsCount / 2 + 1);
+        controller.outsideButtonPressed(floorsCount * 3 / 4 + 1);
+        up = !up;
+        return scheduler.runUntilIdle();
+    }
+}
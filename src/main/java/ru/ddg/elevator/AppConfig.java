@@ -1,15 +1,35 @@
 package ru.ddg.elevator;
 
+import ru.ddg.elevator.controller.ControllerJournal;
 import ru.ddg.elevator.controller.ControllerProps;
+import ru.ddg.elevator.controller.DemandModel;
 import ru.ddg.elevator.controller.ElevatorController;
 import ru.ddg.elevator.controller.ElevatorControls;
+import ru.ddg.elevator.controller.ElevatorEventBus;
+import ru.ddg.elevator.controller.ElevatorStatePublisher;
 import ru.ddg.elevator.controller.LoggingElevatorListener;
+import ru.ddg.elevator.controller.RolloutDispatch;
 import ru.ddg.elevator.model.BasicElevator;
+import ru.ddg.elevator.model.CommandPipeline;
 import ru.ddg.elevator.model.Elevator;
+import ru.ddg.elevator.model.SimulatedDrive;
+import ru.ddg.elevator.net.CallPanelServer;
+import ru.ddg.elevator.net.StateBoardServer;
+import ru.ddg.elevator.scheduler.RealTimeScheduler;
+import ru.ddg.elevator.scheduler.Scheduler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * Spring application configuration.
  */
@@ -18,19 +38,119 @@ import org.springframework.context.annotation.Configuration;
 public class AppConfig {
     
     @Bean
-    public Elevator elevator() {
-        return new BasicElevator();
+    public Elevator elevator(
+            Scheduler scheduler,
+            @Value("${drive.latencyMillis:0}") long latencyMillis,
+            @Value("${drive.timeoutMillis:1000}") long timeoutMillis,
+            @Value("${drive.maxInFlight:4}") int maxInFlight
+    ) {
+        if (latencyMillis <= 0) {
+            return new BasicElevator();
+        }
+        return new CommandPipeline(new SimulatedDrive(scheduler, latencyMillis), scheduler, timeoutMillis, maxInFlight);
+    }
+    
+    @Bean
+    public Scheduler scheduler() {
+        return RealTimeScheduler.shared();
+    }
+    
+    @Bean(destroyMethod = "close")
+    public ElevatorEventBus elevatorEventBus(ControllerProps props) {
+        final ElevatorEventBus eventBus = new ElevatorEventBus(
+                props.getEventBufferSize(), props.getEventOverflowPolicy()
+        );
+        eventBus.addListener(new LoggingElevatorListener());
+        return eventBus;
+    }
+    
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty("journal.directory")
+    public ControllerJournal controllerJournal(
+            ControllerProps props,
+            @Value("${journal.directory}") String directory,
+            @Value("${journal.capacity:65536}") int capacity
+    ) throws IOException {
+        return ControllerJournal.open(Paths.get(directory), props.getFloorsCount(), capacity);
+    }
+    
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty("demand.file")
+    public DemandModel demandModel(
+            ControllerProps props,
+            @Value("${demand.file}") String file,
+            @Value("${demand.bucketMillis:900000}") long bucketMillis
+    ) throws IOException {
+        return DemandModel.open(Paths.get(file), props.getFloorsCount(), bucketMillis);
+    }
+    
+    @Bean(destroyMethod = "shutdownNow")
+    @ConditionalOnProperty("rollout.budgetMillis")
+    public ForkJoinPool rolloutPool(@Value("${rollout.threads:0}") int threads) {
+        return threads > 0 ? new ForkJoinPool(threads) : new ForkJoinPool();
+    }
+    
+    @Bean
+    @ConditionalOnProperty("rollout.budgetMillis")
+    public RolloutDispatch rolloutDispatch(
+            ControllerProps props, ObjectProvider<DemandModel> demandModel, ForkJoinPool rolloutPool,
+            @Value("${rollout.budgetMillis}") long budgetMillis,
+            @Value("${rollout.horizonMillis:300000}") long horizonMillis,
+            @Value("${rollout.callsPerHour:0}") double callsPerHour
+    ) {
+        final RolloutDispatch dispatch = new RolloutDispatch(
+                props.getDispatchPolicy(), rolloutPool, horizonMillis, budgetMillis
+        );
+        dispatch.setForecast(callsPerHour, demandModel.getIfAvailable());
+        return dispatch;
+    }
+    
+    @Bean(destroyMethod = "close")
+    public ElevatorStatePublisher elevatorStatePublisher() {
+        return new ElevatorStatePublisher(ForkJoinPool.commonPool());
     }
     
     @Bean
-    public ElevatorController elevatorController(Elevator elevator, ControllerProps props) {
-        final ElevatorController elevatorController = new ElevatorController(elevator, props);
-        elevatorController.setElevatorListener(new LoggingElevatorListener());
+    public ElevatorController elevatorController(
+            Elevator elevator, ControllerProps props, Scheduler scheduler, ElevatorEventBus eventBus,
+            ElevatorStatePublisher statePublisher, ObjectProvider<ControllerJournal> journal,
+            ObjectProvider<DemandModel> demandModel, ObjectProvider<RolloutDispatch> rolloutDispatch
+    ) {
+        System.out.println(props);
+        final ElevatorController elevatorController = new ElevatorController(elevator, props, scheduler);
+        elevatorController.setElevatorListener(eventBus);
+        elevatorController.setStatePublisher(statePublisher);
+        journal.ifAvailable(elevatorController::setJournal);
+        demandModel.ifAvailable(elevatorController::setDemandModel);
+        rolloutDispatch.ifAvailable(elevatorController::setDispatchStrategy);
         return elevatorController;
     }
     
     @Bean
-    public InputConsumer inputCollector(ElevatorControls elevatorControls) {
-        return new InputConsumer(elevatorControls);
+    public ControllerMetricsBinder controllerMetricsBinder(
+            ElevatorController elevatorController, @Value("${metrics.perFloor:false}") boolean perFloor
+    ) {
+        return new ControllerMetricsBinder(elevatorController, perFloor);
+    }
+    
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty("panels.port")
+    public CallPanelServer callPanelServer(ElevatorControls elevatorControls, @Value("${panels.port}") int port) {
+        return new CallPanelServer(elevatorControls, new InetSocketAddress(port));
+    }
+    
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty("board.port")
+    public StateBoardServer stateBoardServer(
+            List<ElevatorController> elevatorControllers,
+            @Value("${board.port}") int port,
+            @Value("${board.periodMillis:100}") long periodMillis
+    ) {
+        return new StateBoardServer(elevatorControllers, new InetSocketAddress(port), periodMillis);
+    }
+    
+    @Bean
+    public InputConsumer inputCollector(ElevatorController elevatorController) {
+        return new InputConsumer(elevatorController, elevatorController::getSnapshot);
     }
 }
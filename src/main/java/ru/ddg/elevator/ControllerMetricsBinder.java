@@ -0,0 +1,122 @@
+package ru.ddg.elevator;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import ru.ddg.elevator.controller.ControllerMetrics;
+import ru.ddg.elevator.controller.ElevatorController;
+import ru.ddg.elevator.controller.ElevatorState;
+import ru.ddg.elevator.metrics.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Publishes controller metrics to Micrometer, from there to the actuator metrics endpoint and JMX.
+ * Meters only read the controller histograms when they are polled, nothing is added to the controller work.
+ * Hall call waits by floor are a series per floor and direction, they are only published if asked for.
+ */
+public class ControllerMetricsBinder implements MeterBinder {
+
+    private static final ElevatorState[] DIRECTIONS = {
+            ElevatorState.MOVE_UP, ElevatorState.MOVE_DOWN, ElevatorState.SELECT_DIRECTION
+    };
+    private static final double[] PERCENTILES = {50, 90, 99, 100};
+
+    private final ElevatorController controller;
+    private final boolean perFloor;
+
+    public ControllerMetricsBinder(ElevatorController controller) {
+        this(controller, false);
+    }
+
+    /**
+     * @param perFloor whether to publish the hall call waits of every floor too, three timers a floor
+     */
+    public ControllerMetricsBinder(ElevatorController controller, boolean perFloor) {
+        this.controller = controller;
+        this.perFloor = perFloor;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        final ControllerMetrics metrics = controller.getMetrics();
+
+        for (ElevatorState direction : DIRECTIONS) {
+            final Tags tags = Tags.of("direction", directionTag(direction));
+            final LatencyHistogram wait = metrics.getHallCallWait(direction);
+            timer(registry, "elevator.hall.call.wait", tags, () -> wait);
+            percentiles(registry, "elevator.hall.call.wait.percentile", tags, wait);
+
+            if (perFloor) {
+                for (int floor = 1; floor <= metrics.getFloorsCount(); floor++) {
+                    final int floorNumber = floor;
+                    timer(
+                            registry, "elevator.hall.call.wait.floor", tags.and("floor", String.valueOf(floor)),
+                            () -> metrics.getHallCallWait(floorNumber, direction)
+                    );
+                }
+            }
+        }
+
+        timer(registry, "elevator.car.call.time", Tags.empty(), metrics::getCarCallTime);
+        percentiles(registry, "elevator.car.call.time.percentile", Tags.empty(), metrics.getCarCallTime());
+
+        for (ElevatorState state : ElevatorState.values()) {
+            final Tags tags = Tags.of("state", state.name());
+            timer(registry, "elevator.state.dwell", tags, () -> metrics.getStateDwell(state));
+            percentiles(registry, "elevator.state.dwell.percentile", tags, metrics.getStateDwell(state));
+        }
+
+        final LatencyHistogram stops = metrics.getStopsPerTrip();
+        FunctionCounter.builder("elevator.trips", stops, LatencyHistogram::getCount)
+                .register(registry);
+        Gauge.builder("elevator.trip.stops.mean", stops, LatencyHistogram::getMean)
+                .register(registry);
+        Gauge.builder("elevator.trip.stops.max", stops, LatencyHistogram::getMax)
+                .register(registry);
+
+        Gauge.builder("elevator.requests.pending", controller, ElevatorController::getPendingRequests)
+                .register(registry);
+        Gauge.builder("elevator.requests.drained.max", metrics.getRequestsPerDrain(), LatencyHistogram::getMax)
+                .register(registry);
+        FunctionCounter.builder("elevator.presses", controller, ElevatorController::getCoalescedPresses)
+                .tags("result", "coalesced")
+                .register(registry);
+        FunctionCounter.builder("elevator.presses", controller, ElevatorController::getRejectedPresses)
+                .tags("result", "rejected")
+                .register(registry);
+    }
+
+    private static void timer(MeterRegistry registry, String name, Tags tags, Supplier<LatencyHistogram> histogram) {
+        FunctionTimer.builder(
+                name, histogram,
+                h -> h.get() == null ? 0 : h.get().getCount(),
+                h -> h.get() == null ? 0 : h.get().getSum(),
+                TimeUnit.MILLISECONDS
+        ).tags(tags).register(registry);
+    }
+
+    private static void percentiles(MeterRegistry registry, String name, Tags tags, LatencyHistogram histogram) {
+        for (double percentile : PERCENTILES) {
+            Gauge.builder(name, histogram, h -> h.getValueAtPercentile(percentile))
+                    .tags(tags.and("percentile", String.valueOf(percentile)))
+                    .baseUnit("milliseconds")
+                    .register(registry);
+        }
+    }
+
+    private static String directionTag(ElevatorState direction) {
+        switch (direction) {
+            case MOVE_UP:
+                return "up";
+            case MOVE_DOWN:
+                return "down";
+            default:
+                return "none";
+        }
+    }
+}
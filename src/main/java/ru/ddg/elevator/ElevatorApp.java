@@ -1,33 +1,190 @@
 package ru.ddg.elevator;
 
+import ru.ddg.elevator.controller.ControllerProps;
+import ru.ddg.elevator.controller.DispatchPolicy;
 import ru.ddg.elevator.controller.ElevatorController;
+import ru.ddg.elevator.net.CallPanelLoadGenerator;
+import ru.ddg.elevator.simulation.ParameterSweep;
+import ru.ddg.elevator.simulation.PassengerSimulation;
+import ru.ddg.elevator.simulation.PoissonTraffic;
+import ru.ddg.elevator.simulation.TraceReader;
+import ru.ddg.elevator.simulation.TrafficModel;
+import ru.ddg.elevator.simulation.TrafficPattern;
+import ru.ddg.elevator.simulation.UniformTraffic;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * Application entry point.
+ *
+ * Without arguments runs the elevator in real time controlled from the console.
+ * With {@code --replay=<trace file>} replays recorded passengers in virtual time
+ * and prints wait and ride time percentiles, see {@link TraceReader} for the format,
+ * {@code --cars=<count>} replays it with a group of elevators.
+ * With {@code --load=<host>:<port>} loads a running call panel server,
+ * optionally {@code --panels=<connections>} and {@code --seconds=<duration>}.
+ * With {@code --sweep=<csv file>} simulates random passengers for every combination of comma separated
+ * {@code --floors=}, {@code --speeds=}, {@code --doors=}, {@code --policies=} and {@code --cars=},
+ * {@code --runs=} times each with {@code --passengers=} passengers, on all processors, and writes the report.
+ * {@code --traffic=OFFICE_DAY} or a {@link TrafficPattern} name with {@code --rate=<passengers per hour>}
+ * and {@code --hours=} simulates Poisson arrivals instead.
  */
 @SpringBootApplication
 public class ElevatorApp implements CommandLineRunner {
+
+    private static final String REPLAY_ARG = "--replay=";
+    private static final String CARS_ARG = "--cars=";
+    private static final String LOAD_ARG = "--load=";
+    private static final String PANELS_ARG = "--panels=";
+    private static final String SECONDS_ARG = "--seconds=";
+    private static final String SWEEP_ARG = "--sweep=";
+    private static final String FLOORS_ARG = "--floors=";
+    private static final String SPEEDS_ARG = "--speeds=";
+    private static final String DOORS_ARG = "--doors=";
+    private static final String POLICIES_ARG = "--policies=";
+    private static final String RUNS_ARG = "--runs=";
+    private static final String PASSENGERS_ARG = "--passengers=";
+    private static final String TRAFFIC_ARG = "--traffic=";
+    private static final String RATE_ARG = "--rate=";
+    private static final String HOURS_ARG = "--hours=";
+    private static final String OFFICE_DAY = "OFFICE_DAY";
+    private static final long SWEEP_MEAN_ARRIVAL_MILLIS = 5000;
     
     @Autowired
     private InputConsumer inputCollector;
     @Autowired
     private ElevatorController controller;
+    @Autowired
+    private ControllerProps props;
 
     public static void main(String[] args) {
         SpringApplication.run(ElevatorApp.class, args);
     }
 
     @Override
-    public void run(String... args) {
+    public void run(String... args) throws IOException, InterruptedException {
+        for (String arg : args) {
+            if (arg.startsWith(REPLAY_ARG)) {
+                replay(arg.substring(REPLAY_ARG.length()), args);
+                return;
+            }
+            if (arg.startsWith(LOAD_ARG)) {
+                load(arg.substring(LOAD_ARG.length()), args);
+                return;
+            }
+            if (arg.startsWith(SWEEP_ARG)) {
+                sweep(arg.substring(SWEEP_ARG.length()), args);
+                return;
+            }
+        }
+
         controller.start();
         try {
             inputCollector.consumeInput(System.in);
         } finally {
             controller.stop();
+            System.out.println("You have successfully exited the simulator...");
+        }
+    }
+
+    private void replay(String trace, String... args) throws IOException {
+        int cars = 1;
+        for (String arg : args) {
+            if (arg.startsWith(CARS_ARG)) {
+                cars = Integer.parseInt(arg.substring(CARS_ARG.length()));
+            }
+        }
+        try (TraceReader passengers = new TraceReader(Paths.get(trace))) {
+            System.out.println(new PassengerSimulation(props, 0, cars).run(passengers));
+        }
+    }
+
+    private void load(String hostPort, String... args) throws InterruptedException {
+        final int separator = hostPort.lastIndexOf(':');
+        final InetSocketAddress address = new InetSocketAddress(
+                hostPort.substring(0, separator), Integer.parseInt(hostPort.substring(separator + 1))
+        );
+        int panels = 200;
+        int seconds = 10;
+        for (String arg : args) {
+            if (arg.startsWith(PANELS_ARG)) {
+                panels = Integer.parseInt(arg.substring(PANELS_ARG.length()));
+            } else if (arg.startsWith(SECONDS_ARG)) {
+                seconds = Integer.parseInt(arg.substring(SECONDS_ARG.length()));
+            }
+        }
+        final long sent = new CallPanelLoadGenerator(address, panels, props.getFloorsCount(), System.nanoTime())
+                .run(seconds * 1000L);
+        System.out.println(sent + " presses from " + panels + " panels in " + seconds + " s, "
+                + sent / Math.max(1, seconds) + " presses/s");
+    }
+
+    private void sweep(String report, String... args) throws IOException {
+        int runs = 100;
+        int passengers = 1000;
+        String pattern = null;
+        double rate = 300;
+        double hours = 1;
+        for (String arg : args) {
+            if (arg.startsWith(RUNS_ARG)) {
+                runs = Integer.parseInt(arg.substring(RUNS_ARG.length()));
+            } else if (arg.startsWith(PASSENGERS_ARG)) {
+                passengers = Integer.parseInt(arg.substring(PASSENGERS_ARG.length()));
+            } else if (arg.startsWith(TRAFFIC_ARG)) {
+                pattern = arg.substring(TRAFFIC_ARG.length());
+            } else if (arg.startsWith(RATE_ARG)) {
+                rate = Double.parseDouble(arg.substring(RATE_ARG.length()));
+            } else if (arg.startsWith(HOURS_ARG)) {
+                hours = Double.parseDouble(arg.substring(HOURS_ARG.length()));
+            }
         }
+        final TrafficModel traffic;
+        if (pattern == null) {
+            traffic = new UniformTraffic(passengers, SWEEP_MEAN_ARRIVAL_MILLIS);
+        } else if (pattern.equals(OFFICE_DAY)) {
+            traffic = PoissonTraffic.officeDay(rate);
+        } else {
+            traffic = new PoissonTraffic()
+                    .addPeriod((long) (hours * 3_600_000), rate, TrafficPattern.valueOf(pattern));
+        }
+        final ParameterSweep sweep = new ParameterSweep(props, traffic, runs, System.nanoTime());
+        for (String arg : args) {
+            if (arg.startsWith(FLOORS_ARG)) {
+                sweep.setFloorsCounts(ints(arg.substring(FLOORS_ARG.length())));
+            } else if (arg.startsWith(SPEEDS_ARG)) {
+                final String[] speeds = arg.substring(SPEEDS_ARG.length()).split(",");
+                final float[] values = new float[speeds.length];
+                for (int i = 0; i < speeds.length; i++) {
+                    values[i] = Float.parseFloat(speeds[i]);
+                }
+                sweep.setLiftSpeedsMetersPerSecond(values);
+            } else if (arg.startsWith(DOORS_ARG)) {
+                sweep.setDoorOpenCloseTimesMillis(ints(arg.substring(DOORS_ARG.length())));
+            } else if (arg.startsWith(POLICIES_ARG)) {
+                sweep.setDispatchPolicies(Arrays.stream(arg.substring(POLICIES_ARG.length()).split(","))
+                        .map(DispatchPolicy::valueOf)
+                        .toArray(DispatchPolicy[]::new));
+            } else if (arg.startsWith(CARS_ARG)) {
+                sweep.setCarsCounts(ints(arg.substring(CARS_ARG.length())));
+            }
+        }
+        try (Writer writer = Files.newBufferedWriter(Paths.get(report))) {
+            ParameterSweep.writeCsv(sweep.run(ForkJoinPool.commonPool()), writer);
+        }
+        System.out.println("The sweep report is written to " + report);
+    }
+
+    private static int[] ints(String commaSeparated) {
+        return Arrays.stream(commaSeparated.split(",")).mapToInt(Integer::parseInt).toArray();
     }
 }
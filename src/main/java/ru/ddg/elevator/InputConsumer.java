@@ -1,12 +1,14 @@
 package ru.ddg.elevator;
 
 import ru.ddg.elevator.controller.ElevatorControls;
+import ru.ddg.elevator.controller.ElevatorSnapshot;
 
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Consumes input from a user.
@@ -15,9 +17,28 @@ public class InputConsumer {
 
     private final List<Function<String, Boolean>> consumers = new ArrayList<>();
     private final int floorsCount;
+    private final boolean statusShown;
 
     public InputConsumer(ElevatorControls elevatorControls) {
+        this(elevatorControls, null);
+    }
+
+    /**
+     * @param elevatorState shown by the status command, none if null
+     */
+    public InputConsumer(ElevatorControls elevatorControls, Supplier<ElevatorSnapshot> elevatorState) {
         this.floorsCount = elevatorControls.getFloorsCount();
+        this.statusShown = elevatorState != null;
+
+        if (statusShown) {
+            consumers.add((String input) -> {
+                if (input.equalsIgnoreCase("status")) {
+                    System.out.println(elevatorState.get());
+                    return true;
+                }
+                return false;
+            });
+        }
 
         consumers.add((String input) -> {
             if (input.matches("\\d+")) {
@@ -90,6 +111,10 @@ public class InputConsumer {
         System.out.println(" - to select a floor inside the Elevator, enter a Prime number: 1 or 2 or 3 ... ");
         System.out.println("External Elevator call");
         System.out.println(" - For an external Elevator call, enter a number in square brackets: [1] or [2] or [3] ...");
+        if (statusShown) {
+            System.out.println("Status");
+            System.out.println(" - Enter status to see the floor, the direction, the door and the calls");
+        }
         System.out.println("Exit");
         System.out.println(" - Enter quit or exit to exit the simulator");
     }
@@ -0,0 +1,178 @@
+package ru.ddg.elevator.controller;
+
+import ru.ddg.elevator.model.BasicElevator;
+import ru.ddg.elevator.scheduler.EventLoopScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Elevators of many buildings in one process, spread over a fixed number of shards.
+ *
+ * Every shard is an {@link EventLoopScheduler}, one thread running the steps of all its controllers, so shards
+ * share nothing and a process uses as many cores as it has shards. A building is placed on the shard with
+ * the fewest floors to serve when it is registered and stays there. Calls for a building are looked up
+ * without locks and go into its controller's request queue, the owning shard takes them on its next step.
+ */
+public class BuildingRegistry implements AutoCloseable {
+
+    private final EventLoopScheduler[] shards;
+    private final int[] shardFloors;
+    private final int[] shardBuildings;
+    private final ConcurrentMap<String, ElevatorController> buildings = new ConcurrentHashMap<>();
+
+    /**
+     * Registry with one shard per processor.
+     */
+    public BuildingRegistry() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Starts the shard threads.
+     */
+    public BuildingRegistry(int shardsCount) {
+        if (shardsCount < 1) {
+            throw new IllegalArgumentException("Shards count should be positive, Input " + shardsCount);
+        }
+        this.shards = new EventLoopScheduler[shardsCount];
+        this.shardFloors = new int[shardsCount];
+        this.shardBuildings = new int[shardsCount];
+        for (int shard = 0; shard < shardsCount; shard++) {
+            shards[shard] = new EventLoopScheduler("Elevator-shard-" + shard);
+        }
+    }
+
+    /**
+     * Creates the controller of the building on the least loaded shard and starts it.
+     * @param listener events of the elevator, called on the shard thread, must not block
+     * @throws IllegalArgumentException the building is already registered
+     */
+    public synchronized ElevatorController register(String building, ControllerProps props, ElevatorListener listener) {
+        if (buildings.containsKey(building)) {
+            throw new IllegalArgumentException("The building " + building + " is already registered");
+        }
+        int shard = 0;
+        for (int candidate = 1; candidate < shards.length; candidate++) {
+            if (shardFloors[candidate] < shardFloors[shard]) {
+                shard = candidate;
+            }
+        }
+        final ElevatorController controller = new ElevatorController(new BasicElevator(), props, shards[shard]);
+        controller.setElevatorListener(listener);
+        shardFloors[shard] += props.getFloorsCount();
+        shardBuildings[shard]++;
+        buildings.put(building, controller);
+        controller.start();
+        return controller;
+    }
+
+    /**
+     * Buttons of the building, callable from any thread.
+     * @throws IllegalArgumentException no such building
+     */
+    public ElevatorControls controls(String building) {
+        final ElevatorController controller = buildings.get(building);
+        if (controller == null) {
+            throw new IllegalArgumentException("There is no building " + building);
+        }
+        return controller;
+    }
+
+    /**
+     * @return the controller, null if there is no such building
+     */
+    public ElevatorController getController(String building) {
+        return buildings.get(building);
+    }
+
+    public int getBuildingsCount() {
+        return buildings.size();
+    }
+
+    public int getShardsCount() {
+        return shards.length;
+    }
+
+    /**
+     * What every shard has to do and how busy it has been so far.
+     */
+    public synchronized List<ShardLoad> getLoad() {
+        final List<ShardLoad> load = new ArrayList<>(shards.length);
+        for (int shard = 0; shard < shards.length; shard++) {
+            load.add(new ShardLoad(
+                    shard, shardBuildings[shard], shardFloors[shard],
+                    shards[shard].getTasksCount(), shards[shard].getBusyNanos(), shards[shard].getPendingCount()
+            ));
+        }
+        return load;
+    }
+
+    /**
+     * Stops all controllers and shard threads.
+     */
+    @Override
+    public void close() {
+        buildings.values().forEach(ElevatorController::stop);
+        for (EventLoopScheduler shard : shards) {
+            shard.close();
+        }
+    }
+
+    /**
+     * Load of one shard.
+     */
+    public static final class ShardLoad {
+
+        private final int shard;
+        private final int buildings;
+        private final int floors;
+        private final long tasks;
+        private final long busyNanos;
+        private final int pendingTasks;
+
+        ShardLoad(int shard, int buildings, int floors, long tasks, long busyNanos, int pendingTasks) {
+            this.shard = shard;
+            this.buildings = buildings;
+            this.floors = floors;
+            this.tasks = tasks;
+            this.busyNanos = busyNanos;
+            this.pendingTasks = pendingTasks;
+        }
+
+        public int getShard() {
+            return shard;
+        }
+
+        public int getBuildings() {
+            return buildings;
+        }
+
+        public int getFloors() {
+            return floors;
+        }
+
+        /**
+         * Controller steps executed so far.
+         */
+        public long getTasks() {
+            return tasks;
+        }
+
+        public long getBusyNanos() {
+            return busyNanos;
+        }
+
+        public int getPendingTasks() {
+            return pendingTasks;
+        }
+
+        @Override
+        public String toString() {
+            return "Shard " + shard + ": " + buildings + " buildings, " + floors + " floors, "
+                    + tasks + " steps, busy " + busyNanos / 1_000_000 + " ms, " + pendingTasks + " pending";
+        }
+    }
+}
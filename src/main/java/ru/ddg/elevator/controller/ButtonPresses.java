@@ -0,0 +1,217 @@
+package ru.ddg.elevator.controller;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded multi-producer single-consumer queue of button presses, each press encoded into one long:
+ * press time, floor number, whether the button is inside the elevator and whether the call is withdrawn.
+ *
+ * A press of a button which is already lit is coalesced right away by the pressing thread and never
+ * reaches the queue, the button goes out when the controller reports the call {@link #served served}.
+ * A press which does not fit into the queue is rejected.
+ */
+class ButtonPresses {
+
+    static final int ACCEPTED = 0;
+    static final int COALESCED = 1;
+    static final int REJECTED = 2;
+
+    static final int MAX_FLOORS = 0xFFFF;
+
+    private static final long INSIDE = 1;
+    private static final long WITHDRAWN = 2;
+    private static final int FLOOR_SHIFT = 2;
+    private static final int TIME_SHIFT = 18;
+    private static final long EMPTY = 0; // floor numbers start from 1, so a press is never 0
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLongArray insideLit;
+    private final AtomicLongArray outsideLit;
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param capacity queue size, rounded up to a power of two
+     * @param floorsCount floors are numbered from 1 to floorsCount
+     */
+    ButtonPresses(int capacity, int floorsCount) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.insideLit = new AtomicLongArray((floorsCount >> 6) + 1);
+        this.outsideLit = new AtomicLongArray((floorsCount >> 6) + 1);
+    }
+
+    static long encode(int floorNumber, boolean inside, long time) {
+        return time << TIME_SHIFT | (long) floorNumber << FLOOR_SHIFT | (inside ? INSIDE : 0);
+    }
+
+    static int floorNumber(long press) {
+        return (int) (press >>> FLOOR_SHIFT) & MAX_FLOORS;
+    }
+
+    static boolean inside(long press) {
+        return (press & INSIDE) != 0;
+    }
+
+    /**
+     * @return true if the call is taken back rather than pressed
+     */
+    static boolean withdrawn(long press) {
+        return (press & WITHDRAWN) != 0;
+    }
+
+    static long time(long press) {
+        return press >>> TIME_SHIFT;
+    }
+
+    /**
+     * Called from any thread.
+     * @return {@link #ACCEPTED}, {@link #COALESCED} or {@link #REJECTED}
+     */
+    int press(int floorNumber, boolean inside, long time) {
+        final AtomicLongArray lit = inside ? insideLit : outsideLit;
+        if (!light(lit, floorNumber)) {
+            coalesced.increment();
+            return COALESCED;
+        }
+        if (!offer(encode(floorNumber, inside, time))) {
+            putOut(lit, floorNumber);
+            rejected.increment();
+            return REJECTED;
+        }
+        return ACCEPTED;
+    }
+
+    /**
+     * Takes back a call which is not served yet, e.g. when it is given to another elevator.
+     * The button goes out right away, the controller drops the call when it reaches the withdrawal in the queue
+     * unless the button {@link #isLit is lit} again by then, so a press made after the button went out is kept
+     * even when it overtakes the withdrawal in the queue. Called from any thread.
+     * @return false if the withdrawal did not fit into the queue, the call stays then
+     */
+    boolean withdraw(int floorNumber, boolean inside) {
+        final AtomicLongArray lit = inside ? insideLit : outsideLit;
+        if (!putOut(lit, floorNumber)) {
+            return true;
+        }
+        if (!offer(encode(floorNumber, inside, 0) | WITHDRAWN)) {
+            light(lit, floorNumber);
+            rejected.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Consumer only.
+     * @return the oldest press or 0 if there is nothing published yet
+     */
+    long poll() {
+        final long position = head.get();
+        final int index = (int) position & mask;
+        final long press = slots.get(index);
+        if (press == EMPTY) {
+            return EMPTY;
+        }
+        slots.lazySet(index, EMPTY);
+        head.lazySet(position + 1);
+        return press;
+    }
+
+    /**
+     * Consumer only.
+     */
+    boolean isEmpty() {
+        return slots.get((int) head.get() & mask) == EMPTY;
+    }
+
+    /**
+     * Number of presses in the queue, approximate while presses are coming.
+     */
+    int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    /**
+     * Turns the button off, next press of it goes to the queue again. Consumer only.
+     */
+    void served(int floorNumber, boolean inside) {
+        putOut(inside ? insideLit : outsideLit, floorNumber);
+    }
+
+    /**
+     * Whether the button is lit, i.e. a press of it is a call or in the queue. Consumer only.
+     */
+    boolean isLit(int floorNumber, boolean inside) {
+        final AtomicLongArray lit = inside ? insideLit : outsideLit;
+        return (lit.get(floorNumber >> 6) & 1L << floorNumber) != 0;
+    }
+
+    /**
+     * Lights the button of a call recovered after a restart, so its presses are coalesced.
+     */
+    void restore(int floorNumber, boolean inside) {
+        light(inside ? insideLit : outsideLit, floorNumber);
+    }
+
+    long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private boolean offer(long press) {
+        long position;
+        do {
+            position = tail.get();
+            if (position - head.get() > mask) {
+                return false;
+            }
+        } while (!tail.compareAndSet(position, position + 1));
+        slots.set((int) position & mask, press);
+        return true;
+    }
+
+    /**
+     * @return false if the button is already lit
+     */
+    private static boolean light(AtomicLongArray lit, int floorNumber) {
+        final int word = floorNumber >> 6;
+        final long bit = 1L << floorNumber;
+        long bits;
+        do {
+            bits = lit.get(word);
+            if ((bits & bit) != 0) {
+                return false;
+            }
+        } while (!lit.compareAndSet(word, bits, bits | bit));
+        return true;
+    }
+
+    /**
+     * @return false if the button was not lit
+     */
+    private static boolean putOut(AtomicLongArray lit, int floorNumber) {
+        final int word = floorNumber >> 6;
+        final long bit = 1L << floorNumber;
+        long bits;
+        do {
+            bits = lit.get(word);
+            if ((bits & bit) == 0) {
+                return false;
+            }
+        } while (!lit.compareAndSet(word, bits, bits & ~bit));
+        return true;
+    }
+}
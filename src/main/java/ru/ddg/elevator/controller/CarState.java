@@ -0,0 +1,263 @@
+package ru.ddg.elevator.controller;
+
+import java.util.SplittableRandom;
+import java.util.function.BooleanSupplier;
+
+import static ru.ddg.elevator.controller.ElevatorState.MOVE_DOWN;
+import static ru.ddg.elevator.controller.ElevatorState.MOVE_UP;
+
+/**
+ * What a standing car has to do, its floor and clock, {@link PendingCalls#fork forked} from a controller
+ * to play decisions forward without touching the elevator.
+ *
+ * A {@link #copy()} costs a few array clones, so a strategy forks the controller once and copies the fork
+ * for every rollout. {@link #play} moves the car like the controller with a uniform speed does and adds up
+ * how long the calls have waited by the time they are served, or by the end of the rollout if they are not.
+ * Not thread-safe, copies are independent.
+ */
+public final class CarState implements PendingCalls {
+
+    private final int floorsCount;
+    private final int floorTravelTimeMillis;
+    private final int doorOpenCloseTimeMillis;
+    private final FloorCalls inside;
+    private final FloorCalls outside;
+    private int floor;
+    private ElevatorState lastDirection;
+    private long timeMillis;
+    private long waitMillis;
+    private int servedCount;
+
+    CarState(
+            int floorsCount, int floorTravelTimeMillis, int doorOpenCloseTimeMillis,
+            FloorCalls inside, FloorCalls outside, int floor, ElevatorState lastDirection, long timeMillis
+    ) {
+        this.floorsCount = floorsCount;
+        this.floorTravelTimeMillis = floorTravelTimeMillis;
+        this.doorOpenCloseTimeMillis = doorOpenCloseTimeMillis;
+        this.inside = inside;
+        this.outside = outside;
+        this.floor = floor;
+        this.lastDirection = lastDirection;
+        this.timeMillis = timeMillis;
+    }
+
+    /**
+     * Independent copy, including the waits added up so far.
+     */
+    public CarState copy() {
+        final CarState copy = new CarState(
+                floorsCount, floorTravelTimeMillis, doorOpenCloseTimeMillis,
+                new FloorCalls(inside), new FloorCalls(outside), floor, lastDirection, timeMillis
+        );
+        copy.waitMillis = waitMillis;
+        copy.servedCount = servedCount;
+        return copy;
+    }
+
+    /**
+     * Plays the car forward with the strategy. A passenger boarding at a hall call presses a random floor inside.
+     * @param firstFloor the first decision instead of the strategy's, 0 to ask the strategy
+     * @param untilMillis end of the rollout, the calls left by then are counted as waiting until it
+     * @param arrivalTimes hall calls to come, ascending
+     * @param arrivalFloors floors of the hall calls to come
+     */
+    public void play(
+            DispatchStrategy strategy, int firstFloor, long untilMillis,
+            long[] arrivalTimes, int[] arrivalFloors, SplittableRandom random
+    ) {
+        play(strategy, firstFloor, untilMillis, arrivalTimes, arrivalFloors, random, () -> false);
+    }
+
+    /**
+     * Plays the car forward like {@link #play(DispatchStrategy, int, long, long[], int[], SplittableRandom)},
+     * unless it is cancelled: asked before every decision, the car is left where it is then
+     * and the calls left are not counted.
+     * @return false if cancelled
+     */
+    public boolean play(
+            DispatchStrategy strategy, int firstFloor, long untilMillis,
+            long[] arrivalTimes, int[] arrivalFloors, SplittableRandom random, BooleanSupplier cancelled
+    ) {
+        int arrived = takeArrivals(0, arrivalTimes, arrivalFloors);
+        int decision = firstFloor;
+        while (timeMillis < untilMillis) {
+            if (cancelled.getAsBoolean()) {
+                return false;
+            }
+            if (isEmpty()) {
+                if (arrived == arrivalTimes.length || arrivalTimes[arrived] >= untilMillis) {
+                    break;
+                }
+                timeMillis = Math.max(timeMillis, arrivalTimes[arrived]);
+                arrived = takeArrivals(arrived, arrivalTimes, arrivalFloors);
+                continue;
+            }
+            final boolean forced = decision != 0;
+            final int floorToGo = forced ? decision : strategy.selectFloor(this, floor, lastDirection, timeMillis);
+            decision = 0;
+            if (floorToGo == floor) {
+                stop(random);
+                arrived = takeArrivals(arrived, arrivalTimes, arrivalFloors);
+                continue;
+            }
+            final ElevatorState direction = floorToGo < floor ? MOVE_DOWN : MOVE_UP;
+            lastDirection = direction;
+            final long departedMillis = timeMillis;
+            while (timeMillis < untilMillis && (direction == MOVE_UP ? floor < floorsCount : floor > 1)
+                    && strategy.keepMoving(this, floor, direction, timeMillis)) {
+                timeMillis += floorTravelTimeMillis;
+                floor += direction == MOVE_UP ? 1 : -1;
+                if (isCalled(floor)) {
+                    stop(random);
+                }
+                arrived = takeArrivals(arrived, arrivalTimes, arrivalFloors);
+            }
+            if (timeMillis == departedMillis && !forced) {
+                break; // the strategy does not go where it heads for, the controller would ask it forever
+            }
+        }
+        timeMillis = Math.max(timeMillis, untilMillis);
+        waitMillis += waitingUntil(inside, untilMillis) + waitingUntil(outside, untilMillis);
+        return true;
+    }
+
+    public void addInsideCall(int floorNumber, long pressedAtMillis) {
+        inside.add(floorNumber, pressedAtMillis);
+    }
+
+    public void addOutsideCall(int floorNumber, long pressedAtMillis) {
+        outside.add(floorNumber, pressedAtMillis);
+    }
+
+    public int getFloor() {
+        return floor;
+    }
+
+    public ElevatorState getLastDirection() {
+        return lastDirection;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * Waits of the calls from the press until the door opened for them, or until the end of the rollout.
+     */
+    public long getWaitMillis() {
+        return waitMillis;
+    }
+
+    /**
+     * Calls served so far, inside and outside ones counted separately.
+     */
+    public int getServedCount() {
+        return servedCount;
+    }
+
+    @Override
+    public int getFloorsCount() {
+        return floorsCount;
+    }
+
+    @Override
+    public int getFloorTravelTimeMillis() {
+        return floorTravelTimeMillis;
+    }
+
+    @Override
+    public int getDoorOpenCloseTimeMillis() {
+        return doorOpenCloseTimeMillis;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return inside.isEmpty() && outside.isEmpty();
+    }
+
+    @Override
+    public boolean isCalled(int floorNumber) {
+        return inside.contains(floorNumber) || outside.contains(floorNumber);
+    }
+
+    @Override
+    public int oldestInside() {
+        return inside.oldest();
+    }
+
+    @Override
+    public int oldestOutside() {
+        return outside.oldest();
+    }
+
+    @Override
+    public int above(int floorNumber) {
+        final int insideAbove = inside.above(floorNumber);
+        final int outsideAbove = outside.above(floorNumber);
+        return insideAbove == 0 || outsideAbove == 0
+                ? Math.max(insideAbove, outsideAbove) : Math.min(insideAbove, outsideAbove);
+    }
+
+    @Override
+    public int below(int floorNumber) {
+        return Math.max(inside.below(floorNumber), outside.below(floorNumber));
+    }
+
+    @Override
+    public long pressedAt(int floorNumber) {
+        if (!inside.contains(floorNumber)) {
+            return outside.pressedAt(floorNumber);
+        }
+        if (!outside.contains(floorNumber)) {
+            return inside.pressedAt(floorNumber);
+        }
+        return Math.min(inside.pressedAt(floorNumber), outside.pressedAt(floorNumber));
+    }
+
+    @Override
+    public CarState fork(int currentFloor, ElevatorState lastDirection, long nowMillis) {
+        final CarState fork = copy();
+        fork.floor = currentFloor;
+        fork.lastDirection = lastDirection;
+        fork.timeMillis = nowMillis;
+        return fork;
+    }
+
+    /**
+     * Serves the calls at the floor, the door takes its time.
+     */
+    private void stop(SplittableRandom random) {
+        if (inside.contains(floor)) {
+            waitMillis += timeMillis - inside.pressedAt(floor);
+            inside.remove(floor);
+            servedCount++;
+        }
+        if (outside.contains(floor)) {
+            waitMillis += timeMillis - outside.pressedAt(floor);
+            outside.remove(floor);
+            servedCount++;
+            if (floorsCount > 1) {
+                final int destination = 1 + random.nextInt(floorsCount - 1);
+                inside.add(destination < floor ? destination : destination + 1, timeMillis);
+            }
+        }
+        timeMillis += doorOpenCloseTimeMillis;
+    }
+
+    private int takeArrivals(int arrived, long[] arrivalTimes, int[] arrivalFloors) {
+        while (arrived < arrivalTimes.length && arrivalTimes[arrived] <= timeMillis) {
+            outside.add(arrivalFloors[arrived], arrivalTimes[arrived]);
+            arrived++;
+        }
+        return arrived;
+    }
+
+    private static long waitingUntil(FloorCalls calls, long untilMillis) {
+        long wait = 0;
+        for (int floorNumber = calls.oldest(); floorNumber != 0; floorNumber = calls.newer(floorNumber)) {
+            wait += Math.max(0, untilMillis - calls.pressedAt(floorNumber));
+        }
+        return wait;
+    }
+}
@@ -0,0 +1,206 @@
+package ru.ddg.elevator.controller;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder events of the {@link ElevatorController}, to see the controller next to GC pauses and busy
+ * threads in one recording, e.g. {@code java -XX:StartFlightRecording=filename=elevator.jfr ...}.
+ *
+ * Every event carries the identity hash of its controller, so the cars sharing a scheduler thread can be told
+ * apart. Events are made and committed on the spot, the JIT removes them when no recording wants them.
+ * Stack traces are off, the thread of the event is recorded anyway.
+ */
+final class ControllerEvents {
+
+    static final String CATEGORY = "Elevator";
+
+    private ControllerEvents() {
+    }
+
+    @Name("ru.ddg.elevator.StateTransition")
+    @Label("State Transition")
+    @Description("The controller leaves a state for another one")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class StateTransition extends Event {
+
+        @Label("Controller")
+        int controller;
+
+        @Label("Floor")
+        int floor;
+
+        @Label("From")
+        String from;
+
+        @Label("To")
+        String to;
+
+        @Label("Time in State")
+        @Description("Scheduler time spent in the state left, virtual in simulations")
+        @Timespan(Timespan.MILLISECONDS)
+        long inStateMillis;
+
+        void commit(int controller, int floor, ElevatorState from, ElevatorState to, long inStateMillis) {
+            if (shouldCommit()) {
+                this.controller = controller;
+                this.floor = floor;
+                this.from = from.name();
+                this.to = to.name();
+                this.inStateMillis = inStateMillis;
+                commit();
+            }
+        }
+    }
+
+    @Name("ru.ddg.elevator.ButtonPress")
+    @Label("Button Press")
+    @Description("A press is put into the request queue of the controller, on the pressing thread")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class ButtonPress extends Event {
+
+        @Label("Controller")
+        int controller;
+
+        @Label("Floor")
+        int floor;
+
+        @Label("Inside")
+        boolean inside;
+
+        @Label("Result")
+        @Description("ACCEPTED, COALESCED with a lit button or REJECTED by the full queue")
+        String result;
+
+        void commit(int controller, int floor, boolean inside, int result) {
+            if (shouldCommit()) {
+                this.controller = controller;
+                this.floor = floor;
+                this.inside = inside;
+                this.result = result == ButtonPresses.ACCEPTED ? "ACCEPTED"
+                        : result == ButtonPresses.COALESCED ? "COALESCED" : "REJECTED";
+                commit();
+            }
+        }
+    }
+
+    @Name("ru.ddg.elevator.RequestsCollected")
+    @Label("Requests Collected")
+    @Description("The controller drains the request queue into its calls")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class RequestsCollected extends Event {
+
+        @Label("Controller")
+        int controller;
+
+        @Label("Collected")
+        int collected;
+
+        @Label("Calls")
+        @Description("Inside and outside calls after the drain")
+        int calls;
+
+        void commit(int controller, int collected, int calls) {
+            end();
+            if (shouldCommit()) {
+                this.controller = controller;
+                this.collected = collected;
+                this.calls = calls;
+                commit();
+            }
+        }
+    }
+
+    @Name("ru.ddg.elevator.DoorCycle")
+    @Label("Door Cycle")
+    @Description("From the door opening to the door closed")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class DoorCycle extends Event {
+
+        @Label("Controller")
+        int controller;
+
+        @Label("Floor")
+        int floor;
+
+        void commit(int controller, int floor) {
+            end();
+            if (shouldCommit()) {
+                this.controller = controller;
+                this.floor = floor;
+                commit();
+            }
+        }
+    }
+
+    @Name("ru.ddg.elevator.ListenerCallback")
+    @Label("Listener Callback")
+    @Description("The elevator listener is called, the controller waits for it")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class ListenerCallback extends Event {
+
+        @Label("Controller")
+        int controller;
+
+        @Label("Callback")
+        String callback;
+
+        @Label("Floor")
+        int floor;
+
+        void commit(int controller, String callback, int floor) {
+            end();
+            if (shouldCommit()) {
+                this.controller = controller;
+                this.callback = callback;
+                this.floor = floor;
+                commit();
+            }
+        }
+    }
+
+    @Name("ru.ddg.elevator.StopDecision")
+    @Label("Stop Decision")
+    @Description("The moving car goes on to the next floor or stops where it is")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class StopDecision extends Event {
+
+        @Label("Controller")
+        int controller;
+
+        @Label("Floor")
+        int floor;
+
+        @Label("Direction")
+        String direction;
+
+        @Label("Keep Moving")
+        boolean keepMoving;
+
+        @Label("Parking")
+        @Description("The car heads for its parking floor, not for a call")
+        boolean parking;
+
+        void commit(int controller, int floor, ElevatorState direction, boolean keepMoving, boolean parking) {
+            if (shouldCommit()) {
+                this.controller = controller;
+                this.floor = floor;
+                this.direction = direction.name();
+                this.keepMoving = keepMoving;
+                this.parking = parking;
+                commit();
+            }
+        }
+    }
+}
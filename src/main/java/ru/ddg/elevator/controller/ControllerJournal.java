@@ -0,0 +1,330 @@
+package ru.ddg.elevator.controller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Crash-safe record of what the controller has to remember: pending calls, the floor and the direction.
+ *
+ * Every change is appended to a memory-mapped journal of fixed size records, so a write is a few stores
+ * into the page cache and survives the death of the process. When the journal is full the whole state
+ * is written into a compact snapshot and the journal starts over, so recovery reads one snapshot and
+ * at most one journal of records however long the controller has been running.
+ *
+ * Both files carry a generation number: a journal older than the snapshot is left from a crash right after
+ * the snapshot and is ignored. Records are written by the controller only and are not thread-safe.
+ */
+public class ControllerJournal implements AutoCloseable {
+
+    static final String JOURNAL_FILE = "journal";
+    static final String SNAPSHOT_FILE = "snapshot";
+    private static final String SNAPSHOT_TEMP_FILE = "snapshot.tmp";
+
+    private static final int MAGIC = 0xE1E7A70D;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 16;
+    private static final int SNAPSHOT_MIN_SIZE = 40;
+
+    private static final int CALL_ADDED = 1;
+    private static final int CALL_SERVED = 2;
+    private static final int ARRIVED = 3;
+    private static final int STATE_ENTERED = 4;
+
+    private static final ElevatorState[] STATES = ElevatorState.values();
+
+    private final Path directory;
+    private final int floorsCount;
+    private final FileChannel channel;
+    private final MappedByteBuffer journal;
+    private final FloorCalls recoveredInside;
+    private final FloorCalls recoveredOutside;
+    private FloorCalls inside;
+    private FloorCalls outside;
+    private int capacity;
+    private long generation;
+    private int records;
+    private int floor;
+    private ElevatorState state = ElevatorState.IDLE;
+
+    /**
+     * Opens the journal in the directory, creating it if needed, and recovers the recorded state.
+     * @param capacity records in the journal before it is compacted into a snapshot,
+     *                 a bigger journal left by a previous run keeps its size
+     * @throws IOException files can not be read or created
+     * @throws IllegalStateException the files are corrupt or belong to an elevator with other floors
+     */
+    public static ControllerJournal open(Path directory, int floorsCount, int capacity) throws IOException {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The journal capacity should be positive, Input " + capacity);
+        }
+        Files.createDirectories(directory);
+        return new ControllerJournal(directory, floorsCount, capacity);
+    }
+
+    private ControllerJournal(Path directory, int floorsCount, int capacity) throws IOException {
+        this.directory = directory;
+        this.floorsCount = floorsCount;
+        this.recoveredInside = new FloorCalls(floorsCount);
+        this.recoveredOutside = new FloorCalls(floorsCount);
+        this.inside = recoveredInside;
+        this.outside = recoveredOutside;
+
+        readSnapshot();
+        this.channel = FileChannel.open(
+                directory.resolve(JOURNAL_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE
+        );
+        try {
+            final long size = Math.max(channel.size(), HEADER_SIZE + (long) capacity * RECORD_SIZE);
+            this.journal = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            this.capacity = (int) ((size - HEADER_SIZE) / RECORD_SIZE);
+            replayJournal();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return recorded floor, 0 if nothing is recorded yet
+     */
+    public int getFloor() {
+        return floor;
+    }
+
+    /**
+     * @return state the controller was in when the last record was made
+     */
+    public ElevatorState getState() {
+        return state;
+    }
+
+    /**
+     * Generation of the last snapshot, grows by one with every compaction.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Records in the journal since the last snapshot.
+     */
+    public int getRecords() {
+        return records;
+    }
+
+    /**
+     * Copies recovered calls into the controller call sets in the order they were pressed,
+     * from then on the journal snapshots those sets.
+     */
+    void restore(FloorCalls insideCalls, FloorCalls outsideCalls) {
+        copy(recoveredInside, insideCalls);
+        copy(recoveredOutside, outsideCalls);
+        this.inside = insideCalls;
+        this.outside = outsideCalls;
+    }
+
+    private static void copy(FloorCalls from, FloorCalls to) {
+        for (int floorNumber = from.oldest(); floorNumber != 0; floorNumber = from.newer(floorNumber)) {
+            to.add(floorNumber, from.pressedAt(floorNumber));
+        }
+    }
+
+    void callAdded(int floorNumber, boolean inside, long time) {
+        append(CALL_ADDED, floorNumber, inside, time);
+    }
+
+    void callServed(int floorNumber, boolean inside) {
+        append(CALL_SERVED, floorNumber, inside, 0);
+    }
+
+    void arrived(int floorNumber) {
+        floor = floorNumber;
+        append(ARRIVED, floorNumber, false, 0);
+    }
+
+    void stateEntered(ElevatorState next) {
+        state = next;
+        append(STATE_ENTERED, next.ordinal(), false, 0);
+    }
+
+    /**
+     * Flushes the journal to the disk and closes it.
+     */
+    @Override
+    public void close() throws IOException {
+        journal.force();
+        channel.close();
+    }
+
+    /**
+     * The record type is written last, a record without it is the end of the journal.
+     */
+    private void append(int type, int value, boolean inside, long time) {
+        if (records == capacity) {
+            compact();
+        }
+        final int position = HEADER_SIZE + records * RECORD_SIZE;
+        journal.putLong(position + 8, time);
+        journal.putInt(position + 4, value);
+        journal.putInt(position, type << 1 | (inside ? 1 : 0));
+        records++;
+    }
+
+    private void replayJournal() {
+        if (journal.getInt(0) != MAGIC) {
+            resetJournal();
+            return;
+        }
+        final long journalGeneration = journal.getLong(8);
+        if (journalGeneration < generation) {
+            resetJournal();
+            return;
+        }
+        if (journalGeneration > generation) {
+            throw new IllegalStateException(
+                    "The journal generation " + journalGeneration + " is ahead of the snapshot " + generation
+            );
+        }
+        while (records < capacity) {
+            final int position = HEADER_SIZE + records * RECORD_SIZE;
+            final int header = journal.getInt(position);
+            if (header == 0) {
+                break;
+            }
+            apply(header >>> 1, journal.getInt(position + 4), (header & 1) != 0, journal.getLong(position + 8));
+            records++;
+        }
+    }
+
+    private void apply(int type, int value, boolean insideCall, long time) {
+        switch (type) {
+            case CALL_ADDED:
+                (insideCall ? inside : outside).add(checkFloor(value), time);
+                break;
+            case CALL_SERVED:
+                (insideCall ? inside : outside).remove(checkFloor(value));
+                break;
+            case ARRIVED:
+                floor = checkFloor(value);
+                break;
+            case STATE_ENTERED:
+                if (value < 0 || value >= STATES.length) {
+                    throw new IllegalStateException("Unknown elevator state " + value + " at " + records);
+                }
+                state = STATES[value];
+                break;
+            default:
+                throw new IllegalStateException("Unknown journal record " + type + " at " + records);
+        }
+    }
+
+    private int checkFloor(int floorNumber) {
+        if (floorNumber < 1 || floorNumber > floorsCount) {
+            throw new IllegalStateException(
+                    "The journal has floor " + floorNumber + " out of 1 to " + floorsCount
+            );
+        }
+        return floorNumber;
+    }
+
+    /**
+     * Saves the state into a new snapshot and empties the journal. The snapshot replaces the previous one
+     * atomically, the journal is cleared before its new generation is written.
+     */
+    private void compact() {
+        try {
+            writeSnapshot(generation + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not write the controller snapshot into " + directory, e);
+        }
+        generation++;
+        resetJournal();
+    }
+
+    private void resetJournal() {
+        for (int position = HEADER_SIZE; position < journal.capacity(); position += 8) {
+            journal.putLong(position, 0);
+        }
+        journal.putLong(8, generation);
+        journal.putInt(0, MAGIC);
+        records = 0;
+    }
+
+    private void writeSnapshot(long snapshotGeneration) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(
+                SNAPSHOT_MIN_SIZE + (inside.size() + outside.size()) * 12
+        );
+        buffer.putInt(MAGIC).putLong(snapshotGeneration).putInt(floorsCount).putInt(floor).putInt(state.ordinal());
+        putCalls(buffer, inside);
+        putCalls(buffer, outside);
+        final CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(crc.getValue());
+        buffer.flip();
+
+        final Path temp = directory.resolve(SNAPSHOT_TEMP_FILE);
+        try (FileChannel snapshot = FileChannel.open(
+                temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE
+        )) {
+            while (buffer.hasRemaining()) {
+                snapshot.write(buffer);
+            }
+            snapshot.force(true);
+        }
+        Files.move(temp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void putCalls(ByteBuffer buffer, FloorCalls calls) {
+        buffer.putInt(calls.size());
+        for (int floorNumber = calls.oldest(); floorNumber != 0; floorNumber = calls.newer(floorNumber)) {
+            buffer.putInt(floorNumber).putLong(calls.pressedAt(floorNumber));
+        }
+    }
+
+    private void readSnapshot() throws IOException {
+        final Path path = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(path)) {
+            return;
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        final CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, Math.max(0, buffer.limit() - 8));
+        if (buffer.limit() < SNAPSHOT_MIN_SIZE || buffer.getLong(buffer.limit() - 8) != crc.getValue() || buffer.getInt() != MAGIC) {
+            throw new IllegalStateException("The controller snapshot " + path + " is corrupt");
+        }
+        generation = buffer.getLong();
+        final int snapshotFloors = buffer.getInt();
+        if (snapshotFloors != floorsCount) {
+            throw new IllegalStateException(
+                    "The snapshot is for " + snapshotFloors + " floors, the elevator has " + floorsCount
+            );
+        }
+        floor = buffer.getInt();
+        if (floor != 0) { // not known yet in snapshots of journals started without the floor
+            checkFloor(floor);
+        }
+        final int ordinal = buffer.getInt();
+        if (ordinal < 0 || ordinal >= STATES.length) {
+            throw new IllegalStateException("Unknown elevator state " + ordinal + " in the snapshot " + path);
+        }
+        state = STATES[ordinal];
+        getCalls(buffer, inside);
+        getCalls(buffer, outside);
+    }
+
+    private void getCalls(ByteBuffer buffer, FloorCalls calls) {
+        final int size = buffer.getInt();
+        for (int i = 0; i < size; i++) {
+            calls.add(checkFloor(buffer.getInt()), buffer.getLong());
+        }
+    }
+}
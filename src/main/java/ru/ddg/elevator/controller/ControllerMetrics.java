@@ -0,0 +1,119 @@
+package ru.ddg.elevator.controller;
+
+import ru.ddg.elevator.metrics.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Instrumentation of one controller: how long calls wait, how long the controller stays in each state,
+ * how many stops a trip makes and how many requests pile up between drains.
+ *
+ * Written by the controller only, read from any thread. Histograms of a floor are created on its first call,
+ * so tall buildings with quiet floors stay cheap.
+ */
+public class ControllerMetrics {
+
+    private static final ElevatorState[] STATES = ElevatorState.values();
+
+    private final int floorsCount;
+    private final AtomicReferenceArray<LatencyHistogram> hallCallWaitByFloor;
+    private final LatencyHistogram[] hallCallWait = new LatencyHistogram[STATES.length];
+    private final LatencyHistogram carCallTime = new LatencyHistogram();
+    private final LatencyHistogram[] stateDwell = new LatencyHistogram[STATES.length];
+    private final LatencyHistogram stopsPerTrip = new LatencyHistogram();
+    private final LatencyHistogram requestsPerDrain = new LatencyHistogram();
+
+    private int tripStops;
+
+    ControllerMetrics(int floorsCount) {
+        this.floorsCount = floorsCount;
+        this.hallCallWaitByFloor = new AtomicReferenceArray<>((floorsCount + 1) * STATES.length);
+        for (ElevatorState state : STATES) {
+            hallCallWait[state.ordinal()] = new LatencyHistogram();
+            stateDwell[state.ordinal()] = new LatencyHistogram();
+        }
+    }
+
+    public int getFloorsCount() {
+        return floorsCount;
+    }
+
+    /**
+     * From an outside button press until the door opens at that floor, for all floors.
+     * @param direction state of the elevator when the call is served: {@link ElevatorState#MOVE_UP},
+     *                  {@link ElevatorState#MOVE_DOWN} or {@link ElevatorState#SELECT_DIRECTION} if it stood there
+     */
+    public LatencyHistogram getHallCallWait(ElevatorState direction) {
+        return hallCallWait[direction.ordinal()];
+    }
+
+    /**
+     * Same as {@link #getHallCallWait(ElevatorState)} for one floor.
+     * @return null if there were no such calls
+     */
+    public LatencyHistogram getHallCallWait(int floorNumber, ElevatorState direction) {
+        return hallCallWaitByFloor.get(floorNumber * STATES.length + direction.ordinal());
+    }
+
+    /**
+     * From an inside button press until the door opens at that floor.
+     */
+    public LatencyHistogram getCarCallTime() {
+        return carCallTime;
+    }
+
+    /**
+     * How long the controller stays in the state before switching to another one.
+     */
+    public LatencyHistogram getStateDwell(ElevatorState state) {
+        return stateDwell[state.ordinal()];
+    }
+
+    /**
+     * Door openings from leaving {@link ElevatorState#IDLE} until returning to it.
+     */
+    public LatencyHistogram getStopsPerTrip() {
+        return stopsPerTrip;
+    }
+
+    /**
+     * Requests taken from the request queue at once.
+     */
+    public LatencyHistogram getRequestsPerDrain() {
+        return requestsPerDrain;
+    }
+
+    void callServed(int floorNumber, boolean inside, ElevatorState direction, long waitMillis) {
+        if (inside) {
+            carCallTime.record(waitMillis);
+            return;
+        }
+        hallCallWait[direction.ordinal()].record(waitMillis);
+        final int index = floorNumber * STATES.length + direction.ordinal();
+        LatencyHistogram floorWait = hallCallWaitByFloor.get(index);
+        if (floorWait == null) {
+            floorWait = new LatencyHistogram();
+            hallCallWaitByFloor.set(index, floorWait);
+        }
+        floorWait.record(waitMillis);
+    }
+
+    void stateLeft(ElevatorState state, long dwellMillis) {
+        stateDwell[state.ordinal()].record(dwellMillis);
+    }
+
+    void doorOpened() {
+        tripStops++;
+    }
+
+    void tripEnded() {
+        stopsPerTrip.record(tripStops);
+        tripStops = 0;
+    }
+
+    void requestsCollected(int count) {
+        if (count > 0) {
+            requestsPerDrain.record(count);
+        }
+    }
+}
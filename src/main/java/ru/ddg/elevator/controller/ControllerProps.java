@@ -16,7 +16,31 @@ public class ControllerProps {
     private int floorsCount;
     private int floorHeightCentimeters;
     private int liftSpeedCentimetersPerSecond;
+    private int accelerationCentimetersPerSecondSquared;
     private int doorOpenCloseTimeMillis;
+    private int requestQueueSize = 1024;
+    private int eventBufferSize = 1024;
+    private ElevatorEventBus.OverflowPolicy eventOverflowPolicy = ElevatorEventBus.OverflowPolicy.DROP;
+    private DispatchPolicy dispatchPolicy = DispatchPolicy.INSIDE_FIRST;
+
+    public ControllerProps() {
+    }
+
+    /**
+     * Copy to change a few settings of, e.g. in parameter sweeps.
+     */
+    public ControllerProps(ControllerProps other) {
+        this.currentFloor = other.currentFloor;
+        this.floorsCount = other.floorsCount;
+        this.floorHeightCentimeters = other.floorHeightCentimeters;
+        this.liftSpeedCentimetersPerSecond = other.liftSpeedCentimetersPerSecond;
+        this.accelerationCentimetersPerSecondSquared = other.accelerationCentimetersPerSecondSquared;
+        this.doorOpenCloseTimeMillis = other.doorOpenCloseTimeMillis;
+        this.requestQueueSize = other.requestQueueSize;
+        this.eventBufferSize = other.eventBufferSize;
+        this.eventOverflowPolicy = other.eventOverflowPolicy;
+        this.dispatchPolicy = other.dispatchPolicy;
+    }
 
     public int getCurrentFloor() {
         return currentFloor;
@@ -34,14 +58,48 @@ public class ControllerProps {
         return liftSpeedCentimetersPerSecond;
     }
 
+    /**
+     * @return 0 if the car moves at the full speed from floor to floor
+     */
+    public int getAccelerationCentimetersPerSecondSquared() {
+        return accelerationCentimetersPerSecondSquared;
+    }
+
     public int getDoorOpenCloseTimeMillis() {
         return doorOpenCloseTimeMillis;
     }
 
+    public int getRequestQueueSize() {
+        return requestQueueSize;
+    }
+
+    public int getEventBufferSize() {
+        return eventBufferSize;
+    }
+
+    public ElevatorEventBus.OverflowPolicy getEventOverflowPolicy() {
+        return eventOverflowPolicy;
+    }
+
+    public DispatchPolicy getDispatchPolicy() {
+        return dispatchPolicy;
+    }
+
     public int getFloorTravelTimeMillis() {
         return floorHeightCentimeters / liftSpeedCentimetersPerSecond * 1000;
     }
 
+    /**
+     * Distance the car needs to stop from the full speed, 0 if it stops at once.
+     */
+    public int getBrakingDistanceCentimeters() {
+        if (accelerationCentimetersPerSecondSquared == 0) {
+            return 0;
+        }
+        return (int) ((long) liftSpeedCentimetersPerSecond * liftSpeedCentimetersPerSecond
+                / (2L * accelerationCentimetersPerSecondSquared));
+    }
+
     public void setCurrentFloor(int currentFloor) {
         this.currentFloor = currentFloor;
     }
@@ -58,10 +116,30 @@ public class ControllerProps {
         this.liftSpeedCentimetersPerSecond = (int)(liftSpeedMetersPerSecond * 100);
     }
 
+    public void setAccelerationMetersPerSecondSquared(float accelerationMetersPerSecondSquared) {
+        this.accelerationCentimetersPerSecondSquared = (int)(accelerationMetersPerSecondSquared * 100);
+    }
+
     public void setDoorOpenCloseTimeMillis(int doorOpenCloseTimeMillis) {
         this.doorOpenCloseTimeMillis = doorOpenCloseTimeMillis;
     }
 
+    public void setRequestQueueSize(int requestQueueSize) {
+        this.requestQueueSize = requestQueueSize;
+    }
+
+    public void setEventBufferSize(int eventBufferSize) {
+        this.eventBufferSize = eventBufferSize;
+    }
+
+    public void setEventOverflowPolicy(ElevatorEventBus.OverflowPolicy eventOverflowPolicy) {
+        this.eventOverflowPolicy = eventOverflowPolicy;
+    }
+
+    public void setDispatchPolicy(DispatchPolicy dispatchPolicy) {
+        this.dispatchPolicy = dispatchPolicy;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -71,14 +149,20 @@ public class ControllerProps {
                 floorsCount == props.floorsCount &&
                 floorHeightCentimeters == props.floorHeightCentimeters &&
                 liftSpeedCentimetersPerSecond == props.liftSpeedCentimetersPerSecond &&
-                doorOpenCloseTimeMillis == props.doorOpenCloseTimeMillis;
+                accelerationCentimetersPerSecondSquared == props.accelerationCentimetersPerSecondSquared &&
+                doorOpenCloseTimeMillis == props.doorOpenCloseTimeMillis &&
+                requestQueueSize == props.requestQueueSize &&
+                eventBufferSize == props.eventBufferSize &&
+                eventOverflowPolicy == props.eventOverflowPolicy &&
+                dispatchPolicy == props.dispatchPolicy;
     }
 
     @Override
     public int hashCode() {
         return Objects.hash(
                 currentFloor, floorsCount, floorHeightCentimeters, 
-                liftSpeedCentimetersPerSecond, doorOpenCloseTimeMillis
+                liftSpeedCentimetersPerSecond, accelerationCentimetersPerSecondSquared, doorOpenCloseTimeMillis,
+                requestQueueSize, eventBufferSize, eventOverflowPolicy, dispatchPolicy
         );
     }
 
@@ -89,7 +173,12 @@ public class ControllerProps {
                 ", floorsCount=" + floorsCount +
                 ", floorHeightCentimeters=" + floorHeightCentimeters +
                 ", ElevatorSpeedCentimetersPerSecond=" + liftSpeedCentimetersPerSecond +
+                ", accelerationCentimetersPerSecondSquared=" + accelerationCentimetersPerSecondSquared +
                 ", doorOpenCloseTimeMillis=" + doorOpenCloseTimeMillis +
+                ", requestQueueSize=" + requestQueueSize +
+                ", eventBufferSize=" + eventBufferSize +
+                ", eventOverflowPolicy=" + eventOverflowPolicy +
+                ", dispatchPolicy=" + dispatchPolicy +
                 '}';
     }
 }
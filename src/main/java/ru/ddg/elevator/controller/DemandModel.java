@@ -0,0 +1,219 @@
+package ru.ddg.elevator.controller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Where hall calls come from at what time of day, learned from the calls the controller takes.
+ *
+ * The day is cut into buckets, e.g. 96 buckets of 15 minutes, each keeps a counter per floor. When a bucket
+ * has seen {@link #MAX_BUCKET_CALLS} calls its counters are halved, so old habits fade and a day of
+ * buckets of a 50 floor building takes 20 KB. The time of day is the scheduler time modulo a day,
+ * i.e. UTC for the wall clock.
+ *
+ * An idle car is parked at the {@link #parkingFloor(long) floor} closest on average to the next call:
+ * the weighted median of the calls of the current and the next bucket.
+ *
+ * The counters are kept in a file between runs if the model is {@link #open(Path, int, long) opened}
+ * from one. Recorded by the controller, thread-safe.
+ */
+public class DemandModel implements AutoCloseable {
+
+    public static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+    static final int MAX_BUCKET_CALLS = 1 << 16;
+
+    private static final int MAGIC = 0xDE3A0D01;
+    private static final int HEADER_SIZE = 20;
+
+    private final int floorsCount;
+    private final long bucketMillis;
+    private final int bucketsCount;
+    private final int[] calls; // bucket * (floorsCount + 1) + floor
+    private final int[] bucketCalls;
+    private final Path file;
+
+    /**
+     * Model which is not saved anywhere, e.g. for simulations.
+     * @param bucketMillis buckets of the day, should divide a day
+     */
+    public DemandModel(int floorsCount, long bucketMillis) {
+        this(floorsCount, bucketMillis, null);
+    }
+
+    private DemandModel(int floorsCount, long bucketMillis, Path file) {
+        if (floorsCount < 1) {
+            throw new IllegalArgumentException("Floors count should be positive, Input " + floorsCount);
+        }
+        if (bucketMillis <= 0 || DAY_MILLIS % bucketMillis != 0) {
+            throw new IllegalArgumentException("Bucket millis should divide a day, Input " + bucketMillis);
+        }
+        this.floorsCount = floorsCount;
+        this.bucketMillis = bucketMillis;
+        this.bucketsCount = (int) (DAY_MILLIS / bucketMillis);
+        this.calls = new int[bucketsCount * (floorsCount + 1)];
+        this.bucketCalls = new int[bucketsCount];
+        this.file = file;
+    }
+
+    /**
+     * Reads the model saved in the file, or starts a new one if there is no file, and saves it there on close.
+     * @throws IOException the file can not be read
+     * @throws IllegalStateException the file is corrupt or belongs to an elevator with other floors or buckets
+     */
+    public static DemandModel open(Path file, int floorsCount, long bucketMillis) throws IOException {
+        final DemandModel model = new DemandModel(floorsCount, bucketMillis, file);
+        if (Files.exists(file)) {
+            model.read(ByteBuffer.wrap(Files.readAllBytes(file)));
+        }
+        return model;
+    }
+
+    /**
+     * Counts a hall call.
+     */
+    public synchronized void record(int floorNumber, long timeMillis) {
+        final int bucket = bucketOf(timeMillis);
+        if (bucketCalls[bucket] == MAX_BUCKET_CALLS) {
+            final int first = bucket * (floorsCount + 1);
+            int total = 0;
+            for (int floor = 1; floor <= floorsCount; floor++) {
+                calls[first + floor] >>= 1;
+                total += calls[first + floor];
+            }
+            bucketCalls[bucket] = total;
+        }
+        calls[bucket * (floorsCount + 1) + floorNumber]++;
+        bucketCalls[bucket]++;
+    }
+
+    /**
+     * @return floor minimizing the expected distance to the next hall call, 0 if nothing is known about the time
+     */
+    public synchronized int parkingFloor(long timeMillis) {
+        final int bucket = bucketOf(timeMillis);
+        final int next = (bucket + 1) % bucketsCount;
+        final long total = (long) bucketCalls[bucket] + bucketCalls[next];
+        if (total == 0) {
+            return 0;
+        }
+        long seen = 0;
+        for (int floor = 1; floor <= floorsCount; floor++) {
+            seen += calls[bucket * (floorsCount + 1) + floor] + calls[next * (floorsCount + 1) + floor];
+            if (2 * seen >= total) {
+                return floor;
+            }
+        }
+        return floorsCount;
+    }
+
+    /**
+     * Floor of a hall call at the time, drawn from the calls counted in its bucket, e.g. to predict arrivals.
+     * @param uniform random number from 0 inclusive to 1 exclusive
+     * @return 0 if nothing is known about the time
+     */
+    public synchronized int callingFloor(long timeMillis, double uniform) {
+        final int bucket = bucketOf(timeMillis);
+        if (bucketCalls[bucket] == 0) {
+            return 0;
+        }
+        final long drawn = (long) (uniform * bucketCalls[bucket]);
+        long seen = 0;
+        for (int floor = 1; floor <= floorsCount; floor++) {
+            seen += calls[bucket * (floorsCount + 1) + floor];
+            if (seen > drawn) {
+                return floor;
+            }
+        }
+        return floorsCount;
+    }
+
+    /**
+     * Calls from the floor counted in the bucket of the time, after halving.
+     */
+    public synchronized int getCalls(int floorNumber, long timeMillis) {
+        return calls[bucketOf(timeMillis) * (floorsCount + 1) + floorNumber];
+    }
+
+    public int getFloorsCount() {
+        return floorsCount;
+    }
+
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+
+    /**
+     * Writes the counters into the file the model was opened from, replacing the previous ones atomically.
+     */
+    public void save() {
+        if (file == null) {
+            return;
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + calls.length * 4 + 8);
+        synchronized (this) {
+            buffer.putInt(MAGIC).putInt(floorsCount).putLong(bucketMillis).putInt(bucketsCount);
+            for (int count : calls) {
+                buffer.putInt(count);
+            }
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(crc.getValue());
+        buffer.flip();
+
+        final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(
+                    temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE
+            )) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not save the demand model into " + file, e);
+        }
+    }
+
+    /**
+     * Saves the model.
+     */
+    @Override
+    public void close() {
+        save();
+    }
+
+    private int bucketOf(long timeMillis) {
+        return (int) (Math.floorMod(timeMillis, DAY_MILLIS) / bucketMillis);
+    }
+
+    private void read(ByteBuffer buffer) {
+        final CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, Math.max(0, buffer.limit() - 8));
+        if (buffer.limit() < HEADER_SIZE + 8 || buffer.getLong(buffer.limit() - 8) != crc.getValue()
+                || buffer.getInt() != MAGIC) {
+            throw new IllegalStateException("The demand model " + file + " is corrupt");
+        }
+        final int savedFloors = buffer.getInt();
+        final long savedBucketMillis = buffer.getLong();
+        final int savedBuckets = buffer.getInt();
+        if (savedFloors != floorsCount || savedBucketMillis != bucketMillis || savedBuckets != bucketsCount) {
+            throw new IllegalStateException("The demand model is for " + savedFloors + " floors and buckets of "
+                    + savedBucketMillis + " ms, the elevator has " + floorsCount + " floors and buckets of "
+                    + bucketMillis + " ms");
+        }
+        for (int i = 0; i < calls.length; i++) {
+            calls[i] = buffer.getInt();
+            bucketCalls[i / (floorsCount + 1)] += calls[i];
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package ru.ddg.elevator.controller;
+
+import static ru.ddg.elevator.controller.ElevatorState.MOVE_DOWN;
+import static ru.ddg.elevator.controller.ElevatorState.MOVE_UP;
+
+/**
+ * Built-in dispatch strategies, selected by {@link ControllerProps#getDispatchPolicy()}.
+ */
+public enum DispatchPolicy implements DispatchStrategy {
+    /**
+     * Inside calls first, the oldest of them picks the direction, outside calls only when nobody is inside.
+     * Keeps going while there are calls ahead. Outside callers wait while a stream of inside calls is served.
+     */
+    INSIDE_FIRST {
+        @Override
+        public int selectFloor(PendingCalls calls, int currentFloor, ElevatorState lastDirection, long nowMillis) {
+            return calls.oldestInside() != 0 ? calls.oldestInside() : calls.oldestOutside();
+        }
+    },
+    /**
+     * Goes on in the last direction while there are calls ahead, then turns, whatever kind the calls are.
+     */
+    LOOK {
+        @Override
+        public int selectFloor(PendingCalls calls, int currentFloor, ElevatorState lastDirection, long nowMillis) {
+            if (calls.isCalled(currentFloor)) {
+                return currentFloor;
+            }
+            final int ahead = lastDirection == MOVE_DOWN ? calls.below(currentFloor) : calls.above(currentFloor);
+            if (ahead != 0) {
+                return ahead;
+            }
+            return lastDirection == MOVE_DOWN ? calls.above(currentFloor) : calls.below(currentFloor);
+        }
+    },
+    /**
+     * Like {@link #LOOK} but sweeps to the end floor before turning, so waits are even across floors.
+     */
+    SCAN {
+        @Override
+        public int selectFloor(PendingCalls calls, int currentFloor, ElevatorState lastDirection, long nowMillis) {
+            final int floor = LOOK.selectFloor(calls, currentFloor, lastDirection, nowMillis);
+            if (floor == currentFloor) {
+                return currentFloor;
+            }
+            return floor > currentFloor ? calls.getFloorsCount() : 1;
+        }
+
+        @Override
+        public boolean keepMoving(PendingCalls calls, int currentFloor, ElevatorState direction, long nowMillis) {
+            return !calls.isEmpty() && (direction == MOVE_UP ? currentFloor < calls.getFloorsCount() : currentFloor > 1);
+        }
+    },
+    /**
+     * Always heads for the nearest call, going up on a tie. Short trips, far floors may wait long under load.
+     */
+    NEAREST {
+        @Override
+        public int selectFloor(PendingCalls calls, int currentFloor, ElevatorState lastDirection, long nowMillis) {
+            if (calls.isCalled(currentFloor)) {
+                return currentFloor;
+            }
+            return nearestIsAbove(calls, currentFloor) ? calls.above(currentFloor) : calls.below(currentFloor);
+        }
+
+        @Override
+        public boolean keepMoving(PendingCalls calls, int currentFloor, ElevatorState direction, long nowMillis) {
+            final boolean above = calls.above(currentFloor) != 0 && nearestIsAbove(calls, currentFloor);
+            final boolean below = calls.below(currentFloor) != 0 && !nearestIsAbove(calls, currentFloor);
+            return direction == MOVE_UP ? above : below;
+        }
+    },
+    /**
+     * Chooses the direction with the least sum of squared expected waits of all calls, counting how long each
+     * has waited already, so old calls of any kind are not left behind and long waits are cut first.
+     */
+    SHORTEST_WAIT {
+        @Override
+        public int selectFloor(PendingCalls calls, int currentFloor, ElevatorState lastDirection, long nowMillis) {
+            if (calls.isCalled(currentFloor)) {
+                return currentFloor;
+            }
+            return cheaperDirection(calls, currentFloor, lastDirection, nowMillis) == MOVE_UP
+                    ? calls.above(currentFloor) : calls.below(currentFloor);
+        }
+
+        @Override
+        public boolean keepMoving(PendingCalls calls, int currentFloor, ElevatorState direction, long nowMillis) {
+            final int ahead = direction == MOVE_UP ? calls.above(currentFloor) : calls.below(currentFloor);
+            return ahead != 0 && cheaperDirection(calls, currentFloor, direction, nowMillis) == direction;
+        }
+    };
+
+    /**
+     * Goes on while there are calls ahead.
+     */
+    @Override
+    public boolean keepMoving(PendingCalls calls, int currentFloor, ElevatorState direction, long nowMillis) {
+        return (direction == MOVE_UP ? calls.above(currentFloor) : calls.below(currentFloor)) != 0;
+    }
+
+    private static boolean nearestIsAbove(PendingCalls calls, int currentFloor) {
+        final int above = calls.above(currentFloor);
+        final int below = calls.below(currentFloor);
+        return above != 0 && (below == 0 || above - currentFloor <= currentFloor - below);
+    }
+
+    private static ElevatorState cheaperDirection(
+            PendingCalls calls, int currentFloor, ElevatorState preferred, long nowMillis
+    ) {
+        if (calls.above(currentFloor) == 0) {
+            return MOVE_DOWN;
+        }
+        if (calls.below(currentFloor) == 0) {
+            return MOVE_UP;
+        }
+        final double up = sweepCost(calls, currentFloor, true, nowMillis);
+        final double down = sweepCost(calls, currentFloor, false, nowMillis);
+        if (up == down) {
+            return preferred;
+        }
+        return up < down ? MOVE_UP : MOVE_DOWN;
+    }
+
+    /**
+     * Sum of squared waits if the elevator serves the calls ahead in the direction, then turns for the rest.
+     */
+    private static double sweepCost(PendingCalls calls, int currentFloor, boolean up, long nowMillis) {
+        double cost = 0;
+        int stops = 0;
+        int turnFloor = currentFloor;
+        for (int floor = next(calls, currentFloor, up); floor != 0; floor = next(calls, floor, up)) {
+            cost += squaredWait(calls, floor, Math.abs(floor - currentFloor), stops++, nowMillis);
+            turnFloor = floor;
+        }
+        for (int floor = next(calls, currentFloor, !up); floor != 0; floor = next(calls, floor, !up)) {
+            final int floors = Math.abs(turnFloor - currentFloor) + Math.abs(turnFloor - floor);
+            cost += squaredWait(calls, floor, floors, stops++, nowMillis);
+        }
+        return cost;
+    }
+
+    private static int next(PendingCalls calls, int floor, boolean up) {
+        return up ? calls.above(floor) : calls.below(floor);
+    }
+
+    private static double squaredWait(PendingCalls calls, int floor, int floors, int stopsBefore, long nowMillis) {
+        final double wait = nowMillis - calls.pressedAt(floor)
+                + (double) floors * calls.getFloorTravelTimeMillis()
+                + (double) stopsBefore * calls.getDoorOpenCloseTimeMillis();
+        return wait * wait;
+    }
+}
@@ -0,0 +1,28 @@
+package ru.ddg.elevator.controller;
+
+/**
+ * Scheduling policy of an elevator: where to go from a standstill and whether to go on after a floor.
+ * The elevator always stops at a called floor it passes and serves all calls there.
+ *
+ * A strategy is asked on the controller thread only. A floor returned by {@link #selectFloor} must make
+ * {@link #keepMoving} true towards it; if it does not, or the floor is outside the building, the elevator
+ * heads for the floor {@link DispatchPolicy#LOOK} selects instead, one floor at a time.
+ * See {@link DispatchPolicy} for the built-in ones.
+ */
+public interface DispatchStrategy {
+
+    /**
+     * Called when the elevator stands and has calls.
+     * @param lastDirection {@link ElevatorState#MOVE_UP} or {@link ElevatorState#MOVE_DOWN}, where it went last
+     * @param nowMillis scheduler time
+     * @return floor to head for, the current one to open the door here
+     */
+    int selectFloor(PendingCalls calls, int currentFloor, ElevatorState lastDirection, long nowMillis);
+
+    /**
+     * Called when the elevator moving in the direction arrives at a floor or closes the door there.
+     * @param direction {@link ElevatorState#MOVE_UP} or {@link ElevatorState#MOVE_DOWN}
+     * @return true to go on to the next floor, false to stop and {@link #selectFloor select} again
+     */
+    boolean keepMoving(PendingCalls calls, int currentFloor, ElevatorState direction, long nowMillis);
+}
@@ -1,15 +1,10 @@
 package ru.ddg.elevator.controller;
 
 import ru.ddg.elevator.model.Elevator;
+import ru.ddg.elevator.scheduler.RealTimeScheduler;
+import ru.ddg.elevator.scheduler.Scheduler;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static ru.ddg.elevator.controller.ElevatorState.IDLE;
 import static ru.ddg.elevator.controller.ElevatorState.MOVE_DOWN;
@@ -24,50 +19,298 @@ import static ru.ddg.elevator.controller.ElevatorState.SELECT_DIRECTION;
  * - при движении вверх или вниз лифт останавливается на этаже, если номер этажа нажат внутри или снаружи
  * - лифт не изменяет направление если внутренние запросы в выбранном направлении еще обрабатываются
  * Лифт начинает обработку внешних запросов только тогда, когда все внутренние запросы обработаны.
+ * Это политика {@link DispatchPolicy#INSIDE_FIRST}, другие выбираются в {@link ControllerProps#getDispatchPolicy()}
+ * или задаются своей {@link DispatchStrategy}.
+ *
+ * Контроллер не блокируется и не спит: каждый шаг (прибытие на этаж, закрытие двери, новый запрос)
+ * является событием {@link Scheduler}, поэтому время может быть как реальным, так и виртуальным.
+ * У контроллера нет собственного потока, в каждый момент запланирован не более чем один его шаг,
+ * так что один планировщик с несколькими потоками обслуживает любое число лифтов.
+ *
+ * Если задано {@link ControllerProps#getAccelerationCentimetersPerSecondSquared() ускорение}, кабина разгоняется
+ * и тормозит, а решение об остановке на следующем этаже принимается в последний момент, когда еще можно
+ * затормозить: вызов на этаж, к которому кабина подъезжает, принимается в пути. Иначе кабина идет
+ * с постоянной скоростью от этажа к этажу. Положение кабины в любой момент дает {@link #getPosition()}.
  */
-public class ElevatorController implements ElevatorControls, Runnable {
+public class ElevatorController implements ElevatorControls {
 
     private final Elevator elevator;
-    private final BlockingQueue<ButtonPressed> requests = new LinkedBlockingQueue<>(); // unbounded blocking queue
-    private final Thread controllerThread;
+    private final Scheduler scheduler;
+    private final ButtonPresses requests; // bounded, coalescing
+    private final AtomicBoolean waiting = new AtomicBoolean();
     private final int floorsCount;
     private final int doorOpenCloseTimeMillis;
     private final int floorTravelTimeMillis;
-
-    private Map<Integer, ButtonPressed> insidePressed = new HashMap<>();
-    private Map<Integer, ButtonPressed> outsidePressed = new HashMap<>();
+    private final Kinematics kinematics;
+    private final double floorHeightMeters;
+    private final long stopOverheadMillis;
+    private final int controllerId = System.identityHashCode(this); // tells the cars apart in recordings
+
+    private final Runnable beginTask = this::begin;
+    private final Runnable wakeUpTask = this::onWakeUp;
+    private final Runnable arriveTask = this::onArrive;
+    private final Runnable doorClosedTask = this::onDoorClosed;
+    private final Runnable brakingPointTask = this::onBrakingPoint;
+    private final Runnable passTask = this::onPass;
+    private final Runnable haltTask = this::onHalt;
+    private final Runnable brakeAheadTask = this::onBrakeAhead;
+    private final Runnable brakingPassTask = this::onBrakingPass;
+
+    private final FloorCalls insidePressed;
+    private final FloorCalls outsidePressed;
+    private final PendingCalls pendingCalls = new Calls();
+    private final EtaTable eta;
+    private DispatchStrategy strategy;
+    private ElevatorState lastDirection = MOVE_UP;
+    private final ControllerMetrics metrics;
+    private ControllerJournal journal;
+    private ElevatorStatePublisher statePublisher;
+    private DemandModel demandModel;
+    private int parkingFloor; // 0 - not parking
+    private ElevatorState resumedState = IDLE;
     private ElevatorState state = IDLE;
+    private long stateSince;
     private int currentFloor;
+    private volatile ElevatorSnapshot snapshot; // see publishSnapshot
+    private Kinematics.Leg leg;
+    private boolean doorOpen;
+    private long doorClosesAt;
+    private ControllerEvents.DoorCycle doorCycle; // null if not recorded
+    private double carMeters; // continuous motion: where the car is at the current step
+    private double carSpeed;
+    private double legMeters; // how far the scheduled step moves the car
+    private int haltFloor; // continuous motion: the car brakes to halt there, 0 if it does not
+    private boolean forcedDeparture; // the strategy broke its contract, the car leaves for a LOOK floor anyway
+    private volatile boolean stopped;
 
     private ElevatorListener elevatorListener = ElevatorListener.NOOP;
 
+    /**
+     * Controller working in real time on the {@link RealTimeScheduler#shared() shared} scheduler.
+     */
     public ElevatorController(Elevator elevator, ControllerProps props) {
-        System.out.println(props);
+        this(elevator, props, RealTimeScheduler.shared());
+    }
+
+    /**
+     * Controller driven by the given scheduler, e.g. {@link ru.ddg.elevator.scheduler.VirtualTimeScheduler}
+     * for simulations. The scheduler may be shared with other controllers.
+     */
+    public ElevatorController(Elevator elevator, ControllerProps props, Scheduler scheduler) {
         this.currentFloor = props.getCurrentFloor();
         this.elevator = elevator;
+        this.scheduler = scheduler;
         this.floorsCount = props.getFloorsCount();
+        if (floorsCount < 1 || floorsCount > ButtonPresses.MAX_FLOORS) {
+            throw new IllegalArgumentException(
+                    "The floors count should be from 1 to " + ButtonPresses.MAX_FLOORS + ", Input " + floorsCount
+            );
+        }
+        this.requests = new ButtonPresses(props.getRequestQueueSize(), floorsCount);
         this.doorOpenCloseTimeMillis = props.getDoorOpenCloseTimeMillis();
         this.floorTravelTimeMillis = props.getFloorTravelTimeMillis();
-
-        controllerThread = new Thread(this, "Elevator-controller-thread");
-        controllerThread.setDaemon(false);
+        this.kinematics = Kinematics.of(props);
+        this.floorHeightMeters = props.getFloorHeightCentimeters() / 100.0;
+        final long shaftCentimeters = (long) (floorsCount - 1) * props.getFloorHeightCentimeters();
+        if (floorsCount > 1 && props.getBrakingDistanceCentimeters() > shaftCentimeters) {
+            throw new IllegalArgumentException("The braking distance should fit into the shaft of " + shaftCentimeters
+                    + " cm, Input " + props.getBrakingDistanceCentimeters() + " cm");
+        }
+        this.stopOverheadMillis = doorOpenCloseTimeMillis
+                + Math.round(kinematics.brakingSeconds(kinematics.getCruiseSpeed()) * 1000);
+        this.insidePressed = new FloorCalls(floorsCount);
+        this.outsidePressed = new FloorCalls(floorsCount);
+        this.metrics = new ControllerMetrics(floorsCount);
+        this.strategy = props.getDispatchPolicy();
+        this.leg = Kinematics.Leg.standing(scheduler.currentTimeMillis(), metersOf(currentFloor));
+        this.eta = new EtaTable(pendingCalls, stopOverheadMillis);
+        planEta();
+        publishSnapshot();
     }
 
     public void setElevatorListener(ElevatorListener elevatorListener) {
         this.elevatorListener = (elevatorListener == null ? ElevatorListener.NOOP : elevatorListener);
     }
 
+    /**
+     * Replaces the {@link ControllerProps#getDispatchPolicy() configured} policy, must be called before {@link #start()}.
+     */
+    public void setDispatchStrategy(DispatchStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+
+    /**
+     * Streams every published {@link #getSnapshot() snapshot} to the publisher's subscribers.
+     * Must be called before {@link #start()}.
+     */
+    public void setStatePublisher(ElevatorStatePublisher statePublisher) {
+        this.statePublisher = statePublisher;
+        statePublisher.offer(snapshot);
+    }
+
+    /**
+     * Records hall calls into the model and parks the car where the model expects the next one when calls run out.
+     * Must be called before {@link #start()}.
+     */
+    public void setDemandModel(DemandModel demandModel) {
+        this.demandModel = demandModel;
+    }
+
+    /**
+     * Restores the floor, the direction and the pending calls recorded in the journal
+     * and records all further changes there. Must be called before {@link #start()}.
+     */
+    public void setJournal(ControllerJournal journal) {
+        this.journal = journal;
+        if (journal.getFloor() != 0) {
+            currentFloor = journal.getFloor();
+        } else {
+            journal.arrived(currentFloor); // a new journal, its snapshots need the floor before the car moves
+        }
+        journal.restore(insidePressed, outsidePressed);
+        restoreButtons(insidePressed, true);
+        restoreButtons(outsidePressed, false);
+        if (insidePressed.isEmpty() && outsidePressed.isEmpty()) {
+            resumedState = IDLE;
+        } else if (journal.getState() == MOVE_UP || journal.getState() == MOVE_DOWN) {
+            resumedState = journal.getState();
+        } else {
+            resumedState = SELECT_DIRECTION;
+        }
+        planEta();
+        publishSnapshot();
+    }
+
+    private void restoreButtons(FloorCalls floorsPressed, boolean inside) {
+        for (int floorNumber = floorsPressed.oldest(); floorNumber != 0; floorNumber = floorsPressed.newer(floorNumber)) {
+            requests.restore(floorNumber, inside);
+        }
+    }
 
     @Override
     public void insideButtonPressed(int floorNumber) throws IllegalArgumentException {
         assertValid(floorNumber);
-        requests.add(ButtonPressed.inside(floorNumber));
+        press(floorNumber, true);
     }
 
     @Override
     public void outsideButtonPressed(int floorNumber) throws IllegalArgumentException {
         assertValid(floorNumber);
-        requests.add(ButtonPressed.outside(floorNumber));
+        press(floorNumber, false);
+    }
+
+    @Override
+    public int pressButtons(int[] floorNumbers, boolean inside) throws IllegalArgumentException {
+        for (int floorNumber : floorNumbers) {
+            assertValid(floorNumber);
+        }
+        int accepted = 0;
+        for (int floorNumber : floorNumbers) {
+            if (press(floorNumber, inside) == ButtonPresses.ACCEPTED) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Presses a hall button for a {@link GroupDispatcher}, which has to know whether the car got the call.
+     * @return false if the request queue is full and the press is lost, true if the call is or will be taken,
+     * also when the button is already lit
+     * @throws IllegalArgumentException invalid floor number
+     */
+    boolean callOutside(int floorNumber) throws IllegalArgumentException {
+        assertValid(floorNumber);
+        return press(floorNumber, false) != ButtonPresses.REJECTED;
+    }
+
+    /**
+     * Takes back an outside call which is not served yet, e.g. to give it to another elevator of a group.
+     * @return false if the request queue is full, the call stays then
+     * @throws IllegalArgumentException invalid floor number
+     */
+    public boolean withdrawOutsideCall(int floorNumber) throws IllegalArgumentException {
+        assertValid(floorNumber);
+        if (!requests.withdraw(floorNumber, false)) {
+            return false;
+        }
+        wakeUp();
+        return true;
+    }
+
+    /**
+     * Time until the elevator opens its door at the floor if it is called there now,
+     * counting the floors to travel and the stops it makes for the calls it already has,
+     * every stop costs the door time and the time lost to braking and speeding up again.
+     * Called from any thread, reads the {@link EtaTable} the controller keeps up to date at its steps.
+     */
+    public long estimateMillisTo(int floorNumber) {
+        final long now = scheduler.currentTimeMillis();
+        return Math.max(0, Math.min(
+                eta.arrivalMillis(floorNumber, true, now), eta.arrivalMillis(floorNumber, false, now)
+        ) - now);
+    }
+
+    /**
+     * Time until the elevator is at the floor moving in the direction, e.g. for the arrow of a hall display.
+     * A floor where the car turns is reached in both directions at once.
+     * @param direction {@link ElevatorState#MOVE_UP} or {@link ElevatorState#MOVE_DOWN}
+     */
+    public long estimateMillisTo(int floorNumber, ElevatorState direction) {
+        if (direction != MOVE_UP && direction != MOVE_DOWN) {
+            throw new IllegalArgumentException("The direction should be MOVE_UP or MOVE_DOWN, Input " + direction);
+        }
+        final long now = scheduler.currentTimeMillis();
+        return Math.max(0, eta.arrivalMillis(floorNumber, direction == MOVE_UP, now) - now);
+    }
+
+    /**
+     * Where the car is now, e.g. 3.5 is halfway between the third and the fourth floor.
+     * Called from any thread, follows the motion the controller has planned at its last step.
+     */
+    public double getPosition() {
+        return snapshot.getPositionAt(currentTimeMillis());
+    }
+
+    /**
+     * Time of the scheduler driving the controller, virtual in simulations, for {@link ElevatorSnapshot#getPositionAt(long)}.
+     */
+    public long currentTimeMillis() {
+        return scheduler.currentTimeMillis();
+    }
+
+    /**
+     * State of the elevator after the last controller step. Called from any thread as often as needed,
+     * it is one volatile read.
+     */
+    public ElevatorSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public ControllerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Number of presses waiting for the controller to take them.
+     */
+    public int getPendingRequests() {
+        return requests.size();
+    }
+
+    /**
+     * Number of presses of buttons which were already lit.
+     */
+    public long getCoalescedPresses() {
+        return requests.getCoalescedCount();
+    }
+
+    /**
+     * Number of presses lost because the request queue was full.
+     */
+    public long getRejectedPresses() {
+        return requests.getRejectedCount();
     }
 
     @Override
@@ -85,177 +328,621 @@ public class ElevatorController implements ElevatorControls, Runnable {
 
 
     public void start() {
-        controllerThread.start();
+        scheduler.schedule(0, beginTask);
     }
 
     public void stop() {
-        controllerThread.interrupt();
+        stopped = true;
     }
 
 
-    @Override
-    public void run() {
-        try {
-            elevatorListener.atFloor(currentFloor);
-            while (!Thread.currentThread().isInterrupted()) {
-
-                if (state == IDLE) {
-                    state = waitForRequests();
-                } else if (state == SELECT_DIRECTION) {
-                    state = selectDirection();
-                } else if (state == MOVE_DOWN) {
-                    state = moveDown();
-                } else if (state == MOVE_UP) {
-                    state = moveUp();
-                }
+    private void begin() {
+        if (stopped) {
+            return;
+        }
+        stateSince = scheduler.currentTimeMillis();
+        publishSnapshot();
+        carMeters = metersOf(currentFloor);
+        setLeg(Kinematics.Leg.standing(stateSince, carMeters));
+        notifyAtFloor();
+        enter(resumedState);
+    }
+
+    private void enter(ElevatorState next) {
+        if (next == IDLE) {
+            next = park();
+        }
+        if (next != state) {
+            final long now = scheduler.currentTimeMillis();
+            metrics.stateLeft(state, now - stateSince);
+            new ControllerEvents.StateTransition().commit(controllerId, currentFloor, state, next, now - stateSince);
+            stateSince = now;
+            if (next == IDLE) {
+                metrics.tripEnded();
+            }
+            if (journal != null) {
+                journal.stateEntered(next);
             }
-        } catch (InterruptedException e) {
-            System.out.println("You have successfully exited the simulator...");
+        }
+        state = next;
+        planEta();
+        publishSnapshot();
+        if (next == IDLE) {
+            waitForRequests();
+        } else if (next == SELECT_DIRECTION) {
+            selectDirection();
+        } else if (next == MOVE_DOWN) {
+            lastDirection = MOVE_DOWN;
+            elevator.down();
+            moveDown();
+        } else if (next == MOVE_UP) {
+            lastDirection = MOVE_UP;
+            elevator.up();
+            moveUp();
+        }
+    }
+
+    /**
+     * @return {@link ButtonPresses#press} result
+     */
+    private int press(int floorNumber, boolean inside) {
+        final int result = requests.press(floorNumber, inside, scheduler.currentTimeMillis());
+        new ControllerEvents.ButtonPress().commit(controllerId, floorNumber, inside, result);
+        if (result == ButtonPresses.ACCEPTED) {
+            wakeUp();
+        }
+        return result;
+    }
+
+    private void waitForRequests() {
+        waiting.set(true);
+        if (!requests.isEmpty()) {
+            wakeUp();
+        }
+    }
+
+    /**
+     * Schedules request processing if the controller is idle. Called from any thread.
+     */
+    private void wakeUp() {
+        if (waiting.compareAndSet(true, false)) {
+            scheduler.schedule(0, wakeUpTask);
         }
     }
 
-    private ElevatorState waitForRequests() throws InterruptedException {
-        collect(requests.take());
+    private void onWakeUp() {
+        if (stopped) {
+            return;
+        }
         collectRequests();
-        return SELECT_DIRECTION;
+        enter(SELECT_DIRECTION);
+    }
+
+    private void collect(long press) {
+        final boolean inside = ButtonPresses.inside(press);
+        final int floorNumber = ButtonPresses.floorNumber(press);
+        final FloorCalls calls = inside ? insidePressed : outsidePressed;
+        if (ButtonPresses.withdrawn(press)) {
+            // pressed again after the button went out, the press may be ahead of the withdrawal in the queue
+            if (requests.isLit(floorNumber, inside) || !calls.remove(floorNumber)) {
+                return;
+            }
+            if (journal != null) {
+                journal.callServed(floorNumber, inside);
+            }
+            if (!pendingCalls.isCalled(floorNumber)) {
+                planEta();
+            }
+            return;
+        }
+        final long time = ButtonPresses.time(press);
+        final boolean newStop = !pendingCalls.isCalled(floorNumber);
+        if (!calls.add(floorNumber, time)) {
+            return;
+        }
+        if (newStop && !eta.called(floorNumber)) {
+            planEta();
+        }
+        if (journal != null) {
+            journal.callAdded(floorNumber, inside, time);
+        }
+        if (demandModel != null && !inside) {
+            demandModel.record(floorNumber, time);
+        }
     }
 
-    private void collect(ButtonPressed buttonPressed) {
-        (buttonPressed.inside ? insidePressed : outsidePressed)
-                .putIfAbsent(buttonPressed.floorNumber, buttonPressed);
+    /**
+     * Moves pressed buttons from the request queue into the call sets. Package-private for benchmarks.
+     * @return number of collected requests
+     */
+    int collectRequests() {
+        final ControllerEvents.RequestsCollected event = new ControllerEvents.RequestsCollected();
+        event.begin();
+        int collected = 0;
+        long press;
+        while ((press = requests.poll()) != 0) {
+            collect(press);
+            collected++;
+        }
+        metrics.requestsCollected(collected);
+        if (collected > 0) {
+            publishSnapshot();
+            event.commit(controllerId, collected, insidePressed.size() + outsidePressed.size());
+        }
+        return collected;
     }
 
-    private void collectRequests() {
-        List<ButtonPressed> drainedTo = new ArrayList<>();
-        requests.drainTo(drainedTo);
-        drainedTo.forEach(this::collect);
+    /**
+     * Decides where to go from the current floor.
+     */
+    private void selectDirection() {
+        if (insidePressed.isEmpty() && outsidePressed.isEmpty()) {
+            enter(IDLE);
+            return;
+        }
+        final long now = scheduler.currentTimeMillis();
+        int floorToGo = strategy.selectFloor(pendingCalls, currentFloor, lastDirection, now);
+        if (floorToGo != currentFloor && !headsFor(floorToGo, now)) {
+            // the car would turn back and ask again at once, deeper and deeper into the stack
+            floorToGo = DispatchPolicy.LOOK.selectFloor(pendingCalls, currentFloor, lastDirection, now);
+            forcedDeparture = true;
+        }
+        if (floorToGo == currentFloor) {
+            forcedDeparture = false;
+            serve(insidePressed, true);
+            serve(outsidePressed, false);
+            openLift();
+        } else {
+            enter((floorToGo < currentFloor) ? MOVE_DOWN : MOVE_UP);
+        }
+    }
+
+    /**
+     * Whether the strategy keeps the promise of its floor: it is in the building and the car goes on towards it.
+     */
+    private boolean headsFor(int floorToGo, long now) {
+        if (floorToGo < 1 || floorToGo > floorsCount) {
+            return false;
+        }
+        return strategy.keepMoving(pendingCalls, currentFloor, floorToGo < currentFloor ? MOVE_DOWN : MOVE_UP, now);
     }
 
-    private ElevatorState selectDirection() {
-        if (!insidePressed.isEmpty()) {
-            return selectDirection(insidePressed);
-        } else if (!outsidePressed.isEmpty()) {
-            return selectDirection(outsidePressed);
+    private void moveDown() {
+        final boolean forced = forcedDeparture;
+        forcedDeparture = false;
+        final boolean parking = currentFloor > 1 && parksAhead(currentFloor, MOVE_DOWN);
+        final boolean keepMoving = parking || currentFloor > 1 && (forced
+                || strategy.keepMoving(pendingCalls, currentFloor, MOVE_DOWN, scheduler.currentTimeMillis()));
+        new ControllerEvents.StopDecision().commit(controllerId, currentFloor, MOVE_DOWN, keepMoving, parking);
+        if (keepMoving) {
+            depart(-1);
         } else {
+            enter(insidePressed.isEmpty() && outsidePressed.isEmpty() ? IDLE : SELECT_DIRECTION);
+        }
+    }
+
+    private void moveUp() {
+        final boolean forced = forcedDeparture;
+        forcedDeparture = false;
+        final boolean parking = currentFloor < floorsCount && parksAhead(currentFloor, MOVE_UP);
+        final boolean keepMoving = parking || currentFloor < floorsCount && (forced
+                || strategy.keepMoving(pendingCalls, currentFloor, MOVE_UP, scheduler.currentTimeMillis()));
+        new ControllerEvents.StopDecision().commit(controllerId, currentFloor, MOVE_UP, keepMoving, parking);
+        if (keepMoving) {
+            depart(1);
+        } else {
+            enter(insidePressed.isEmpty() && outsidePressed.isEmpty() ? IDLE : SELECT_DIRECTION);
+        }
+    }
+
+    /**
+     * Heads for the parking floor, if there is a demand model and nothing to do.
+     * @return direction to the parking floor, IDLE to wait where the car is
+     */
+    private ElevatorState park() {
+        parkingFloor = 0;
+        if (demandModel == null || !insidePressed.isEmpty() || !outsidePressed.isEmpty() || !requests.isEmpty()) {
+            return IDLE;
+        }
+        final int floor = demandModel.parkingFloor(scheduler.currentTimeMillis());
+        if (floor == 0 || floor == currentFloor) {
             return IDLE;
         }
+        parkingFloor = floor;
+        return floor < currentFloor ? MOVE_DOWN : MOVE_UP;
     }
 
-    private ElevatorState selectDirection(Map<Integer, ButtonPressed> floorsPressed) {
-        ButtonPressed floorToGo = floorsPressed.values()
-                .stream()
-                .min(Comparator.comparing(ButtonPressed::getTime))
-                .get();
+    /**
+     * Parking goes on only while there are no calls, a call hands the car back to the strategy.
+     */
+    private boolean parksAhead(int floorNumber, ElevatorState direction) {
+        return parkingFloor != 0 && insidePressed.isEmpty() && outsidePressed.isEmpty()
+                && (direction == MOVE_UP ? parkingFloor > floorNumber : parkingFloor < floorNumber);
+    }
 
-        if (floorToGo.floorNumber == currentFloor) {
-            floorsPressed.remove(floorToGo.floorNumber);
-            openLift();
-            return SELECT_DIRECTION;
+    /**
+     * Starts from the current floor, standing.
+     */
+    private void depart(int direction) {
+        eta.left();
+        if (kinematics.isUniform()) {
+            setLeg(new Kinematics.Leg(
+                    scheduler.currentTimeMillis(), carMeters, kinematics.getCruiseSpeed(), false,
+                    direction, floorHeightMeters
+            ));
+            scheduler.schedule(floorTravelTimeMillis, arriveTask);
         } else {
-            return (floorToGo.floorNumber < currentFloor) ? MOVE_DOWN : MOVE_UP;
-        }
-    }
-
-    private ElevatorState moveDown() {
-        elevator.down();
-        while (currentFloor > minFloor()) {
-            waitFor(floorTravelTimeMillis);
-            currentFloor--;
-            elevatorListener.atFloor(currentFloor);
-            if (insidePressed.containsKey(currentFloor) || outsidePressed.containsKey(currentFloor)) {
-                elevator.stop();
-                insidePressed.remove(currentFloor);
-                outsidePressed.remove(currentFloor);
-                openLift();
-                elevator.down();
+            carSpeed = 0;
+            approachNextFloor();
+        }
+    }
+
+    /**
+     * Continuous motion: goes on to the point where the car has to start braking to halt at the next floor,
+     * or past the floor if it is already too late to halt there.
+     */
+    private void approachNextFloor() {
+        final double toNextFloor = Math.abs(metersOf(currentFloor + direction()) - carMeters);
+        final double brakingPoint = kinematics.brakingPoint(carSpeed, toNextFloor);
+        if (brakingPoint < 0) {
+            passNextFloor(toNextFloor);
+        } else {
+            go(brakingPoint, brakingPointTask);
+        }
+    }
+
+    /**
+     * Goes on past the next floor, unless the car has to start braking before it to halt at the first floor
+     * further on where it must stop: a call it can still halt at, the parking floor or the end of the shaft.
+     * The braking takes several floors then.
+     */
+    private void passNextFloor(double toNextFloor) {
+        int floor = currentFloor + direction();
+        double brakingPoint = 0;
+        while (floor != 1 && floor != floorsCount) {
+            floor += direction();
+            brakingPoint = kinematics.brakingPoint(carSpeed, Math.abs(metersOf(floor) - carMeters));
+            if (floor == 1 || floor == floorsCount || brakingPoint >= 0 && pendingCalls.isCalled(floor)
+                    || floor == parkingFloor && pendingCalls.isEmpty()) {
+                break;
             }
-            collectRequests();
         }
-        return insidePressed.isEmpty() && outsidePressed.isEmpty() ? IDLE : SELECT_DIRECTION;
+        if (brakingPoint >= toNextFloor) {
+            go(toNextFloor, passTask);
+        } else {
+            haltFloor = floor;
+            go(Math.max(0, brakingPoint), brakeAheadTask);
+        }
     }
 
-    private int minFloor() {
-        return Math.min(
-                minFloor(insidePressed.keySet()),
-                minFloor(outsidePressed.keySet())
-        );
+    private void go(double meters, Runnable arrival) {
+        legMeters = meters;
+        setLeg(new Kinematics.Leg(scheduler.currentTimeMillis(), carMeters, carSpeed, false, direction(), meters));
+        scheduler.schedule(Math.round(kinematics.secondsToCover(carSpeed, meters) * 1000), arrival);
+    }
+
+    private void advance() {
+        carMeters += direction() * legMeters;
+        carSpeed = kinematics.speedAfter(carSpeed, legMeters);
+    }
+
+    /**
+     * Last moment to decide about the next floor: new calls are taken and the car brakes if it has to stop there.
+     */
+    private void onBrakingPoint() {
+        if (stopped) {
+            return;
+        }
+        advance();
+        collectRequests();
+        final int nextFloor = currentFloor + direction();
+        final boolean mayPass = !pendingCalls.isCalled(nextFloor) && nextFloor != 1 && nextFloor != floorsCount;
+        final boolean parking = mayPass && parksAhead(nextFloor, state);
+        final boolean keepMoving = parking
+                || mayPass && strategy.keepMoving(pendingCalls, nextFloor, state, scheduler.currentTimeMillis());
+        new ControllerEvents.StopDecision().commit(controllerId, nextFloor, state, keepMoving, parking);
+        if (!keepMoving) {
+            legMeters = kinematics.brakingDistance(carSpeed);
+            setLeg(new Kinematics.Leg(
+                    scheduler.currentTimeMillis(), carMeters, carSpeed, true, direction(), legMeters
+            ));
+            scheduler.schedule(Math.round(kinematics.brakingSeconds(carSpeed) * 1000), haltTask);
+        } else {
+            passNextFloor(Math.abs(metersOf(nextFloor) - carMeters));
+        }
+    }
+
+    private void onBrakeAhead() {
+        if (stopped) {
+            return;
+        }
+        advance();
+        brake();
     }
 
-    private int minFloor(Set<Integer> set) {
-        return set.stream()
-                .min(Integer::compareTo)
-                .orElse(floorsCount);
-    }
-
-    private ElevatorState moveUp() {
-        elevator.up();
-        while (currentFloor < maxFloor()) {
-            waitFor(floorTravelTimeMillis);
-            currentFloor++;
-            elevatorListener.atFloor(currentFloor);
-            if (insidePressed.containsKey(currentFloor) || outsidePressed.containsKey(currentFloor)) {
-                elevator.stop();
-                insidePressed.remove(currentFloor);
-                outsidePressed.remove(currentFloor);
-                openLift();
-                elevator.up();
+    private void onBrakingPass() {
+        if (stopped) {
+            return;
+        }
+        carMeters += direction() * legMeters;
+        carSpeed = kinematics.speedAfterBraking(carSpeed, legMeters);
+        reachFloor(false);
+        collectRequests();
+        brake();
+    }
+
+    /**
+     * Brakes on to the halt floor, floor by floor so that every floor on the way is reached.
+     */
+    private void brake() {
+        final int nextFloor = currentFloor + direction();
+        if (nextFloor == haltFloor) {
+            haltFloor = 0;
+            legMeters = kinematics.brakingDistance(carSpeed);
+            setLeg(new Kinematics.Leg(scheduler.currentTimeMillis(), carMeters, carSpeed, true, direction(), legMeters));
+            scheduler.schedule(Math.round(kinematics.brakingSeconds(carSpeed) * 1000), haltTask);
+        } else {
+            legMeters = Math.abs(metersOf(nextFloor) - carMeters);
+            setLeg(new Kinematics.Leg(scheduler.currentTimeMillis(), carMeters, carSpeed, true, direction(), legMeters));
+            scheduler.schedule(
+                    Math.round(kinematics.brakingSecondsToCover(carSpeed, legMeters) * 1000), brakingPassTask
+            );
+        }
+    }
+
+    private void onPass() {
+        if (stopped) {
+            return;
+        }
+        advance();
+        reachFloor(false);
+        collectRequests();
+        approachNextFloor();
+    }
+
+    private void onHalt() {
+        if (stopped) {
+            return;
+        }
+        carSpeed = 0;
+        arrive();
+    }
+
+    private void onArrive() {
+        if (stopped) {
+            return;
+        }
+        arrive();
+    }
+
+    /**
+     * @param halting the car stands at the floor now and stops there if it is called
+     */
+    private void reachFloor(boolean halting) {
+        currentFloor += direction();
+        carMeters = metersOf(currentFloor);
+        if (journal != null) {
+            journal.arrived(currentFloor);
+        }
+        if (!eta.reached(currentFloor, scheduler.currentTimeMillis())) {
+            planEta(halting);
+        }
+        publishSnapshot();
+        notifyAtFloor();
+    }
+
+    /**
+     * The car stands at the next floor: stops there for the calls or goes on.
+     */
+    private void arrive() {
+        setLeg(Kinematics.Leg.standing(scheduler.currentTimeMillis(), metersOf(currentFloor + direction())));
+        reachFloor(true);
+        if (insidePressed.contains(currentFloor) || outsidePressed.contains(currentFloor)) {
+            elevator.stop();
+            serve(insidePressed, true);
+            serve(outsidePressed, false);
+            openLift();
+        } else {
+            keepMoving();
+        }
+    }
+
+    private int direction() {
+        return state == MOVE_UP ? 1 : -1;
+    }
+
+    private double metersOf(int floorNumber) {
+        return (floorNumber - 1) * floorHeightMeters;
+    }
+
+    private void serve(FloorCalls floorsPressed, boolean inside) {
+        if (floorsPressed.contains(currentFloor)) {
+            metrics.callServed(
+                    currentFloor, inside, state,
+                    Math.max(0, scheduler.currentTimeMillis() - floorsPressed.pressedAt(currentFloor))
+            );
+            floorsPressed.remove(currentFloor);
+            requests.served(currentFloor, inside);
+            if (journal != null) {
+                journal.callServed(currentFloor, inside);
             }
-            collectRequests();
+            publishSnapshot();
         }
-        return insidePressed.isEmpty() && outsidePressed.isEmpty() ? IDLE : SELECT_DIRECTION;
     }
 
-    private int maxFloor() {
-        return Math.max(
-                maxFloor(insidePressed.keySet()),
-                maxFloor(outsidePressed.keySet())
+    /**
+     * Plans the sweep of the {@link EtaTable} from where the car is, in the direction it moves or moved last.
+     * A moving car leaves a call at its floor for the way back unless there is nothing ahead.
+     */
+    private void planEta() {
+        final boolean moving = state == MOVE_UP || state == MOVE_DOWN;
+        final int ahead = state == MOVE_UP ? pendingCalls.above(currentFloor) : pendingCalls.below(currentFloor);
+        planEta(!moving || ahead == 0);
+    }
+
+    private void planEta(boolean stopsHere) {
+        final long now = scheduler.currentTimeMillis();
+        final ElevatorState direction = state == MOVE_UP || state == MOVE_DOWN ? state : lastDirection;
+        eta.plan(
+                currentFloor, direction == MOVE_UP, now, doorOpen ? doorClosesAt : now, stopsHere,
+                state == IDLE && insidePressed.isEmpty() && outsidePressed.isEmpty()
         );
     }
 
-    private static int maxFloor(Set<Integer> set) {
-        return set.stream()
-                .max(Integer::compareTo)
-                .orElse(1);
+    private void setLeg(Kinematics.Leg next) {
+        leg = next;
+        publishSnapshot();
+    }
+
+    /**
+     * Replaces the published snapshot, readers see either the old one or the new one whole.
+     */
+    private void publishSnapshot() {
+        snapshot = new ElevatorSnapshot(
+                scheduler.currentTimeMillis(), currentFloor, state, doorOpen,
+                insidePressed.copyBits(), outsidePressed.copyBits(), kinematics, leg, floorHeightMeters
+        );
+        if (statePublisher != null) {
+            statePublisher.offer(snapshot);
+        }
+    }
+
+    private void keepMoving() {
+        collectRequests();
+        if (state == MOVE_UP) {
+            moveUp();
+        } else {
+            moveDown();
+        }
     }
 
     private void openLift() {
-        elevatorListener.doorOpening();
+        doorOpen = true;
+        doorClosesAt = scheduler.currentTimeMillis() + doorOpenCloseTimeMillis;
+        final ControllerEvents.DoorCycle cycle = new ControllerEvents.DoorCycle();
+        if (cycle.isEnabled()) {
+            cycle.begin();
+            doorCycle = cycle;
+        }
+        publishSnapshot();
+        metrics.doorOpened();
+        notifyDoorOpening();
         elevator.openCloseDoor();
-        waitFor(doorOpenCloseTimeMillis);
-        elevatorListener.doorClosed();
+        scheduler.schedule(doorOpenCloseTimeMillis, doorClosedTask);
     }
 
-    private static void waitFor(long millis) {
-        try {
-            Thread.sleep(millis);
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
+    private void onDoorClosed() {
+        if (stopped) {
+            return;
+        }
+        doorOpen = false;
+        if (doorCycle != null) {
+            doorCycle.commit(controllerId, currentFloor);
+            doorCycle = null;
         }
+        publishSnapshot();
+        notifyDoorClosed();
+        if (state == MOVE_UP) {
+            elevator.up();
+            keepMoving();
+        } else if (state == MOVE_DOWN) {
+            elevator.down();
+            keepMoving();
+        } else {
+            enter(SELECT_DIRECTION);
+        }
+    }
+
+    private void notifyAtFloor() {
+        final ControllerEvents.ListenerCallback event = new ControllerEvents.ListenerCallback();
+        event.begin();
+        elevatorListener.atFloor(currentFloor);
+        event.commit(controllerId, "atFloor", currentFloor);
+    }
+
+    private void notifyDoorOpening() {
+        final ControllerEvents.ListenerCallback event = new ControllerEvents.ListenerCallback();
+        event.begin();
+        elevatorListener.doorOpening();
+        event.commit(controllerId, "doorOpening", currentFloor);
     }
 
+    private void notifyDoorClosed() {
+        final ControllerEvents.ListenerCallback event = new ControllerEvents.ListenerCallback();
+        event.begin();
+        elevatorListener.doorClosed();
+        event.commit(controllerId, "doorClosed", currentFloor);
+    }
+
+    /**
+     * Calls as the dispatch strategy sees them.
+     */
+    private final class Calls implements PendingCalls {
+
+        @Override
+        public int getFloorsCount() {
+            return floorsCount;
+        }
+
+        @Override
+        public int getFloorTravelTimeMillis() {
+            return floorTravelTimeMillis;
+        }
+
+        @Override
+        public int getDoorOpenCloseTimeMillis() {
+            return doorOpenCloseTimeMillis;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return insidePressed.isEmpty() && outsidePressed.isEmpty();
+        }
+
+        @Override
+        public boolean isCalled(int floorNumber) {
+            return insidePressed.contains(floorNumber) || outsidePressed.contains(floorNumber);
+        }
 
-    static class ButtonPressed {
-        private final int floorNumber;
-        private final long time;
-        private final boolean inside;
+        @Override
+        public int oldestInside() {
+            return insidePressed.oldest();
+        }
 
-        static ButtonPressed inside(int floorNumber) {
-            return new ButtonPressed(floorNumber, System.currentTimeMillis(), true);
+        @Override
+        public int oldestOutside() {
+            return outsidePressed.oldest();
         }
 
-        static ButtonPressed outside(int floorNumber) {
-            return new ButtonPressed(floorNumber, System.currentTimeMillis(), false);
+        @Override
+        public int above(int floorNumber) {
+            final int inside = insidePressed.above(floorNumber);
+            final int outside = outsidePressed.above(floorNumber);
+            return inside == 0 || outside == 0 ? Math.max(inside, outside) : Math.min(inside, outside);
         }
 
-        private ButtonPressed(int floorNumber, long time, boolean inside) {
-            this.floorNumber = floorNumber;
-            this.time = time;
-            this.inside = inside;
+        @Override
+        public int below(int floorNumber) {
+            return Math.max(insidePressed.below(floorNumber), outsidePressed.below(floorNumber));
         }
 
-        long getTime() {
-            return time;
+        @Override
+        public long pressedAt(int floorNumber) {
+            if (!insidePressed.contains(floorNumber)) {
+                return outsidePressed.pressedAt(floorNumber);
+            }
+            if (!outsidePressed.contains(floorNumber)) {
+                return insidePressed.pressedAt(floorNumber);
+            }
+            return Math.min(insidePressed.pressedAt(floorNumber), outsidePressed.pressedAt(floorNumber));
         }
 
+        @Override
+        public CarState fork(int currentFloor, ElevatorState lastDirection, long nowMillis) {
+            return new CarState(
+                    floorsCount, floorTravelTimeMillis, doorOpenCloseTimeMillis,
+                    new FloorCalls(insidePressed), new FloorCalls(outsidePressed), currentFloor, lastDirection, nowMillis
+            );
+        }
     }
 }
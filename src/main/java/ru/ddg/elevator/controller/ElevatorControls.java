@@ -19,6 +19,16 @@ public interface ElevatorControls {
      */
     void outsideButtonPressed(int floorNumber) throws IllegalArgumentException;
 
+    /**
+     * Handles several buttons pressed at once on one panel, e.g. a call panel replaying its presses in bulk.
+     * Pressing a button which is already lit does nothing.
+     * @param floorNumbers which buttons are pressed
+     * @param inside whether the panel is inside the elevator
+     * @return how many presses are accepted, the others are coalesced with lit buttons or rejected on overflow
+     * @throws IllegalArgumentException invalid floor number, none of the buttons is pressed then
+     */
+    int pressButtons(int[] floorNumbers, boolean inside) throws IllegalArgumentException;
+
     /**
      * Number of floors elevator can travel to.
      * @return total number of floors
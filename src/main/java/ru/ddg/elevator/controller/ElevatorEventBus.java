@@ -0,0 +1,178 @@
+package ru.ddg.elevator.controller;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Delivers elevator events to any number of listeners on its own thread,
+ * so a slow listener never delays the elevator.
+ *
+ * The controller writes events into a pre-allocated ring buffer of ints (event type and floor),
+ * the consumer thread takes everything published so far as one batch and passes it to every listener in order.
+ * The ring has a single producer: one bus per controller. A listener failure goes to the uncaught exception
+ * handler of the consumer thread, i.e. the default one, and the next listeners and events are still delivered.
+ */
+public class ElevatorEventBus implements ElevatorListener, AutoCloseable {
+
+    /**
+     * What the controller does when the ring buffer is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Wait for listeners to catch up, no events are lost. The controller parks its scheduler thread meanwhile,
+         * which stops every car sharing that thread, so this is only for a dedicated thread or a test.
+         */
+        BLOCK,
+        /**
+         * Drop the new event and count it. The default: the listeners never hold the car up.
+         */
+        DROP,
+    }
+
+    private static final int AT_FLOOR = 0;
+    private static final int DOOR_OPENING = 1;
+    private static final int DOOR_CLOSED = 2;
+    private static final int TYPE_BITS = 2;
+    private static final long FULL_PARK_NANOS = 10_000;
+
+    private final int[] ring;
+    private final int mask;
+    private final OverflowPolicy overflowPolicy;
+    private final List<ElevatorListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread consumer;
+    private volatile boolean consumerParked;
+    private volatile boolean closed;
+
+    /**
+     * Creates the bus and starts its consumer thread.
+     * @param capacity ring buffer size, rounded up to a power of two
+     * @param overflowPolicy what to do when the buffer is full
+     */
+    public ElevatorEventBus(int capacity, OverflowPolicy overflowPolicy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The event buffer size should be positive, Input " + capacity);
+        }
+        this.ring = new int[powerOfTwoAtLeast(capacity)];
+        this.mask = ring.length - 1;
+        this.overflowPolicy = overflowPolicy;
+        this.consumer = new Thread(this::consume, "Elevator-event-bus");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    private static int powerOfTwoAtLeast(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    public void addListener(ElevatorListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ElevatorListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Number of events dropped because the buffer was full.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    @Override
+    public void atFloor(int floorNumber) {
+        publish(floorNumber << TYPE_BITS | AT_FLOOR);
+    }
+
+    @Override
+    public void doorOpening() {
+        publish(DOOR_OPENING);
+    }
+
+    @Override
+    public void doorClosed() {
+        publish(DOOR_CLOSED);
+    }
+
+    /**
+     * Stops accepting events, delivers the ones already published and stops the consumer thread.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void publish(int event) {
+        final long sequence = published.get();
+        while (sequence - consumed.get() >= ring.length) {
+            if (overflowPolicy == OverflowPolicy.DROP || closed) {
+                dropped.incrementAndGet();
+                return;
+            }
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+        ring[(int) sequence & mask] = event;
+        published.set(sequence + 1);
+        if (consumerParked) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    private void consume() {
+        while (true) {
+            final long head = consumed.get();
+            final long tail = published.get();
+            if (head == tail) {
+                if (closed) {
+                    return;
+                }
+                consumerParked = true;
+                // the producer unparks us if it sees the flag, or we see its event here
+                if (published.get() == head && !closed) {
+                    LockSupport.park(this);
+                }
+                consumerParked = false;
+                continue;
+            }
+            for (long sequence = head; sequence < tail; sequence++) {
+                deliver(ring[(int) sequence & mask]);
+            }
+            consumed.set(tail);
+        }
+    }
+
+    private void deliver(int event) {
+        for (ElevatorListener listener : listeners) {
+            try {
+                switch (event & ((1 << TYPE_BITS) - 1)) {
+                    case AT_FLOOR:
+                        listener.atFloor(event >>> TYPE_BITS);
+                        break;
+                    case DOOR_OPENING:
+                        listener.doorOpening();
+                        break;
+                    case DOOR_CLOSED:
+                        listener.doorClosed();
+                        break;
+                }
+            } catch (RuntimeException e) {
+                consumer.getUncaughtExceptionHandler().uncaughtException(consumer, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package ru.ddg.elevator.controller;
+
+import java.util.Arrays;
+
+/**
+ * Immutable picture of the elevator after a controller step: the floor, the motion, the door and the lit buttons.
+ *
+ * The controller publishes a new snapshot by swapping one volatile reference, so any number of threads read
+ * a consistent state without locks and without slowing the controller down, see {@link ElevatorController#getSnapshot()}.
+ */
+public final class ElevatorSnapshot {
+
+    private final long timeMillis;
+    private final int floor;
+    private final ElevatorState state;
+    private final boolean doorOpen;
+    private final long[] insideCalls;
+    private final long[] outsideCalls;
+    private final Kinematics kinematics;
+    private final Kinematics.Leg leg;
+    private final double floorHeightMeters;
+
+    ElevatorSnapshot(
+            long timeMillis, int floor, ElevatorState state, boolean doorOpen,
+            long[] insideCalls, long[] outsideCalls,
+            Kinematics kinematics, Kinematics.Leg leg, double floorHeightMeters
+    ) {
+        this.timeMillis = timeMillis;
+        this.floor = floor;
+        this.state = state;
+        this.doorOpen = doorOpen;
+        this.insideCalls = insideCalls;
+        this.outsideCalls = outsideCalls;
+        this.kinematics = kinematics;
+        this.leg = leg;
+        this.floorHeightMeters = floorHeightMeters;
+    }
+
+    /**
+     * Scheduler time of the step which published the snapshot.
+     */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * Floor the car stands at or has passed last.
+     */
+    public int getFloor() {
+        return floor;
+    }
+
+    public ElevatorState getState() {
+        return state;
+    }
+
+    public boolean isDoorOpen() {
+        return doorOpen;
+    }
+
+    /**
+     * Where the car is at the given time, e.g. 3.5 is halfway between the third and the fourth floor,
+     * following the motion planned at the step.
+     * @param millis scheduler time not earlier than the snapshot
+     */
+    public double getPositionAt(long millis) {
+        return 1 + leg.metersAt(kinematics, millis) / floorHeightMeters;
+    }
+
+    public boolean isInsideCalled(int floorNumber) {
+        return FloorCalls.contains(insideCalls, floorNumber);
+    }
+
+    public boolean isOutsideCalled(int floorNumber) {
+        return FloorCalls.contains(outsideCalls, floorNumber);
+    }
+
+    /**
+     * @return floors of lit buttons inside the car, ascending
+     */
+    public int[] getInsideCalls() {
+        return FloorCalls.floors(insideCalls);
+    }
+
+    /**
+     * @return floors of lit hall buttons, ascending
+     */
+    public int[] getOutsideCalls() {
+        return FloorCalls.floors(outsideCalls);
+    }
+
+    @Override
+    public String toString() {
+        return "Floor " + floor + ", " + state + ", door " + (doorOpen ? "open" : "closed")
+                + ", inside calls " + Arrays.toString(getInsideCalls())
+                + ", outside calls " + Arrays.toString(getOutsideCalls());
+    }
+}
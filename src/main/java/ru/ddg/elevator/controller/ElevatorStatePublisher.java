@@ -0,0 +1,205 @@
+package ru.ddg.elevator.controller;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stream of {@link ElevatorSnapshot elevator states} for any number of subscribers with their own demand.
+ *
+ * Nothing is buffered: every subscription keeps only the newest state it has not received yet,
+ * so a slow subscriber gets the latest state when it asks for more instead of every state in between.
+ * The controller only swaps a reference and wakes the fan-out, subscribers are called on the executor,
+ * one at a time per subscription, and never slow the elevator down.
+ */
+public class ElevatorStatePublisher implements Flow.Publisher<ElevatorSnapshot>, AutoCloseable {
+
+    private final Executor executor;
+    private final List<StateSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicInteger fanOutWip = new AtomicInteger();
+    private final Runnable fanOutTask = this::fanOut;
+    private final LongAdder conflated = new LongAdder();
+    private volatile ElevatorSnapshot latest;
+    private volatile boolean closed;
+
+    /**
+     * @param executor delivers states to subscribers
+     */
+    public ElevatorStatePublisher(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * The subscriber receives the current state first, as soon as it requests one.
+     * Nothing is delivered before {@code onSubscribe} returns, even if it requests states.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super ElevatorSnapshot> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        final StateSubscription subscription = new StateSubscription(subscriber);
+        subscriptions.add(subscription);
+        subscriber.onSubscribe(subscription);
+        final ElevatorSnapshot current = latest;
+        if (current != null) {
+            subscription.offer(current);
+        }
+        if (closed) {
+            subscription.complete();
+        }
+        executor.execute(subscription); // the drain held since the subscription was made
+    }
+
+    public int getSubscribersCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * States replaced by newer ones before their subscriber asked for them.
+     */
+    public long getConflatedCount() {
+        return conflated.sum();
+    }
+
+    /**
+     * Completes all subscriptions after the latest state, states offered later are not delivered.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (fanOutWip.getAndIncrement() == 0) {
+            executor.execute(fanOutTask);
+        }
+    }
+
+    /**
+     * Called by the controller after every step.
+     */
+    void offer(ElevatorSnapshot snapshot) {
+        latest = snapshot;
+        if (!closed && !subscriptions.isEmpty() && fanOutWip.getAndIncrement() == 0) {
+            executor.execute(fanOutTask);
+        }
+    }
+
+    private void fanOut() {
+        int missed = 1;
+        do {
+            final ElevatorSnapshot snapshot = latest;
+            final boolean complete = closed;
+            for (StateSubscription subscription : subscriptions) {
+                if (snapshot != null) {
+                    subscription.offer(snapshot);
+                }
+                if (complete) {
+                    subscription.complete();
+                }
+            }
+            missed = fanOutWip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * Demand and the one undelivered state of a subscriber. Signals are serialized by a work-in-progress counter:
+     * whoever brings it up from zero drains on the executor. A subscriber throwing from onNext is cancelled
+     * and gets the exception in onError.
+     */
+    private final class StateSubscription implements Flow.Subscription, Runnable {
+
+        private final Flow.Subscriber<? super ElevatorSnapshot> subscriber;
+        private final AtomicReference<ElevatorSnapshot> pending = new AtomicReference<>();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private ElevatorSnapshot delivered;
+        private volatile IllegalArgumentException invalidRequest;
+        private volatile boolean done;
+        private volatile boolean cancelled;
+
+        StateSubscription(Flow.Subscriber<? super ElevatorSnapshot> subscriber) {
+            this.subscriber = subscriber;
+            wip.set(1); // signals during onSubscribe wait for the drain started after it
+        }
+
+        void offer(ElevatorSnapshot snapshot) {
+            final ElevatorSnapshot replaced = pending.getAndSet(snapshot);
+            if (replaced != null && replaced != snapshot) {
+                conflated.increment();
+            }
+            drain();
+        }
+
+        void complete() {
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Requested states should be positive, Input " + n);
+            } else {
+                requested.accumulateAndGet(n, (current, more) -> current + more < 0 ? Long.MAX_VALUE : current + more);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                if (cancelled) {
+                    pending.set(null);
+                    return;
+                }
+                if (invalidRequest != null) {
+                    cancel();
+                    subscriber.onError(invalidRequest);
+                    return;
+                }
+                ElevatorSnapshot snapshot;
+                while (requested.get() > 0 && (snapshot = pending.getAndSet(null)) != null) {
+                    if (snapshot == delivered) {
+                        continue;
+                    }
+                    delivered = snapshot;
+                    if (requested.get() != Long.MAX_VALUE) {
+                        requested.decrementAndGet();
+                    }
+                    try {
+                        subscriber.onNext(snapshot);
+                    } catch (RuntimeException e) {
+                        cancel();
+                        subscriber.onError(e);
+                        return;
+                    }
+                    if (cancelled) {
+                        return;
+                    }
+                }
+                if (done) {
+                    cancel();
+                    subscriber.onComplete();
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
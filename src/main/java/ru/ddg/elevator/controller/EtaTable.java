@@ -0,0 +1,195 @@
+package ru.ddg.elevator.controller;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * When the car reaches every floor going up and going down, as scheduler times, so hall displays and
+ * a group dispatcher get an estimate with one volatile read instead of walking the calls.
+ *
+ * The car is expected to sweep like {@link DispatchPolicy#LOOK}: on to the farthest call ahead, back to the
+ * farthest call behind and ahead again, stopping at every called floor for the door and the braking time.
+ * A floor beyond the farthest call is reached as if the car was called there, i.e. both directions at once.
+ *
+ * The controller {@link #plan plans} the sweep when it changes direction, and keeps the times while the car
+ * follows the plan: a call within the sweep delays the floors after it, a floor the car leaves gets the time
+ * of the way back. Anything else, e.g. a call beyond the farthest one or a car late for the plan, is planned
+ * anew in one pass over the floors. Written by the controller, read from any thread, entry by entry.
+ */
+final class EtaTable {
+
+    private static final long NOT_WAITING = Long.MIN_VALUE;
+
+    private final PendingCalls calls;
+    private final int floorsCount;
+    private final long floorTravelTimeMillis;
+    private final long stopOverheadMillis;
+    private final AtomicLongArray arrivals; // 2 * floor for up, 2 * floor + 1 for down
+    private volatile long waitingSince = NOT_WAITING; // the times go on with the clock while the car waits
+
+    // the plan, controller thread only
+    private int floor;
+    private boolean up;
+    private int far; // farthest call ahead, the floor if none
+    private int low; // farthest call behind, the floor if none
+
+    /**
+     * @param calls calls of the controller, the table follows them
+     * @param stopOverheadMillis time a stop adds to the travel
+     */
+    EtaTable(PendingCalls calls, long stopOverheadMillis) {
+        this.calls = calls;
+        this.floorsCount = calls.getFloorsCount();
+        this.floorTravelTimeMillis = calls.getFloorTravelTimeMillis();
+        this.stopOverheadMillis = stopOverheadMillis;
+        this.arrivals = new AtomicLongArray(2 * (floorsCount + 1));
+    }
+
+    /**
+     * Scheduler time when the car is at the floor moving in the direction. Called from any thread.
+     */
+    long arrivalMillis(int floorNumber, boolean goingUp, long nowMillis) {
+        final long since = waitingSince;
+        final long arrival = get(floorNumber, goingUp);
+        return since == NOT_WAITING ? arrival : arrival + Math.max(0, nowMillis - since);
+    }
+
+    /**
+     * Plans the sweep from the floor.
+     * @param goingUp direction of the motion or the last one
+     * @param readyMillis when the car may leave the floor, e.g. after the door closes
+     * @param stopsHere the car serves a call at the floor before it leaves, otherwise on the way back
+     * @param waiting the car waits for calls, the times are then as if it started now whenever they are read
+     */
+    void plan(
+            int floorNumber, boolean goingUp, long nowMillis, long readyMillis, boolean stopsHere, boolean waiting
+    ) {
+        waitingSince = NOT_WAITING;
+        floor = floorNumber;
+        up = goingUp;
+        final int step = up ? 1 : -1;
+
+        set(floor, up, nowMillis);
+        long time = readyMillis + (stopsHere && calls.isCalled(floor) ? stopOverheadMillis : 0);
+        far = floor;
+        long leaveFar = time;
+        for (int f = floor + step; inBuilding(f); f += step) {
+            time += floorTravelTimeMillis;
+            set(f, up, time);
+            if (calls.isCalled(f)) {
+                time += stopOverheadMillis;
+                far = f;
+                leaveFar = time;
+            }
+        }
+        for (int f = far; inBuilding(f); f += step) {
+            set(f, !up, get(f, up));
+        }
+
+        time = leaveFar;
+        for (int f = far - step; (f - floor) * step >= 0; f -= step) {
+            time += floorTravelTimeMillis;
+            set(f, !up, time);
+            if (f == floor && !stopsHere && calls.isCalled(f)) {
+                time += stopOverheadMillis;
+            }
+        }
+        low = floor;
+        long leaveLow = time;
+        for (int f = floor - step; inBuilding(f); f -= step) {
+            time += floorTravelTimeMillis;
+            set(f, !up, time);
+            if (calls.isCalled(f)) {
+                time += stopOverheadMillis;
+                low = f;
+                leaveLow = time;
+            }
+        }
+        for (int f = low == floor ? floor - step : low; inBuilding(f); f -= step) {
+            set(f, up, get(f, !up));
+        }
+
+        time = leaveLow;
+        for (int f = low + step; (floor - f) * step > 0; f += step) {
+            time += floorTravelTimeMillis;
+            set(f, up, time);
+        }
+        if (waiting) {
+            waitingSince = nowMillis;
+        }
+    }
+
+    /**
+     * A new call, at a floor which was not called.
+     * @return false if it changes the sweep, the controller plans it anew then
+     */
+    boolean called(int floorNumber) {
+        final int step = up ? 1 : -1;
+        if ((floorNumber - floor) * step > 0 && (far - floorNumber) * step > 0) {
+            shift(floorNumber + step, up ? floorsCount : 1, up);
+            shift(1, floorsCount, !up);
+            shift(floor - step, up ? 1 : floorsCount, up);
+            return true;
+        }
+        if ((floor - floorNumber) * step > 0 && (floorNumber - low) * step > 0) {
+            shift(floorNumber - step, up ? 1 : floorsCount, !up);
+            shift(floor - step, up ? 1 : floorsCount, up);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * The car leaves its floor along the sweep, it is there in this direction again after the turns.
+     */
+    void left() {
+        set(floor, up, low == floor
+                ? get(floor, !up)
+                : get(low, !up) + stopOverheadMillis + floorTravelTimeMillis * Math.abs(floor - low));
+    }
+
+    /**
+     * The car has come to the next floor of the sweep.
+     * @return false if it is not where and when the plan expects it, the controller plans it anew then
+     */
+    boolean reached(int floorNumber, long nowMillis) {
+        final int step = up ? 1 : -1;
+        if (floorNumber != floor + step || (floorNumber - far) * step > 0
+                || get(floorNumber, up) != nowMillis) {
+            return false;
+        }
+        if (low == floor) {
+            low = floorNumber;
+        }
+        floor = floorNumber;
+        return true;
+    }
+
+    /**
+     * Delays the floors from one to another inclusive by a stop, none if the first one is outside the building.
+     */
+    private void shift(int from, int to, boolean goingUp) {
+        if (!inBuilding(from)) {
+            return;
+        }
+        for (int f = Math.min(from, to); f <= Math.max(from, to); f++) {
+            final int index = index(f, goingUp);
+            arrivals.set(index, arrivals.get(index) + stopOverheadMillis);
+        }
+    }
+
+    private long get(int floorNumber, boolean goingUp) {
+        return arrivals.get(index(floorNumber, goingUp));
+    }
+
+    private void set(int floorNumber, boolean goingUp, long timeMillis) {
+        arrivals.set(index(floorNumber, goingUp), timeMillis);
+    }
+
+    private boolean inBuilding(int floorNumber) {
+        return floorNumber >= 1 && floorNumber <= floorsCount;
+    }
+
+    private static int index(int floorNumber, boolean goingUp) {
+        return 2 * floorNumber + (goingUp ? 0 : 1);
+    }
+}
@@ -0,0 +1,238 @@
+package ru.ddg.elevator.controller;
+
+/**
+ * Set of lit floor buttons without boxing: a bitset answers membership and "any call above/below",
+ * a doubly linked list threaded through int arrays keeps arrival order for the oldest call,
+ * and the time of the press is kept per floor.
+ * Nothing is allocated after construction. Not thread-safe.
+ */
+class FloorCalls {
+
+    private static final int NONE = 0;
+
+    private final long[] bits;
+    private final int[] next;
+    private final int[] prev;
+    private final long[] pressedAt;
+    private int oldest = NONE;
+    private int newest = NONE;
+    private int size;
+
+    /**
+     * @param floorsCount floors are numbered from 1 to floorsCount
+     */
+    FloorCalls(int floorsCount) {
+        this.bits = new long[(floorsCount >> 6) + 1];
+        this.next = new int[floorsCount + 1];
+        this.prev = new int[floorsCount + 1];
+        this.pressedAt = new long[floorsCount + 1];
+    }
+
+    /**
+     * Independent copy.
+     */
+    FloorCalls(FloorCalls other) {
+        this.bits = other.bits.clone();
+        this.next = other.next.clone();
+        this.prev = other.prev.clone();
+        this.pressedAt = other.pressedAt.clone();
+        this.oldest = other.oldest;
+        this.newest = other.newest;
+        this.size = other.size;
+    }
+
+    boolean contains(int floorNumber) {
+        return (bits[floorNumber >> 6] & (1L << floorNumber)) != 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds a call to the end of arrival order.
+     * @param time when the button was pressed
+     * @return false if the call is already there, its position and time are kept
+     */
+    boolean add(int floorNumber, long time) {
+        if (contains(floorNumber)) {
+            return false;
+        }
+        bits[floorNumber >> 6] |= 1L << floorNumber;
+        pressedAt[floorNumber] = time;
+        prev[floorNumber] = newest;
+        next[floorNumber] = NONE;
+        if (newest == NONE) {
+            oldest = floorNumber;
+        } else {
+            next[newest] = floorNumber;
+        }
+        newest = floorNumber;
+        size++;
+        return true;
+    }
+
+    /**
+     * @return false if there was no such call
+     */
+    boolean remove(int floorNumber) {
+        if (!contains(floorNumber)) {
+            return false;
+        }
+        bits[floorNumber >> 6] &= ~(1L << floorNumber);
+        final int before = prev[floorNumber];
+        final int after = next[floorNumber];
+        if (before == NONE) {
+            oldest = after;
+        } else {
+            next[before] = after;
+        }
+        if (after == NONE) {
+            newest = before;
+        } else {
+            prev[after] = before;
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * @return when the button of a present call was pressed
+     */
+    long pressedAt(int floorNumber) {
+        return pressedAt[floorNumber];
+    }
+
+    /**
+     * @return floor pressed earliest of all, 0 if empty
+     */
+    int oldest() {
+        return oldest;
+    }
+
+    /**
+     * @return floor pressed right after the given present call, 0 if it is the newest
+     */
+    int newer(int floorNumber) {
+        return next[floorNumber];
+    }
+
+    /**
+     * @return the lowest floor called, 0 if empty
+     */
+    int lowest() {
+        for (int word = 0; word < bits.length; word++) {
+            if (bits[word] != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits[word]);
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * @return the highest floor called, 0 if empty
+     */
+    int highest() {
+        for (int word = bits.length - 1; word >= 0; word--) {
+            if (bits[word] != 0) {
+                return (word << 6) + 63 - Long.numberOfLeadingZeros(bits[word]);
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * @return the nearest floor called above the given one, 0 if none
+     */
+    int above(int floorNumber) {
+        int word = (floorNumber + 1) >> 6;
+        if (word >= bits.length) {
+            return NONE;
+        }
+        long remaining = bits[word] & (-1L << (floorNumber + 1));
+        while (remaining == 0) {
+            if (++word == bits.length) {
+                return NONE;
+            }
+            remaining = bits[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(remaining);
+    }
+
+    /**
+     * @return the nearest floor called below the given one, 0 if none
+     */
+    int below(int floorNumber) {
+        int word = floorNumber >> 6;
+        long remaining = bits[word] & ((1L << floorNumber) - 1);
+        while (remaining == 0) {
+            if (--word < 0) {
+                return NONE;
+            }
+            remaining = bits[word];
+        }
+        return (word << 6) + 63 - Long.numberOfLeadingZeros(remaining);
+    }
+
+    /**
+     * @return copy of the floor bitset for a {@link ElevatorSnapshot}
+     */
+    long[] copyBits() {
+        return bits.clone();
+    }
+
+    static boolean contains(long[] bits, int floorNumber) {
+        return floorNumber >= 0 && (floorNumber >> 6) < bits.length && (bits[floorNumber >> 6] & (1L << floorNumber)) != 0;
+    }
+
+    /**
+     * @return floors set in the bitset, ascending
+     */
+    static int[] floors(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        final int[] floors = new int[count];
+        int i = 0;
+        for (int word = 0; word < bits.length; word++) {
+            for (long remaining = bits[word]; remaining != 0; remaining &= remaining - 1) {
+                floors[i++] = (word << 6) + Long.numberOfTrailingZeros(remaining);
+            }
+        }
+        return floors;
+    }
+
+    boolean anyAbove(int floorNumber) {
+        int word = (floorNumber + 1) >> 6;
+        if (word >= bits.length) {
+            return false;
+        }
+        if ((bits[word] & (-1L << (floorNumber + 1))) != 0) {
+            return true;
+        }
+        for (word++; word < bits.length; word++) {
+            if (bits[word] != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean anyBelow(int floorNumber) {
+        final int word = floorNumber >> 6;
+        if ((bits[word] & ((1L << floorNumber) - 1)) != 0) {
+            return true;
+        }
+        for (int i = 0; i < word; i++) {
+            if (bits[i] != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
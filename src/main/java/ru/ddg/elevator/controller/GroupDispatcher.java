@@ -0,0 +1,223 @@
+package ru.ddg.elevator.controller;
+
+import ru.ddg.elevator.scheduler.Scheduler;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Group control of a bank of elevators sharing the hall buttons of a building.
+ *
+ * A hall call is pressed once per building and given to the car with the lowest
+ * {@link ElevatorController#estimateMillisTo(int) estimated} time to open its door at that floor.
+ * While calls wait, the assignment is reviewed periodically and a call moves to another car
+ * when that saves at least the given time. A hall call is done as soon as any car opens its door at the floor,
+ * the car it was given to is relieved of it then. Car calls go straight to a car, see {@link #getCar(int)}.
+ *
+ * Methods are called from any thread, car events come from the scheduler threads of the cars.
+ */
+public class GroupDispatcher {
+
+    private static final int NONE = -1;
+
+    private final ElevatorController[] cars;
+    private final ElevatorListener[] carListeners;
+    private final Scheduler scheduler;
+    private final long reviewPeriodMillis;
+    private final long reassignGainMillis;
+    private final int floorsCount;
+    private final int[] assignedCar;
+    private final int[] carFloor;
+    private final Runnable reviewTask = this::review;
+    private int pendingCalls;
+    private boolean reviewScheduled;
+    private long reassignedCount;
+
+    /**
+     * Takes over the listeners of the cars, set them with {@link #setElevatorListener(int, ElevatorListener)}.
+     * @param cars controllers of the same building, not started yet
+     * @param scheduler scheduler of the cars, runs the reviews
+     * @param reviewPeriodMillis how often waiting calls are reconsidered
+     * @param reassignGainMillis how much sooner another car must come to take a call over
+     */
+    public GroupDispatcher(
+            List<ElevatorController> cars, Scheduler scheduler, long reviewPeriodMillis, long reassignGainMillis
+    ) {
+        if (cars.isEmpty()) {
+            throw new IllegalArgumentException("The group should have at least one elevator");
+        }
+        if (reviewPeriodMillis < 1) {
+            throw new IllegalArgumentException("The review period should be positive, Input " + reviewPeriodMillis);
+        }
+        this.cars = cars.toArray(new ElevatorController[0]);
+        this.carListeners = new ElevatorListener[this.cars.length];
+        this.scheduler = scheduler;
+        this.reviewPeriodMillis = reviewPeriodMillis;
+        this.reassignGainMillis = reassignGainMillis;
+        this.floorsCount = this.cars[0].getFloorsCount();
+        this.assignedCar = new int[floorsCount + 1];
+        this.carFloor = new int[this.cars.length];
+        Arrays.fill(assignedCar, NONE);
+        for (int car = 0; car < this.cars.length; car++) {
+            if (this.cars[car].getFloorsCount() != floorsCount) {
+                throw new IllegalArgumentException(
+                        "All elevators should serve " + floorsCount + " floors, elevator " + car + " serves "
+                                + this.cars[car].getFloorsCount()
+                );
+            }
+            carListeners[car] = ElevatorListener.NOOP;
+            this.cars[car].setElevatorListener(tracker(car));
+        }
+    }
+
+    /**
+     * Listener of one car's events, must be set before {@link #start()}.
+     */
+    public void setElevatorListener(int car, ElevatorListener elevatorListener) {
+        carListeners[car] = (elevatorListener == null ? ElevatorListener.NOOP : elevatorListener);
+    }
+
+    public ElevatorController getCar(int car) {
+        return cars[car];
+    }
+
+    public int getCarsCount() {
+        return cars.length;
+    }
+
+    public int getFloorsCount() {
+        return floorsCount;
+    }
+
+    public void start() {
+        for (ElevatorController car : cars) {
+            car.start();
+        }
+    }
+
+    public void stop() {
+        for (ElevatorController car : cars) {
+            car.stop();
+        }
+    }
+
+    /**
+     * Hall button of the building is pressed. Pressing a call which is already waiting does nothing.
+     * The press is lost if the request queue of the fastest car is full, the next press of the button tries again.
+     * @throws IllegalArgumentException invalid floor number
+     */
+    public synchronized void outsideButtonPressed(int floorNumber) throws IllegalArgumentException {
+        if (floorNumber < 1 || floorNumber > floorsCount) {
+            throw new IllegalArgumentException(
+                    "The floor number should be from 1 to " + floorsCount + ", Input " + floorNumber
+            );
+        }
+        if (assignedCar[floorNumber] != NONE) {
+            return;
+        }
+        final int car = fastestCar(floorNumber);
+        if (!cars[car].callOutside(floorNumber)) {
+            return;
+        }
+        assignedCar[floorNumber] = car;
+        pendingCalls++;
+        if (!reviewScheduled && cars.length > 1) {
+            reviewScheduled = true;
+            scheduler.schedule(reviewPeriodMillis, reviewTask);
+        }
+    }
+
+    /**
+     * @return car serving the hall call of the floor, -1 if there is no call
+     */
+    public synchronized int getAssignedCar(int floorNumber) {
+        return assignedCar[floorNumber];
+    }
+
+    /**
+     * Number of hall calls moved from one car to another.
+     */
+    public synchronized long getReassignedCount() {
+        return reassignedCount;
+    }
+
+    private int fastestCar(int floorNumber) {
+        int fastest = 0;
+        long fastestMillis = cars[0].estimateMillisTo(floorNumber);
+        for (int car = 1; car < cars.length; car++) {
+            final long millis = cars[car].estimateMillisTo(floorNumber);
+            if (millis < fastestMillis) {
+                fastest = car;
+                fastestMillis = millis;
+            }
+        }
+        return fastest;
+    }
+
+    private synchronized void review() {
+        reviewScheduled = false;
+        if (pendingCalls == 0) {
+            return;
+        }
+        for (int floorNumber = 1; floorNumber <= floorsCount; floorNumber++) {
+            final int assigned = assignedCar[floorNumber];
+            if (assigned == NONE) {
+                continue;
+            }
+            final int fastest = fastestCar(floorNumber);
+            if (fastest != assigned
+                    && cars[fastest].estimateMillisTo(floorNumber) + reassignGainMillis
+                    <= cars[assigned].estimateMillisTo(floorNumber)
+                    && cars[assigned].withdrawOutsideCall(floorNumber)) {
+                if (cars[fastest].callOutside(floorNumber)) {
+                    assignedCar[floorNumber] = fastest;
+                    reassignedCount++;
+                } else if (!cars[assigned].callOutside(floorNumber)) {
+                    // both queues are full, the call is lost like a rejected press
+                    assignedCar[floorNumber] = NONE;
+                    pendingCalls--;
+                }
+            }
+        }
+        reviewScheduled = true;
+        scheduler.schedule(reviewPeriodMillis, reviewTask);
+    }
+
+    private synchronized void carAtFloor(int car, int floorNumber) {
+        carFloor[car] = floorNumber;
+    }
+
+    private synchronized void carDoorOpening(int car) {
+        final int floorNumber = carFloor[car];
+        final int assigned = assignedCar[floorNumber];
+        if (assigned == NONE) {
+            return;
+        }
+        if (assigned != car) {
+            cars[assigned].withdrawOutsideCall(floorNumber);
+        }
+        assignedCar[floorNumber] = NONE;
+        pendingCalls--;
+    }
+
+    private ElevatorListener tracker(int car) {
+        return new ElevatorListener() {
+            @Override
+            public void atFloor(int floorNumber) {
+                carAtFloor(car, floorNumber);
+                carListeners[car].atFloor(floorNumber);
+            }
+
+            @Override
+            public void doorOpening() {
+                carDoorOpening(car);
+                carListeners[car].doorOpening();
+            }
+
+            @Override
+            public void doorClosed() {
+                carListeners[car].doorClosed();
+            }
+        };
+    }
+}
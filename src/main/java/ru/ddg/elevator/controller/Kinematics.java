@@ -0,0 +1,167 @@
+package ru.ddg.elevator.controller;
+
+/**
+ * Motion of the car along the shaft: it speeds up with a constant acceleration to the cruise speed
+ * and brakes with the same deceleration. An infinite acceleration is the constant speed model,
+ * the car is at full speed as soon as it starts and halts at once.
+ *
+ * Distances are in meters along the travel direction, speeds in meters per second.
+ */
+final class Kinematics {
+
+    private final double cruiseSpeed;
+    private final double acceleration;
+
+    Kinematics(double cruiseSpeed, double acceleration) {
+        this.cruiseSpeed = cruiseSpeed;
+        this.acceleration = acceleration;
+    }
+
+    /**
+     * @return the given acceleration over the props, infinite if they have none
+     */
+    static Kinematics of(ControllerProps props) {
+        final int acceleration = props.getAccelerationCentimetersPerSecondSquared();
+        final int floorTravelTimeMillis = props.getFloorTravelTimeMillis();
+        if (acceleration == 0) {
+            // the speed the constant speed model really has, the floor time is rounded to seconds
+            return new Kinematics(
+                    floorTravelTimeMillis == 0
+                            ? props.getLiftSpeedCentimetersPerSecond() / 100.0
+                            : props.getFloorHeightCentimeters() * 10.0 / floorTravelTimeMillis,
+                    Double.POSITIVE_INFINITY
+            );
+        }
+        return new Kinematics(props.getLiftSpeedCentimetersPerSecond() / 100.0, acceleration / 100.0);
+    }
+
+    boolean isUniform() {
+        return acceleration == Double.POSITIVE_INFINITY;
+    }
+
+    double getCruiseSpeed() {
+        return cruiseSpeed;
+    }
+
+    double brakingDistance(double speed) {
+        return isUniform() ? 0 : speed * speed / (2 * acceleration);
+    }
+
+    double brakingSeconds(double speed) {
+        return isUniform() ? 0 : speed / acceleration;
+    }
+
+    /**
+     * Speed after covering the distance while braking.
+     */
+    double speedAfterBraking(double speed, double meters) {
+        return isUniform() ? 0 : Math.sqrt(Math.max(0, speed * speed - 2 * acceleration * meters));
+    }
+
+    /**
+     * Time to cover the distance while braking, the car may still move at the end.
+     */
+    double brakingSecondsToCover(double speed, double meters) {
+        return isUniform() ? 0 : (speed - speedAfterBraking(speed, meters)) / acceleration;
+    }
+
+    /**
+     * Speed after covering the distance while speeding up or cruising.
+     */
+    double speedAfter(double speed, double meters) {
+        return isUniform() ? cruiseSpeed : Math.min(cruiseSpeed, Math.sqrt(speed * speed + 2 * acceleration * meters));
+    }
+
+    /**
+     * Time to cover the distance while speeding up or cruising.
+     */
+    double secondsToCover(double speed, double meters) {
+        final double speedingUpMeters = speedingUpMeters(speed);
+        if (meters < speedingUpMeters) {
+            return (Math.sqrt(speed * speed + 2 * acceleration * meters) - speed) / acceleration;
+        }
+        return speedingUpSeconds(speed) + (meters - speedingUpMeters) / cruiseSpeed;
+    }
+
+    /**
+     * How far the car may go on before it has to brake to halt at the given distance.
+     * @return negative if it is too late to halt there
+     */
+    double brakingPoint(double speed, double meters) {
+        final double brakingMeters = brakingDistance(speed);
+        if (brakingMeters > meters) {
+            return -1;
+        }
+        // speeds up half of the way and brakes the other half unless the cruise speed is reached before
+        final double halfway = (meters - brakingMeters) / 2;
+        if (isUniform() || speed * speed + 2 * acceleration * halfway > cruiseSpeed * cruiseSpeed) {
+            return meters - brakingDistance(cruiseSpeed);
+        }
+        return halfway;
+    }
+
+    /**
+     * Distance covered in the time, braking until the car halts or speeding up until the cruise speed.
+     */
+    double distance(double speed, boolean braking, double seconds) {
+        if (seconds <= 0) {
+            return 0;
+        }
+        if (braking) {
+            final double moving = Math.min(seconds, brakingSeconds(speed));
+            return moving <= 0 ? 0 : speed * moving - acceleration * moving * moving / 2;
+        }
+        final double speedingUpSeconds = speedingUpSeconds(speed);
+        if (seconds < speedingUpSeconds) {
+            return speed * seconds + acceleration * seconds * seconds / 2;
+        }
+        return speedingUpMeters(speed) + cruiseSpeed * (seconds - speedingUpSeconds);
+    }
+
+    private double speedingUpSeconds(double speed) {
+        return isUniform() ? 0 : Math.max(0, cruiseSpeed - speed) / acceleration;
+    }
+
+    private double speedingUpMeters(double speed) {
+        return isUniform() ? 0 : Math.max(0, cruiseSpeed * cruiseSpeed - speed * speed) / (2 * acceleration);
+    }
+
+    /**
+     * One stretch of the travel between two controller steps, published for {@link ElevatorController#getPosition()}.
+     */
+    static final class Leg {
+
+        final long startMillis;
+        final double startMeters;
+        final double speed;
+        final boolean braking;
+        final int direction;
+        final double lengthMeters;
+
+        /**
+         * @param startMeters from the first floor
+         * @param direction 1 up, -1 down, 0 standing
+         * @param lengthMeters the car does not go further than this in the leg
+         */
+        Leg(long startMillis, double startMeters, double speed, boolean braking, int direction, double lengthMeters) {
+            this.startMillis = startMillis;
+            this.startMeters = startMeters;
+            this.speed = speed;
+            this.braking = braking;
+            this.direction = direction;
+            this.lengthMeters = lengthMeters;
+        }
+
+        static Leg standing(long startMillis, double meters) {
+            return new Leg(startMillis, meters, 0, false, 0, 0);
+        }
+
+        double metersAt(Kinematics kinematics, long millis) {
+            if (direction == 0) {
+                return startMeters;
+            }
+            final double meters = kinematics.distance(speed, braking, (millis - startMillis) / 1000.0);
+            return startMeters + direction * Math.min(lengthMeters, meters);
+        }
+    }
+}
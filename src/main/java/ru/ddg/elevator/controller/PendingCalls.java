@@ -0,0 +1,61 @@
+package ru.ddg.elevator.controller;
+
+/**
+ * Read-only view of the calls an elevator has, given to a {@link DispatchStrategy}.
+ * Floors are numbered from 1, 0 stands for no floor.
+ */
+public interface PendingCalls {
+
+    int getFloorsCount();
+
+    /**
+     * Time to travel one floor, for strategies estimating waits.
+     */
+    int getFloorTravelTimeMillis();
+
+    /**
+     * Time the door takes to open and close at a stop.
+     */
+    int getDoorOpenCloseTimeMillis();
+
+    boolean isEmpty();
+
+    /**
+     * @return true if the floor is called from inside or outside
+     */
+    boolean isCalled(int floorNumber);
+
+    /**
+     * @return floor pressed inside the elevator earliest of all, 0 if none
+     */
+    int oldestInside();
+
+    /**
+     * @return floor pressed outside earliest of all, 0 if none
+     */
+    int oldestOutside();
+
+    /**
+     * @return the nearest floor called above the given one, 0 if none
+     */
+    int above(int floorNumber);
+
+    /**
+     * @return the nearest floor called below the given one, 0 if none
+     */
+    int below(int floorNumber);
+
+    /**
+     * @return when the earliest of the buttons of a called floor was pressed
+     */
+    long pressedAt(int floorNumber);
+
+    /**
+     * Independent copy of the calls with the car standing at the floor, for strategies trying decisions out.
+     * The calls of a controller can always be copied, other calls, e.g. test fixtures, may not support it.
+     * @return null if the calls can not be copied
+     */
+    default CarState fork(int currentFloor, ElevatorState lastDirection, long nowMillis) {
+        return null;
+    }
+}
@@ -0,0 +1,242 @@
+package ru.ddg.elevator.controller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Looks ahead before a decision: every floor one of the candidate strategies would head for is played forward
+ * on a {@link CarState fork} of the calls for a few minutes of predicted hall calls, and the floor with the
+ * least total wait wins. After the first move the rollouts and the elevator follow the base strategy.
+ *
+ * Candidates are played in parallel on the executor against the same predicted calls. The controller waits for
+ * them no longer than the budget, a candidate not played through by then is left out, and the base strategy
+ * decides if its own floor is not. Rollouts check the budget at every decision and give up when it is over,
+ * so the executor is free for the next decision; it should not be shared with work that must not wait.
+ */
+public class RolloutDispatch implements DispatchStrategy {
+
+    private static final long HOUR_MILLIS = 3_600_000;
+
+    private final DispatchStrategy base;
+    private final Executor executor;
+    private final long horizonMillis;
+    private final long budgetNanos;
+    private DispatchStrategy[] candidates = DispatchPolicy.values();
+    private int rollouts = 8;
+    private double callsPerHour;
+    private DemandModel demandModel;
+    private long seed;
+    private volatile long decisionsCount;
+    private volatile long overriddenCount;
+    private volatile long overBudgetCount;
+
+    /**
+     * @param base strategy of the rollouts and of the moves after the first one
+     * @param executor plays the candidates
+     * @param horizonMillis how far ahead to play
+     * @param budgetMillis how long a decision may take
+     */
+    public RolloutDispatch(DispatchStrategy base, Executor executor, long horizonMillis, long budgetMillis) {
+        if (horizonMillis <= 0) {
+            throw new IllegalArgumentException("Rollout horizon should be positive, Input " + horizonMillis);
+        }
+        if (budgetMillis < 0) {
+            throw new IllegalArgumentException("Decision budget should not be negative, Input " + budgetMillis);
+        }
+        this.base = base;
+        this.executor = executor;
+        this.horizonMillis = horizonMillis;
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+    }
+
+    /**
+     * Strategies proposing the floors to try, all {@link DispatchPolicy built-in} ones by default.
+     */
+    public void setCandidates(DispatchStrategy... candidates) {
+        this.candidates = candidates.clone();
+    }
+
+    /**
+     * Rollouts per candidate, each with its own predicted calls, 8 by default.
+     */
+    public void setRollouts(int rollouts) {
+        if (rollouts < 1) {
+            throw new IllegalArgumentException("Rollouts should be positive, Input " + rollouts);
+        }
+        this.rollouts = rollouts;
+    }
+
+    /**
+     * Hall calls predicted in the rollouts, none by default.
+     * @param demandModel floors the calls come from at the time, null or unknown time for any floor alike
+     */
+    public void setForecast(double callsPerHour, DemandModel demandModel) {
+        if (callsPerHour < 0) {
+            throw new IllegalArgumentException("Calls per hour should not be negative, Input " + callsPerHour);
+        }
+        this.callsPerHour = callsPerHour;
+        this.demandModel = demandModel;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Decisions with more than one floor to choose from.
+     */
+    public long getDecisionsCount() {
+        return decisionsCount;
+    }
+
+    /**
+     * Decisions where the rollouts chose another floor than the base strategy.
+     */
+    public long getOverriddenCount() {
+        return overriddenCount;
+    }
+
+    /**
+     * Decisions where some candidate was not played through within the budget.
+     */
+    public long getOverBudgetCount() {
+        return overBudgetCount;
+    }
+
+    @Override
+    public int selectFloor(PendingCalls calls, int currentFloor, ElevatorState lastDirection, long nowMillis) {
+        final int baseFloor = base.selectFloor(calls, currentFloor, lastDirection, nowMillis);
+        final int[] floors = candidateFloors(calls, currentFloor, lastDirection, nowMillis, baseFloor);
+        if (floors.length == 1) {
+            return baseFloor;
+        }
+        final CarState fork = calls.fork(currentFloor, lastDirection, nowMillis);
+        if (fork == null) {
+            return baseFloor;
+        }
+        final long deadline = System.nanoTime() + budgetNanos;
+        final long decisionSeed = seed + decisionsCount * 0x9E3779B97F4A7C15L;
+        decisionsCount++;
+
+        final List<CompletableFuture<Long>> waits = new ArrayList<>(floors.length);
+        for (int floor : floors) {
+            waits.add(CompletableFuture.supplyAsync(() -> play(fork, floor, nowMillis, decisionSeed, deadline), executor));
+        }
+        int best = baseFloor;
+        long bestWait = Long.MAX_VALUE;
+        boolean overBudget = false;
+        for (int i = 0; i < floors.length; i++) {
+            final long wait = await(waits.get(i), deadline);
+            if (wait < 0) {
+                overBudget = true;
+                if (i == 0) {
+                    break; // nothing to compare with
+                }
+            } else if (wait < bestWait) {
+                best = floors[i];
+                bestWait = wait;
+            }
+        }
+        if (overBudget) {
+            overBudgetCount++;
+            if (bestWait == Long.MAX_VALUE) {
+                best = baseFloor;
+            }
+        }
+        if (best != baseFloor) {
+            overriddenCount++;
+        }
+        return best;
+    }
+
+    @Override
+    public boolean keepMoving(PendingCalls calls, int currentFloor, ElevatorState direction, long nowMillis) {
+        return base.keepMoving(calls, currentFloor, direction, nowMillis);
+    }
+
+    /**
+     * @return distinct floors, the base one first
+     */
+    private int[] candidateFloors(
+            PendingCalls calls, int currentFloor, ElevatorState lastDirection, long nowMillis, int baseFloor
+    ) {
+        final int[] floors = new int[candidates.length + 1];
+        floors[0] = baseFloor;
+        int count = 1;
+        for (DispatchStrategy candidate : candidates) {
+            final int floor = candidate.selectFloor(calls, currentFloor, lastDirection, nowMillis);
+            boolean known = false;
+            for (int i = 0; i < count && !known; i++) {
+                known = floors[i] == floor;
+            }
+            if (!known) {
+                floors[count++] = floor;
+            }
+        }
+        return Arrays.copyOf(floors, count);
+    }
+
+    /**
+     * @return total wait of all rollouts, -1 if the budget is over before they are played
+     */
+    private long play(CarState fork, int firstFloor, long nowMillis, long decisionSeed, long deadline) {
+        long wait = 0;
+        for (int rollout = 0; rollout < rollouts; rollout++) {
+            if (System.nanoTime() - deadline > 0) {
+                return -1;
+            }
+            final SplittableRandom random = new SplittableRandom(decisionSeed + rollout);
+            final long[] times = predictTimes(nowMillis, random);
+            final int[] floors = new int[times.length];
+            for (int i = 0; i < times.length; i++) {
+                final int floor = demandModel == null ? 0 : demandModel.callingFloor(times[i], random.nextDouble());
+                floors[i] = floor != 0 ? floor : 1 + random.nextInt(fork.getFloorsCount());
+            }
+            final CarState state = fork.copy();
+            if (!state.play(base, firstFloor, nowMillis + horizonMillis, times, floors, random,
+                    () -> System.nanoTime() - deadline > 0)) {
+                return -1;
+            }
+            wait += state.getWaitMillis();
+        }
+        return wait;
+    }
+
+    /**
+     * Poisson arrivals within the horizon.
+     */
+    private long[] predictTimes(long nowMillis, SplittableRandom random) {
+        if (callsPerHour == 0) {
+            return new long[0];
+        }
+        final double meanGapMillis = HOUR_MILLIS / callsPerHour;
+        long[] times = new long[8];
+        int count = 0;
+        double time = nowMillis;
+        while ((time += -Math.log(1 - random.nextDouble()) * meanGapMillis) < nowMillis + horizonMillis) {
+            if (count == times.length) {
+                times = Arrays.copyOf(times, count * 2);
+            }
+            times[count++] = (long) time;
+        }
+        return Arrays.copyOf(times, count);
+    }
+
+    private static long await(CompletableFuture<Long> wait, long deadline) {
+        try {
+            return wait.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package ru.ddg.elevator.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of non-negative durations with log-linear buckets in the spirit of HdrHistogram:
+ * every power of two is split into 32 buckets, so any recorded value is known within ~3%.
+ * Counters of a power of two are allocated when the first value falls into it, so a histogram
+ * costs only the ranges actually recorded and thousands of them fit in a small heap.
+ *
+ * Recording is lock-free and may be called from any number of threads.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicReferenceArray<AtomicLongArray> counts = new AtomicReferenceArray<>(BUCKETS / SUB_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("The value should not be negative, Input " + value);
+        }
+        final int bucket = bucketOf(value);
+        segmentOf(bucket).incrementAndGet(bucket % SUB_BUCKETS);
+        count.increment();
+        sum.add(value);
+        long currentMax;
+        while (value > (currentMax = max.get()) && !max.compareAndSet(currentMax, value)) {
+            // another thread has raised max, compare again
+        }
+    }
+
+    /**
+     * Adds all values recorded by another histogram, e.g. to aggregate runs. May be called concurrently.
+     */
+    public void add(LatencyHistogram other) {
+        for (int segment = 0; segment < other.counts.length(); segment++) {
+            final AtomicLongArray otherCounts = other.counts.get(segment);
+            if (otherCounts == null) {
+                continue;
+            }
+            for (int subBucket = 0; subBucket < SUB_BUCKETS; subBucket++) {
+                final long bucketCount = otherCounts.get(subBucket);
+                if (bucketCount != 0) {
+                    segmentOf(segment * SUB_BUCKETS).addAndGet(subBucket, bucketCount);
+                }
+            }
+        }
+        count.add(other.count.sum());
+        sum.add(other.sum.sum());
+        final long otherMax = other.max.get();
+        long currentMax;
+        while (otherMax > (currentMax = max.get()) && !max.compareAndSet(currentMax, otherMax)) {
+            // another thread has raised max, compare again
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        final long total = count.sum();
+        return total == 0 ? 0 : (double) sum.sum() / total;
+    }
+
+    /**
+     * Value which the given share of recorded values does not exceed, rounded up to its bucket.
+     * @param percentile from 0 to 100
+     * @return 0 if nothing is recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        final long total = count.sum();
+        if (total == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int segment = 0; segment < counts.length(); segment++) {
+            final AtomicLongArray segmentCounts = counts.get(segment);
+            if (segmentCounts == null) {
+                continue;
+            }
+            for (int subBucket = 0; subBucket < SUB_BUCKETS; subBucket++) {
+                seen += segmentCounts.get(subBucket);
+                if (seen >= rank) {
+                    return Math.min(highestValueOf(segment * SUB_BUCKETS + subBucket), max.get());
+                }
+            }
+        }
+        return max.get();
+    }
+
+    private AtomicLongArray segmentOf(int bucket) {
+        final int segment = bucket / SUB_BUCKETS;
+        final AtomicLongArray existing = counts.get(segment);
+        if (existing != null) {
+            return existing;
+        }
+        final AtomicLongArray created = new AtomicLongArray(SUB_BUCKETS);
+        return counts.compareAndSet(segment, null, created) ? created : counts.get(segment);
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        final long subBucket = bucket % SUB_BUCKETS;
+        final int shift = exponent - SUB_BUCKET_BITS;
+        return ((SUB_BUCKETS | subBucket) << shift) + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,16 @@
+package ru.ddg.elevator.model;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Elevator drive which acts on commands asynchronously, e.g. over a field bus.
+ */
+@FunctionalInterface
+public interface AsyncElevator {
+
+    /**
+     * Sends the command and returns right away, commands are sent in the order they are executed.
+     * @return completed when the drive acknowledges the command, exceptionally if it fails to
+     */
+    CompletableFuture<Void> execute(ElevatorCommand command);
+}
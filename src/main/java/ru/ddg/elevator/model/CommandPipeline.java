@@ -0,0 +1,228 @@
+package ru.ddg.elevator.model;
+
+import ru.ddg.elevator.scheduler.Scheduler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link Elevator} in front of an {@link AsyncElevator asynchronous drive}, so the controller never waits for
+ * the hardware: a command is handed over and the controller goes on with its step.
+ *
+ * Up to maxInFlight commands are sent without waiting for their acknowledgements, the rest wait in order
+ * and are sent as earlier ones are acknowledged, fail or time out. A command the drive does not acknowledge
+ * within the timeout is given up on, its future completes with a {@link TimeoutException} and it no longer
+ * holds a place in flight, a late acknowledgement is ignored. Failures and timeouts are counted and logged.
+ *
+ * Commands come from the controller, acknowledgements from any thread.
+ */
+public class CommandPipeline implements Elevator {
+
+    private static final System.Logger LOGGER = System.getLogger(CommandPipeline.class.getName());
+
+    private final AsyncElevator drive;
+    private final Scheduler scheduler;
+    private final long timeoutMillis;
+    private final int maxInFlight;
+    private final ArrayDeque<Command> waiting = new ArrayDeque<>();
+    private final ArrayDeque<Command> sent = new ArrayDeque<>(); // in flight, oldest deadline first
+    private final AtomicInteger wip = new AtomicInteger(); // drain passes asked for, one thread sends
+    private int inFlight;
+    private boolean timerArmed;
+    private long acknowledgedCount;
+    private long failedCount;
+    private long timedOutCount;
+
+    /**
+     * @param scheduler counts timeouts
+     * @param timeoutMillis how long to wait for an acknowledgement
+     * @param maxInFlight commands sent and not acknowledged yet
+     */
+    public CommandPipeline(AsyncElevator drive, Scheduler scheduler, long timeoutMillis, int maxInFlight) {
+        if (timeoutMillis <= 0) {
+            throw new IllegalArgumentException("Command timeout should be positive, Input " + timeoutMillis);
+        }
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Commands in flight should be positive, Input " + maxInFlight);
+        }
+        this.drive = drive;
+        this.scheduler = scheduler;
+        this.timeoutMillis = timeoutMillis;
+        this.maxInFlight = maxInFlight;
+    }
+
+    @Override
+    public void openCloseDoor() {
+        send(ElevatorCommand.OPEN_CLOSE_DOOR);
+    }
+
+    @Override
+    public void up() {
+        send(ElevatorCommand.UP);
+    }
+
+    @Override
+    public void down() {
+        send(ElevatorCommand.DOWN);
+    }
+
+    @Override
+    public void stop() {
+        send(ElevatorCommand.STOP);
+    }
+
+    /**
+     * Sends the command now or after the commands in flight, never waits.
+     * @return completed when the drive acknowledges the command, exceptionally if it fails or times out
+     */
+    public CompletableFuture<Void> send(ElevatorCommand command) {
+        final Command next = new Command(command);
+        synchronized (this) {
+            waiting.add(next);
+        }
+        drain();
+        return next.result;
+    }
+
+    public synchronized int getInFlightCount() {
+        return inFlight;
+    }
+
+    /**
+     * Commands waiting for a place in flight.
+     */
+    public synchronized int getWaitingCount() {
+        return waiting.size();
+    }
+
+    public synchronized long getAcknowledgedCount() {
+        return acknowledgedCount;
+    }
+
+    /**
+     * Commands the drive reported failed.
+     */
+    public synchronized long getFailedCount() {
+        return failedCount;
+    }
+
+    public synchronized long getTimedOutCount() {
+        return timedOutCount;
+    }
+
+    /**
+     * Sends the waiting commands while there are places in flight. One thread sends at a time, so the drive gets
+     * the commands in order, and an acknowledgement coming while it sends, e.g. synchronously, leaves the next
+     * command to the loop instead of sending it from a nested call.
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            while (true) {
+                final Command next;
+                final boolean arm;
+                synchronized (this) {
+                    if (inFlight == maxInFlight || waiting.isEmpty()) {
+                        break;
+                    }
+                    next = waiting.poll();
+                    inFlight++;
+                    next.deadlineMillis = scheduler.currentTimeMillis() + timeoutMillis;
+                    sent.add(next);
+                    arm = !timerArmed;
+                    timerArmed = true;
+                }
+                if (arm) {
+                    scheduler.schedule(timeoutMillis, this::onTimeout);
+                }
+                execute(next);
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void execute(Command command) {
+        CompletableFuture<Void> acknowledged;
+        try {
+            acknowledged = drive.execute(command.command);
+        } catch (RuntimeException e) {
+            acknowledged = CompletableFuture.failedFuture(e);
+        }
+        acknowledged.whenComplete((ignored, failure) -> finish(
+                command, failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure
+        ));
+    }
+
+    /**
+     * Gives up on the commands past their deadline. One timer serves all the commands in flight: they share
+     * the timeout, so the oldest one is due first, and a command that finishes leaves nothing scheduled behind.
+     */
+    private void onTimeout() {
+        final List<Command> expired = new ArrayList<>();
+        long delayMillis = 0;
+        synchronized (this) {
+            final long now = scheduler.currentTimeMillis();
+            while (!sent.isEmpty() && sent.peek().deadlineMillis <= now) {
+                expired.add(sent.poll());
+            }
+            timerArmed = !sent.isEmpty();
+            if (timerArmed) {
+                delayMillis = sent.peek().deadlineMillis - now;
+            }
+        }
+        if (delayMillis > 0) {
+            scheduler.schedule(delayMillis, this::onTimeout);
+        }
+        for (Command command : expired) {
+            finish(command, new TimeoutException(command.command + " is not acknowledged in " + timeoutMillis + " ms"));
+        }
+    }
+
+    /**
+     * Frees the place of the command in flight and sends the next one, the first outcome wins.
+     */
+    private void finish(Command command, Throwable failure) {
+        synchronized (this) {
+            if (command.finished) {
+                return;
+            }
+            command.finished = true;
+            sent.remove(command);
+            inFlight--;
+            if (failure == null) {
+                acknowledgedCount++;
+            } else if (failure instanceof TimeoutException) {
+                timedOutCount++;
+            } else {
+                failedCount++;
+            }
+        }
+        if (failure == null) {
+            command.result.complete(null);
+        } else {
+            LOGGER.log(System.Logger.Level.WARNING, failure instanceof TimeoutException
+                    ? failure.getMessage() : command.command + " failed", failure);
+            command.result.completeExceptionally(failure);
+        }
+        drain();
+    }
+
+    private static final class Command {
+        private final ElevatorCommand command;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+        private long deadlineMillis;
+        private boolean finished;
+
+        private Command(ElevatorCommand command) {
+            this.command = command;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package ru.ddg.elevator.model;
 
 /**
+ * Elevator hardware, commanded from controller steps, so a call should not block.
+ * A drive with latency goes behind a {@link CommandPipeline}.
  */
 public interface Elevator {
     
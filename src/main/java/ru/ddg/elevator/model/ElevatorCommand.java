@@ -0,0 +1,11 @@
+package ru.ddg.elevator.model;
+
+/**
+ * Command to the elevator drive, one per {@link Elevator} method.
+ */
+public enum ElevatorCommand {
+    OPEN_CLOSE_DOOR,
+    UP,
+    DOWN,
+    STOP
+}
@@ -0,0 +1,41 @@
+package ru.ddg.elevator.model;
+
+import ru.ddg.elevator.scheduler.Scheduler;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for a real drive: acknowledges every command after a fixed latency, in scheduler time.
+ */
+public class SimulatedDrive implements AsyncElevator {
+
+    private final Scheduler scheduler;
+    private final long latencyMillis;
+    private final AtomicLong executedCount = new AtomicLong();
+
+    public SimulatedDrive(Scheduler scheduler, long latencyMillis) {
+        if (latencyMillis < 0) {
+            throw new IllegalArgumentException("Latency should not be negative, Input " + latencyMillis);
+        }
+        this.scheduler = scheduler;
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public CompletableFuture<Void> execute(ElevatorCommand command) {
+        final CompletableFuture<Void> acknowledged = new CompletableFuture<>();
+        scheduler.schedule(latencyMillis, () -> {
+            executedCount.incrementAndGet();
+            acknowledged.complete(null);
+        });
+        return acknowledged;
+    }
+
+    /**
+     * Commands acknowledged so far.
+     */
+    public long getExecutedCount() {
+        return executedCount.get();
+    }
+}
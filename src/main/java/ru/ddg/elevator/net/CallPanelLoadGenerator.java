@@ -0,0 +1,144 @@
+package ru.ddg.elevator.net;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Test client for {@link CallPanelServer}: many panels connected at once, each sending lines
+ * of random hall and car calls as fast as the server takes them.
+ *
+ * Panels are spread over one thread per processor, every thread writes to its panels in turn.
+ */
+public class CallPanelLoadGenerator {
+
+    private static final int MAX_PRESSES_PER_LINE = 8;
+
+    private final InetSocketAddress address;
+    private final int panels;
+    private final int floorsCount;
+    private final long seed;
+
+    /**
+     * @param seed same seed sends the same presses from the same panels
+     */
+    public CallPanelLoadGenerator(InetSocketAddress address, int panels, int floorsCount, long seed) {
+        if (panels < 1) {
+            throw new IllegalArgumentException("Panels count should be positive, Input " + panels);
+        }
+        if (floorsCount < 1) {
+            throw new IllegalArgumentException("Floors count should be positive, Input " + floorsCount);
+        }
+        this.address = address;
+        this.panels = panels;
+        this.floorsCount = floorsCount;
+        this.seed = seed;
+    }
+
+    /**
+     * Connects all panels, sends presses for the given time after they are connected and disconnects.
+     * @return presses sent
+     * @throws UncheckedIOException connection failed
+     */
+    public long run(long durationMillis) throws InterruptedException {
+        final int threads = Math.min(panels, Runtime.getRuntime().availableProcessors());
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "Elevator-call-panel-load");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final SplittableRandom random = new SplittableRandom(seed);
+        try {
+            final List<Future<Long>> sent = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                final int from = panels * thread / threads;
+                final int to = panels * (thread + 1) / threads;
+                final SplittableRandom threadRandom = random.split();
+                sent.add(executor.submit(() -> press(to - from, threadRandom, durationMillis)));
+            }
+            long total = 0;
+            for (Future<Long> future : sent) {
+                total += future.get();
+            }
+            return total;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw (UncheckedIOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long press(int panelsCount, SplittableRandom random, long durationMillis) {
+        final SocketChannel[] channels = new SocketChannel[panelsCount];
+        final ByteBuffer line = ByteBuffer.allocate(MAX_PRESSES_PER_LINE * 8 + 1);
+        long sent = 0;
+        try {
+            for (int panel = 0; panel < panelsCount; panel++) {
+                channels[panel] = SocketChannel.open(address);
+            }
+            final long deadline = System.currentTimeMillis() + durationMillis;
+            while (System.currentTimeMillis() < deadline) {
+                for (SocketChannel channel : channels) {
+                    line.clear();
+                    final int presses = 1 + random.nextInt(MAX_PRESSES_PER_LINE);
+                    for (int press = 0; press < presses; press++) {
+                        putPress(line, 1 + random.nextInt(floorsCount), random.nextBoolean());
+                    }
+                    line.put((byte) '\n');
+                    line.flip();
+                    while (line.hasRemaining()) {
+                        channel.write(line);
+                    }
+                    sent += presses;
+                }
+            }
+            return sent;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Call panel connection to " + address + " failed", e);
+        } finally {
+            for (SocketChannel channel : channels) {
+                if (channel != null) {
+                    try {
+                        channel.close();
+                    } catch (IOException e) {
+                        // closing anyway
+                    }
+                }
+            }
+        }
+    }
+
+    private static void putPress(ByteBuffer line, int floorNumber, boolean inside) {
+        if (line.position() > 0) {
+            line.put((byte) ' ');
+        }
+        if (inside) {
+            line.put((byte) '[');
+        }
+        final int start = line.position();
+        do {
+            line.put((byte) ('0' + floorNumber % 10));
+            floorNumber /= 10;
+        } while (floorNumber > 0);
+        for (int left = start, right = line.position() - 1; left < right; left++, right--) {
+            final byte digit = line.get(left);
+            line.put(left, line.get(right));
+            line.put(right, digit);
+        }
+        if (inside) {
+            line.put((byte) ']');
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package ru.ddg.elevator.net;
+
+import ru.ddg.elevator.controller.ElevatorControls;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TCP endpoint for hall and car call panels, served by one selector thread.
+ *
+ * Panels speak the console language: whitespace separated tokens, a floor number for an outside call
+ * and a floor number in square brackets for an inside call, e.g. {@code "3 [5] 7\n"}.
+ * Tokens are parsed straight from the read buffer, and everything one read brings from a panel is passed
+ * to {@link ElevatorControls#pressButtons(int[], boolean)} as one batch per button kind.
+ * An invalid token is answered with an {@code ERR} line and does not affect the other presses.
+ */
+public class CallPanelServer implements AutoCloseable {
+
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+    private static final int WRITE_BUFFER_SIZE = 1024;
+    private static final int MAX_TOKEN_LENGTH = 16;
+    private static final int MAX_BATCH_SIZE = 256;
+    private static final int ACCEPT_BACKLOG = 1024;
+
+    private final ElevatorControls elevatorControls;
+    private final int floorsCount;
+    private final InetSocketAddress address;
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong ignored = new AtomicLong();
+    private final AtomicLong invalid = new AtomicLong();
+    private final AtomicLong connections = new AtomicLong();
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread selectorThread;
+    private volatile boolean closed;
+
+    /**
+     * @param address where to listen, port 0 picks a free one, see {@link #getLocalAddress()}
+     */
+    public CallPanelServer(ElevatorControls elevatorControls, InetSocketAddress address) {
+        this.elevatorControls = elevatorControls;
+        this.floorsCount = elevatorControls.getFloorsCount();
+        this.address = address;
+    }
+
+    /**
+     * Binds the address and starts accepting panels.
+     * @throws UncheckedIOException the address can not be bound
+     */
+    public void start() {
+        try {
+            selector = Selector.open();
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(address, ACCEPT_BACKLOG);
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not listen for call panels on " + address, e);
+        }
+        selectorThread = new Thread(this::serve, "Elevator-call-panel-server");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    public InetSocketAddress getLocalAddress() {
+        try {
+            return (InetSocketAddress) serverChannel.getLocalAddress();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Presses taken by the elevator.
+     */
+    public long getAcceptedCount() {
+        return accepted.get();
+    }
+
+    /**
+     * Presses of buttons which were already lit or did not fit into the request queue.
+     */
+    public long getIgnoredCount() {
+        return ignored.get();
+    }
+
+    /**
+     * Tokens which are neither a floor nor a floor in brackets, or are out of the floor range.
+     */
+    public long getInvalidCount() {
+        return invalid.get();
+    }
+
+    /**
+     * Panels connected at the moment.
+     */
+    public long getConnectionsCount() {
+        return connections.get();
+    }
+
+    @Override
+    public void close() {
+        if (closed || selector == null) {
+            return;
+        }
+        closed = true;
+        selector.wakeup();
+        try {
+            selectorThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void serve() {
+        try {
+            while (!closed) {
+                selector.select();
+                final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        final Panel panel = (Panel) key.attachment();
+                        if (key.isReadable()) {
+                            panel.read();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            panel.write();
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Call panel server failed", e);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key);
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // nothing to do, the server is going down anyway
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        final SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.register(selector, SelectionKey.OP_READ, new Panel(channel));
+        connections.incrementAndGet();
+    }
+
+    private void closeQuietly(SelectionKey key) {
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // the panel is gone anyway
+        }
+        if (key.attachment() instanceof Panel) {
+            connections.decrementAndGet();
+        }
+        key.cancel();
+    }
+
+    /**
+     * One connected panel: its parser state between reads and the answers it has not taken yet.
+     */
+    private final class Panel {
+
+        private final SocketChannel channel;
+        private final int[] insideFloors = new int[MAX_BATCH_SIZE];
+        private final int[] outsideFloors = new int[MAX_BATCH_SIZE];
+        private final byte[] token = new byte[MAX_TOKEN_LENGTH];
+        private final ByteBuffer answers = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+        private int insideCount;
+        private int outsideCount;
+        private int tokenLength;
+        private int tokenFloor;
+        private boolean tokenValid = true;
+        private boolean tokenInside;
+        private boolean tokenClosed;
+
+        Panel(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void read() {
+            final SelectionKey key = channel.keyFor(selector);
+            int read;
+            try {
+                readBuffer.clear();
+                read = channel.read(readBuffer);
+            } catch (IOException e) {
+                read = -1;
+            }
+            if (read > 0) {
+                readBuffer.flip();
+                while (readBuffer.hasRemaining()) {
+                    parse(readBuffer.get());
+                }
+                flush();
+            } else if (read < 0) {
+                endToken();
+                flush();
+                closeQuietly(key);
+            }
+        }
+
+        void write() {
+            final SelectionKey key = channel.keyFor(selector);
+            answers.flip();
+            try {
+                channel.write(answers);
+            } catch (IOException e) {
+                closeQuietly(key);
+                return;
+            }
+            answers.compact();
+            if (answers.position() == 0) {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        private void parse(byte b) {
+            if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+                endToken();
+                return;
+            }
+            if (tokenLength < MAX_TOKEN_LENGTH) {
+                token[tokenLength] = b;
+            }
+            if (b == '[' && tokenLength == 0) {
+                tokenInside = true;
+            } else if (b == ']' && tokenInside && !tokenClosed && tokenLength > 1) {
+                tokenClosed = true;
+            } else if (b >= '0' && b <= '9' && !tokenClosed) {
+                tokenFloor = tokenFloor * 10 + (b - '0');
+                if (tokenFloor > floorsCount) {
+                    tokenValid = false;
+                    tokenFloor = 0;
+                }
+            } else {
+                tokenValid = false;
+            }
+            tokenLength++;
+        }
+
+        private void endToken() {
+            if (tokenLength == 0) {
+                return;
+            }
+            if (tokenValid && tokenInside == tokenClosed && tokenFloor >= 1) {
+                if (tokenInside) {
+                    insideFloors[insideCount++] = tokenFloor;
+                } else {
+                    outsideFloors[outsideCount++] = tokenFloor;
+                }
+                if (insideCount == insideFloors.length || outsideCount == outsideFloors.length) {
+                    flush();
+                }
+            } else {
+                invalid.incrementAndGet();
+                answer();
+            }
+            tokenLength = 0;
+            tokenFloor = 0;
+            tokenValid = true;
+            tokenInside = false;
+            tokenClosed = false;
+        }
+
+        private void flush() {
+            insideCount = press(insideFloors, insideCount, true);
+            outsideCount = press(outsideFloors, outsideCount, false);
+        }
+
+        private int press(int[] floors, int count, boolean inside) {
+            if (count == 0) {
+                return 0;
+            }
+            final int[] batch = count == floors.length ? floors : Arrays.copyOf(floors, count);
+            final int taken = elevatorControls.pressButtons(batch, inside);
+            accepted.addAndGet(taken);
+            ignored.addAndGet(count - taken);
+            return 0;
+        }
+
+        /**
+         * Queues an error line for the token, dropped if the panel does not read its answers.
+         */
+        private void answer() {
+            final String text = new String(token, 0, Math.min(tokenLength, MAX_TOKEN_LENGTH), StandardCharsets.US_ASCII);
+            final byte[] line = ("ERR Input '" + text + "' is not a floor from 1 to " + floorsCount + "\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            if (answers.remaining() < line.length) {
+                return;
+            }
+            answers.put(line);
+            channel.keyFor(selector).interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package ru.ddg.elevator.net;
+
+import ru.ddg.elevator.controller.ElevatorController;
+import ru.ddg.elevator.controller.ElevatorSnapshot;
+import ru.ddg.elevator.controller.ElevatorState;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live board of the cars for browsers: a server-sent events stream over HTTP, served by one selector thread.
+ *
+ * The board does not listen to the controllers, it reads their {@link ElevatorController#getSnapshot() snapshots}
+ * once per period, so the elevators do the same work for one viewer or for thousands. Cars changed since
+ * the previous period are encoded into one frame, once, and the same bytes are written to every viewer.
+ * A viewer which has not taken its frames stops getting them and is sent the whole board when it catches up,
+ * so it never gets behind by more than a few frames.
+ *
+ * Every car is an event {@code state} with JSON data, e.g.
+ * {@code {"car":0,"floor":3,"position":3.5,"state":"MOVE_UP","doorOpen":false,"inside":[5],"outside":[2]}}.
+ */
+public class StateBoardServer implements AutoCloseable {
+
+    private static final int READ_BUFFER_SIZE = 4 * 1024;
+    private static final int MAX_REQUEST_SIZE = 8 * 1024;
+    private static final int MAX_PENDING_BYTES = 256 * 1024;
+    private static final int ACCEPT_BACKLOG = 1024;
+    private static final byte[] RESPONSE_HEADER = (
+            "HTTP/1.1 200 OK\r\n" +
+            "Content-Type: text/event-stream\r\n" +
+            "Cache-Control: no-cache\r\n" +
+            "Connection: keep-alive\r\n" +
+            "Access-Control-Allow-Origin: *\r\n" +
+            "\r\n"
+    ).getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BAD_REQUEST = (
+            "HTTP/1.1 405 Method Not Allowed\r\nAllow: GET\r\nContent-Length: 0\r\nConnection: close\r\n\r\n"
+    ).getBytes(StandardCharsets.US_ASCII);
+
+    private final List<ElevatorController> cars;
+    private final InetSocketAddress address;
+    private final long periodMillis;
+    private final ElevatorSnapshot[] sent;
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private final AtomicLong viewers = new AtomicLong();
+    private final AtomicLong frames = new AtomicLong();
+    private final AtomicLong skippedFrames = new AtomicLong();
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread selectorThread;
+    private volatile boolean closed;
+
+    /**
+     * @param cars numbered on the board from 0 in the list order
+     * @param address where to listen, port 0 picks a free one, see {@link #getLocalAddress()}
+     * @param periodMillis how often changes are sent, changes within a period are sent together
+     */
+    public StateBoardServer(List<ElevatorController> cars, InetSocketAddress address, long periodMillis) {
+        if (periodMillis < 1) {
+            throw new IllegalArgumentException("The board period should be positive, Input " + periodMillis);
+        }
+        this.cars = List.copyOf(cars);
+        this.address = address;
+        this.periodMillis = periodMillis;
+        this.sent = new ElevatorSnapshot[this.cars.size()];
+    }
+
+    /**
+     * Binds the address and starts serving viewers.
+     * @throws UncheckedIOException the address can not be bound
+     */
+    public void start() {
+        try {
+            selector = Selector.open();
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(address, ACCEPT_BACKLOG);
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not listen for board viewers on " + address, e);
+        }
+        selectorThread = new Thread(this::serve, "Elevator-state-board");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    public InetSocketAddress getLocalAddress() {
+        try {
+            return (InetSocketAddress) serverChannel.getLocalAddress();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Viewers receiving the stream at the moment.
+     */
+    public long getViewersCount() {
+        return viewers.get();
+    }
+
+    /**
+     * Frames of changes encoded, each is written to all viewers.
+     */
+    public long getFramesCount() {
+        return frames.get();
+    }
+
+    /**
+     * Frames not written to viewers which were behind, they got the whole board later instead.
+     */
+    public long getSkippedFramesCount() {
+        return skippedFrames.get();
+    }
+
+    @Override
+    public void close() {
+        if (closed || selector == null) {
+            return;
+        }
+        closed = true;
+        selector.wakeup();
+        try {
+            selectorThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void serve() {
+        try {
+            long nextFrame = System.currentTimeMillis();
+            while (!closed) {
+                final long now = System.currentTimeMillis();
+                if (now >= nextFrame) {
+                    broadcast();
+                    nextFrame = now + periodMillis;
+                }
+                selector.select(Math.max(1, nextFrame - now));
+                final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        final Viewer viewer = (Viewer) key.attachment();
+                        if (key.isReadable()) {
+                            viewer.read();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            viewer.write();
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("State board server failed", e);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key);
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // nothing to do, the server is going down anyway
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        final SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.register(selector, SelectionKey.OP_READ, new Viewer(channel));
+    }
+
+    private void closeQuietly(SelectionKey key) {
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // the viewer is gone anyway
+        }
+        if (key.attachment() instanceof Viewer && ((Viewer) key.attachment()).streaming) {
+            ((Viewer) key.attachment()).streaming = false;
+            viewers.decrementAndGet();
+        }
+        key.cancel();
+    }
+
+    /**
+     * Encodes the changed cars once and writes the frame to every viewer which keeps up,
+     * viewers which caught up after falling behind get the whole board.
+     */
+    private void broadcast() {
+        ByteBuffer changes = null;
+        ByteBuffer board = null;
+        final ElevatorSnapshot[] current = new ElevatorSnapshot[cars.size()];
+        for (int car = 0; car < current.length; car++) {
+            current[car] = cars.get(car).getSnapshot();
+        }
+        for (SelectionKey key : selector.keys()) {
+            if (!(key.attachment() instanceof Viewer) || !key.isValid()) {
+                continue;
+            }
+            final Viewer viewer = (Viewer) key.attachment();
+            if (!viewer.streaming) {
+                continue;
+            }
+            if (viewer.behind) {
+                if (viewer.pendingBytes > 0) {
+                    skippedFrames.incrementAndGet();
+                    continue;
+                }
+                if (board == null) {
+                    board = encode(current, null);
+                }
+                viewer.behind = false;
+                viewer.send(board);
+            } else {
+                if (changes == null) {
+                    changes = encode(current, sent);
+                    if (changes.hasRemaining()) {
+                        frames.incrementAndGet();
+                    }
+                }
+                if (changes.hasRemaining()) {
+                    viewer.send(changes);
+                }
+            }
+        }
+        System.arraycopy(current, 0, sent, 0, current.length);
+    }
+
+    /**
+     * @param previous cars equal to these are left out, all cars if null
+     */
+    private ByteBuffer encode(ElevatorSnapshot[] current, ElevatorSnapshot[] previous) {
+        final StringBuilder frame = new StringBuilder();
+        for (int car = 0; car < current.length; car++) {
+            final ElevatorSnapshot snapshot = current[car];
+            if (previous != null && previous[car] == snapshot && !moving(snapshot)) {
+                continue;
+            }
+            frame.append("event: state\ndata: {\"car\":").append(car)
+                    .append(",\"floor\":").append(snapshot.getFloor())
+                    .append(",\"position\":")
+                    .append(String.format(Locale.ROOT, "%.2f", snapshot.getPositionAt(cars.get(car).currentTimeMillis())))
+                    .append(",\"state\":\"").append(snapshot.getState())
+                    .append("\",\"doorOpen\":").append(snapshot.isDoorOpen())
+                    .append(",\"inside\":");
+            appendFloors(frame, snapshot.getInsideCalls());
+            frame.append(",\"outside\":");
+            appendFloors(frame, snapshot.getOutsideCalls());
+            frame.append("}\n\n");
+        }
+        return ByteBuffer.wrap(frame.toString().getBytes(StandardCharsets.US_ASCII)).asReadOnlyBuffer();
+    }
+
+    /**
+     * A moving car changes its position without new snapshots.
+     */
+    private static boolean moving(ElevatorSnapshot snapshot) {
+        return !snapshot.isDoorOpen()
+                && (snapshot.getState() == ElevatorState.MOVE_UP || snapshot.getState() == ElevatorState.MOVE_DOWN);
+    }
+
+    private static void appendFloors(StringBuilder frame, int[] floors) {
+        frame.append('[');
+        for (int i = 0; i < floors.length; i++) {
+            if (i > 0) {
+                frame.append(',');
+            }
+            frame.append(floors[i]);
+        }
+        frame.append(']');
+    }
+
+    /**
+     * One connected browser: its request until the stream starts, then the frames it has not taken yet.
+     */
+    private final class Viewer {
+
+        private final SocketChannel channel;
+        private final StringBuilder request = new StringBuilder();
+        private final ArrayDeque<ByteBuffer> pending = new ArrayDeque<>();
+        private int pendingBytes;
+        private boolean streaming;
+        private boolean behind = true;
+
+        Viewer(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void read() {
+            final SelectionKey key = channel.keyFor(selector);
+            int read;
+            try {
+                readBuffer.clear();
+                read = channel.read(readBuffer);
+            } catch (IOException e) {
+                read = -1;
+            }
+            if (read < 0) {
+                closeQuietly(key);
+                return;
+            }
+            if (streaming) {
+                return;
+            }
+            request.append(new String(readBuffer.array(), 0, read, StandardCharsets.US_ASCII));
+            if (request.length() > MAX_REQUEST_SIZE) {
+                closeQuietly(key);
+            } else if (request.indexOf("\r\n\r\n") >= 0 || request.indexOf("\n\n") >= 0) {
+                if (request.indexOf("GET ") == 0) {
+                    streaming = true;
+                    viewers.incrementAndGet();
+                    send(ByteBuffer.wrap(RESPONSE_HEADER));
+                } else {
+                    send(ByteBuffer.wrap(BAD_REQUEST));
+                    closeQuietly(key);
+                }
+            }
+        }
+
+        /**
+         * Writes what the socket takes now, the rest when it is writable again.
+         * @param frame shared by all viewers, not changed
+         */
+        void send(ByteBuffer frame) {
+            final ByteBuffer own = frame.duplicate();
+            if (pending.isEmpty()) {
+                try {
+                    channel.write(own);
+                } catch (IOException e) {
+                    closeQuietly(channel.keyFor(selector));
+                    return;
+                }
+            }
+            if (!own.hasRemaining()) {
+                return;
+            }
+            pending.add(own);
+            pendingBytes += own.remaining();
+            if (pendingBytes > MAX_PENDING_BYTES) {
+                behind = true;
+            }
+            final SelectionKey key = channel.keyFor(selector);
+            if (key.isValid()) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        }
+
+        void write() {
+            final SelectionKey key = channel.keyFor(selector);
+            try {
+                while (!pending.isEmpty()) {
+                    final ByteBuffer frame = pending.peek();
+                    final int before = frame.remaining();
+                    channel.write(frame);
+                    pendingBytes -= before - frame.remaining();
+                    if (frame.hasRemaining()) {
+                        return;
+                    }
+                    pending.poll();
+                }
+            } catch (IOException e) {
+                closeQuietly(key);
+                return;
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package ru.ddg.elevator.scheduler;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Real time scheduler running all its tasks on one thread, an event loop for a shard of controllers.
+ *
+ * Tasks scheduled from the loop itself, which is what controllers do between their steps, go straight into
+ * the timer queue the loop owns. Tasks from other threads, e.g. a wake up after a button press, go through
+ * a lock-free inbox and unpark the loop. Nothing is locked on either path.
+ *
+ * The loop counts tasks and the time spent in them, see {@link #getBusyNanos()}.
+ */
+public class EventLoopScheduler implements Scheduler, AutoCloseable {
+
+    private final PriorityQueue<Timer> timers = new PriorityQueue<>();
+    private final ConcurrentLinkedQueue<Timer> inbox = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private long sequence;
+    private volatile long tasksCount;
+    private volatile long busyNanos;
+    private volatile int pendingCount;
+    private volatile boolean parked;
+    private volatile boolean closed;
+
+    /**
+     * Starts the loop thread.
+     */
+    public EventLoopScheduler(String threadName) {
+        this.thread = new Thread(this::loop, threadName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public void schedule(long delayMillis, Runnable task) {
+        final Timer timer = new Timer(System.currentTimeMillis() + Math.max(0, delayMillis), task);
+        if (Thread.currentThread() == thread) {
+            add(timer);
+            return;
+        }
+        inbox.offer(timer);
+        if (parked) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Tasks executed so far.
+     */
+    public long getTasksCount() {
+        return tasksCount;
+    }
+
+    /**
+     * Time spent executing tasks, the rest of the time the loop is waiting.
+     */
+    public long getBusyNanos() {
+        return busyNanos;
+    }
+
+    /**
+     * Tasks waiting for their time as of the last loop turn.
+     */
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    /**
+     * Stops the loop, scheduled tasks are dropped.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(thread);
+    }
+
+    private void add(Timer timer) {
+        timer.sequence = sequence++;
+        timers.add(timer);
+    }
+
+    private void loop() {
+        while (!closed) {
+            Timer received;
+            while ((received = inbox.poll()) != null) {
+                add(received);
+            }
+            final Timer next = timers.peek();
+            final long now = System.currentTimeMillis();
+            if (next != null && next.time <= now) {
+                timers.poll();
+                run(next.task);
+                continue;
+            }
+            pendingCount = timers.size();
+            parked = true;
+            if (inbox.isEmpty()) {
+                if (next == null) {
+                    LockSupport.park(this);
+                } else {
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(next.time - now));
+                }
+            }
+            parked = false;
+        }
+    }
+
+    private void run(Runnable task) {
+        final long start = System.nanoTime();
+        try {
+            task.run();
+        } catch (RuntimeException | Error e) {
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+        busyNanos += System.nanoTime() - start;
+        tasksCount++;
+    }
+
+
+    private static final class Timer implements Comparable<Timer> {
+        private final long time;
+        private final Runnable task;
+        private long sequence;
+
+        private Timer(long time, Runnable task) {
+            this.time = time;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(Timer other) {
+            final int byTime = Long.compare(time, other.time);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package ru.ddg.elevator.scheduler;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks on a wall clock using a small pool of carrier threads.
+ *
+ * One scheduler can be shared by any number of controllers: a controller never blocks a carrier thread,
+ * and it never has more than one pending step, so its steps do not run concurrently.
+ */
+public class RealTimeScheduler implements Scheduler {
+
+    private final ScheduledExecutorService executor;
+
+    /**
+     * Scheduler with a pool of daemon carrier threads.
+     * @param threadNamePrefix carrier threads are named prefix-1, prefix-2, ...
+     * @param threads number of carrier threads
+     */
+    public RealTimeScheduler(String threadNamePrefix, int threads) {
+        final AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newScheduledThreadPool(threads, task -> {
+            Thread thread = new Thread(task, threadNamePrefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Scheduler shared by all controllers of the JVM, one carrier thread per core.
+     */
+    public static RealTimeScheduler shared() {
+        return Shared.INSTANCE;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public void schedule(long delayMillis, Runnable task) {
+        try {
+            executor.schedule(() -> run(task), delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // scheduler is shut down, nothing is going to run anymore
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static void run(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException | Error e) {
+            // executor would swallow it silently
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+
+
+    private static class Shared {
+        private static final RealTimeScheduler INSTANCE = new RealTimeScheduler(
+                "Elevator-scheduler", Runtime.getRuntime().availableProcessors()
+        );
+    }
+}
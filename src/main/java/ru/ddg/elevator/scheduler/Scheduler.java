@@ -0,0 +1,20 @@
+package ru.ddg.elevator.scheduler;
+
+/**
+ * Source of time and delayed execution for the elevator controller.
+ */
+public interface Scheduler {
+
+    /**
+     * Current time as seen by this scheduler.
+     * @return time in milliseconds
+     */
+    long currentTimeMillis();
+
+    /**
+     * Runs the task once after the given delay.
+     * @param delayMillis delay in milliseconds, 0 to run as soon as possible
+     * @param task what to run
+     */
+    void schedule(long delayMillis, Runnable task);
+}
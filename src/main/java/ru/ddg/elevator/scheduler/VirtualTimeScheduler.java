@@ -0,0 +1,108 @@
+package ru.ddg.elevator.scheduler;
+
+import java.util.PriorityQueue;
+
+/**
+ * Discrete-event scheduler: time does not flow by itself, it jumps from one scheduled event to the next
+ * when one of the {@code run*} methods is called. Simulating hours of elevator work takes milliseconds.
+ *
+ * Tasks are executed on the thread calling {@code run*}, events with the same time in scheduling order.
+ */
+public class VirtualTimeScheduler implements Scheduler {
+
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private long now;
+    private long sequence;
+
+    public VirtualTimeScheduler() {
+        this(0);
+    }
+
+    public VirtualTimeScheduler(long startTimeMillis) {
+        this.now = startTimeMillis;
+    }
+
+    @Override
+    public synchronized long currentTimeMillis() {
+        return now;
+    }
+
+    @Override
+    public synchronized void schedule(long delayMillis, Runnable task) {
+        events.add(new Event(now + Math.max(0, delayMillis), sequence++, task));
+    }
+
+    /**
+     * Executes all events due up to the given time and moves the clock there.
+     * @param timeMillis time to stop at
+     * @return number of executed events
+     */
+    public int runUntil(long timeMillis) {
+        int executed = 0;
+        Runnable task;
+        while ((task = poll(timeMillis)) != null) {
+            task.run();
+            executed++;
+        }
+        synchronized (this) {
+            now = Math.max(now, timeMillis);
+        }
+        return executed;
+    }
+
+    /**
+     * Executes all events due within the given duration from now.
+     * @param durationMillis how long to simulate
+     * @return number of executed events
+     */
+    public int runFor(long durationMillis) {
+        return runUntil(currentTimeMillis() + durationMillis);
+    }
+
+    /**
+     * Executes events until there is nothing scheduled, the clock stays at the last event.
+     * @return number of executed events
+     */
+    public int runUntilIdle() {
+        int executed = 0;
+        Runnable task;
+        while ((task = poll(Long.MAX_VALUE)) != null) {
+            task.run();
+            executed++;
+        }
+        return executed;
+    }
+
+    public synchronized boolean isIdle() {
+        return events.isEmpty();
+    }
+
+    private synchronized Runnable poll(long limitMillis) {
+        Event event = events.peek();
+        if (event == null || event.time > limitMillis) {
+            return null;
+        }
+        events.poll();
+        now = event.time;
+        return event.task;
+    }
+
+
+    private static class Event implements Comparable<Event> {
+        private final long time;
+        private final long sequence;
+        private final Runnable task;
+
+        private Event(long time, long sequence, Runnable task) {
+            this.time = time;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            int byTime = Long.compare(time, other.time);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,446 @@
+package ru.ddg.elevator.simulation;
+
+import ru.ddg.elevator.controller.ControllerProps;
+import ru.ddg.elevator.controller.DispatchPolicy;
+import ru.ddg.elevator.controller.ElevatorController;
+import ru.ddg.elevator.controller.ElevatorListener;
+import ru.ddg.elevator.controller.ElevatorState;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * Many independent cars of the same kind in virtual time, for studies where an {@link ElevatorController}
+ * and its objects per car do not fit into memory.
+ *
+ * The state of car i is the i-th element of a few primitive arrays: the floor, the motion, the last direction,
+ * the next event, lit buttons inside and outside as bits of a long, and presses not collected yet.
+ * Next events sit in a timing wheel of one slot per millisecond, linked through an int array, so a car costs
+ * about fifty bytes and no objects. All cars due at the same millisecond are stepped as one batch.
+ *
+ * A car makes the same steps as the controller with a uniform speed and calls its listener with the same events
+ * at the same times: presses are taken at the same points, a car passes a floor pressed after it has left
+ * the previous one, and so on. Only the dispatch policies which look at the lit floors alone are supported,
+ * i.e. {@link DispatchPolicy#LOOK}, {@link DispatchPolicy#SCAN} and {@link DispatchPolicy#NEAREST}.
+ *
+ * Not thread safe: presses and runs come from one thread, listeners may press buttons.
+ */
+public class FleetSimulation {
+
+    /**
+     * Floors of a car are bits 1 to 63 of a long.
+     */
+    public static final int MAX_FLOORS = 63;
+
+    private static final byte IDLE = (byte) ElevatorState.IDLE.ordinal();
+    private static final byte SELECT_DIRECTION = (byte) ElevatorState.SELECT_DIRECTION.ordinal();
+    private static final byte MOVE_UP = (byte) ElevatorState.MOVE_UP.ordinal();
+    private static final byte MOVE_DOWN = (byte) ElevatorState.MOVE_DOWN.ordinal();
+    private static final ElevatorState[] STATES = ElevatorState.values();
+
+    // next event of a car
+    private static final byte WAITING = 0;
+    private static final byte STEPPING = 1;
+    private static final byte BEGIN = 2;
+    private static final byte WAKE_UP = 3;
+    private static final byte ARRIVE = 4;
+    private static final byte DOOR_CLOSED = 5;
+
+    private static final int NO_CAR = -1;
+
+    private final int carsCount;
+    private final int floorsCount;
+    private final int floorTravelTimeMillis;
+    private final int doorOpenCloseTimeMillis;
+    private final DispatchPolicy policy;
+
+    private final int[] floor;
+    private final byte[] state;
+    private final byte[] lastDirection;
+    private final byte[] event;
+    private final long[] insideCalls;
+    private final long[] outsideCalls;
+    private final long[] insidePresses;
+    private final long[] outsidePresses;
+
+    private final int[] wheel;
+    private final int wheelMask;
+    private final int[] nextInSlot;
+    private int scheduledCount;
+
+    private Listener listener = Listener.NOOP;
+    private long nowMillis;
+    private long stepsCount;
+    private boolean started;
+
+    /**
+     * @param props the same for all cars, the speed should be uniform
+     * @throws IllegalArgumentException unsupported settings
+     */
+    public FleetSimulation(ControllerProps props, int carsCount) {
+        if (carsCount < 1) {
+            throw new IllegalArgumentException("Cars count should be positive, Input " + carsCount);
+        }
+        if (props.getFloorsCount() < 2 || props.getFloorsCount() > MAX_FLOORS) {
+            throw new IllegalArgumentException(
+                    "Floors count should be from 2 to " + MAX_FLOORS + ", Input " + props.getFloorsCount()
+            );
+        }
+        if (props.getAccelerationCentimetersPerSecondSquared() != 0) {
+            throw new IllegalArgumentException("Acceleration should be 0, cars move at a uniform speed, Input "
+                    + props.getAccelerationCentimetersPerSecondSquared() / 100f);
+        }
+        final DispatchPolicy dispatchPolicy = props.getDispatchPolicy();
+        if (dispatchPolicy != DispatchPolicy.LOOK && dispatchPolicy != DispatchPolicy.SCAN
+                && dispatchPolicy != DispatchPolicy.NEAREST) {
+            throw new IllegalArgumentException(
+                    "Dispatch policy should be LOOK, SCAN or NEAREST, Input " + dispatchPolicy
+            );
+        }
+        this.carsCount = carsCount;
+        this.floorsCount = props.getFloorsCount();
+        this.floorTravelTimeMillis = props.getFloorTravelTimeMillis();
+        this.doorOpenCloseTimeMillis = props.getDoorOpenCloseTimeMillis();
+        this.policy = dispatchPolicy;
+
+        this.floor = new int[carsCount];
+        Arrays.fill(floor, props.getCurrentFloor());
+        this.state = new byte[carsCount];
+        this.lastDirection = new byte[carsCount];
+        Arrays.fill(lastDirection, MOVE_UP);
+        this.event = new byte[carsCount];
+        this.insideCalls = new long[carsCount];
+        this.outsideCalls = new long[carsCount];
+        this.insidePresses = new long[carsCount];
+        this.outsidePresses = new long[carsCount];
+
+        // every event is due within one turn of the wheel, so a slot holds only cars due right now
+        int slots = 1;
+        while (slots <= Math.max(floorTravelTimeMillis, doorOpenCloseTimeMillis)) {
+            slots <<= 1;
+        }
+        this.wheel = new int[slots];
+        Arrays.fill(wheel, NO_CAR);
+        this.wheelMask = slots - 1;
+        this.nextInSlot = new int[carsCount];
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener == null ? Listener.NOOP : listener;
+    }
+
+    /**
+     * Every car reports its floor at the current time, like a started controller.
+     */
+    public void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        for (int car = 0; car < carsCount; car++) {
+            schedule(car, 0, BEGIN);
+        }
+    }
+
+    /**
+     * Button inside the car.
+     * @return false if the button is lit already
+     */
+    public boolean insideButtonPressed(int car, int floorNumber) {
+        return press(car, floorNumber, insideCalls, insidePresses);
+    }
+
+    /**
+     * Hall button, every car has a hall of its own.
+     * @return false if the button is lit already
+     */
+    public boolean outsideButtonPressed(int car, int floorNumber) {
+        return press(car, floorNumber, outsideCalls, outsidePresses);
+    }
+
+    /**
+     * Steps all cars due until the given time inclusive and leaves the clock there.
+     * @return steps made
+     */
+    public long runUntil(long timeMillis) {
+        final long before = stepsCount;
+        while (true) {
+            stepSlot();
+            if (nowMillis >= timeMillis) {
+                return stepsCount - before;
+            }
+            nowMillis = scheduledCount == 0 ? timeMillis : nowMillis + 1;
+        }
+    }
+
+    public long runFor(long durationMillis) {
+        return runUntil(nowMillis + durationMillis);
+    }
+
+    public long currentTimeMillis() {
+        return nowMillis;
+    }
+
+    public int getCarsCount() {
+        return carsCount;
+    }
+
+    public int getFloorsCount() {
+        return floorsCount;
+    }
+
+    /**
+     * Steps of all cars so far.
+     */
+    public long getStepsCount() {
+        return stepsCount;
+    }
+
+    /**
+     * Floor the car stands at or has left last.
+     */
+    public int getFloor(int car) {
+        return floor[car];
+    }
+
+    public ElevatorState getState(int car) {
+        return STATES[state[car]];
+    }
+
+    public boolean isDoorOpen(int car) {
+        return event[car] == DOOR_CLOSED;
+    }
+
+    /**
+     * @return whether the car has a collected call to the floor, from inside or outside
+     */
+    public boolean isCalled(int car, int floorNumber) {
+        return ((insideCalls[car] | outsideCalls[car]) & 1L << floorNumber) != 0;
+    }
+
+    private boolean press(int car, int floorNumber, long[] calls, long[] presses) {
+        if (car < 0 || car >= carsCount) {
+            throw new IllegalArgumentException("The car should be from 0 to " + (carsCount - 1) + ", Input " + car);
+        }
+        if (floorNumber < 1 || floorNumber > floorsCount) {
+            throw new IllegalArgumentException(
+                    "The floor number should be from 1 to " + floorsCount + ", Input " + floorNumber
+            );
+        }
+        final long bit = 1L << floorNumber;
+        if (((calls[car] | presses[car]) & bit) != 0) {
+            return false;
+        }
+        presses[car] |= bit;
+        if (event[car] == WAITING && started) {
+            schedule(car, 0, WAKE_UP);
+        }
+        return true;
+    }
+
+    private void schedule(int car, long delayMillis, byte next) {
+        final int slot = (int) (nowMillis + delayMillis) & wheelMask;
+        event[car] = next;
+        nextInSlot[car] = wheel[slot];
+        wheel[slot] = car;
+        scheduledCount++;
+    }
+
+    /**
+     * Steps the cars due now, including those which became due while stepping.
+     */
+    private void stepSlot() {
+        final int slot = (int) nowMillis & wheelMask;
+        int car;
+        while ((car = wheel[slot]) != NO_CAR) {
+            wheel[slot] = nextInSlot[car];
+            scheduledCount--;
+            final byte due = event[car];
+            event[car] = STEPPING;
+            stepsCount++;
+            if (due == BEGIN) {
+                listener.atFloor(car, floor[car]);
+                enterIdle(car);
+            } else if (due == WAKE_UP) {
+                collect(car);
+                selectDirection(car);
+            } else if (due == ARRIVE) {
+                arrive(car);
+            } else if (due == DOOR_CLOSED) {
+                onDoorClosed(car);
+            }
+        }
+    }
+
+    private void enterIdle(int car) {
+        state[car] = IDLE;
+        event[car] = WAITING;
+        if ((insidePresses[car] | outsidePresses[car]) != 0) {
+            schedule(car, 0, WAKE_UP);
+        }
+    }
+
+    private void collect(int car) {
+        insideCalls[car] |= insidePresses[car];
+        outsideCalls[car] |= outsidePresses[car];
+        insidePresses[car] = 0;
+        outsidePresses[car] = 0;
+    }
+
+    private void selectDirection(int car) {
+        state[car] = SELECT_DIRECTION;
+        final long calls = insideCalls[car] | outsideCalls[car];
+        if (calls == 0) {
+            enterIdle(car);
+            return;
+        }
+        final int current = floor[car];
+        final int floorToGo = selectFloor(calls, current, lastDirection[car]);
+        if (floorToGo == current) {
+            serve(car);
+            openDoor(car);
+        } else {
+            final byte direction = floorToGo < current ? MOVE_DOWN : MOVE_UP;
+            state[car] = direction;
+            lastDirection[car] = direction;
+            move(car);
+        }
+    }
+
+    private int selectFloor(long calls, int current, byte direction) {
+        if ((calls & 1L << current) != 0) {
+            return current;
+        }
+        if (policy == DispatchPolicy.NEAREST) {
+            return nearestIsAbove(calls, current) ? above(calls, current) : below(calls, current);
+        }
+        final int ahead = direction == MOVE_DOWN ? below(calls, current) : above(calls, current);
+        final int floorToGo = ahead != 0 ? ahead
+                : direction == MOVE_DOWN ? above(calls, current) : below(calls, current);
+        if (policy == DispatchPolicy.SCAN) {
+            return floorToGo > current ? floorsCount : 1;
+        }
+        return floorToGo;
+    }
+
+    private boolean keepMoving(long calls, int current, byte direction) {
+        if (policy == DispatchPolicy.SCAN) {
+            return calls != 0 && (direction == MOVE_UP ? current < floorsCount : current > 1);
+        }
+        if (policy == DispatchPolicy.NEAREST) {
+            final boolean nearestAbove = nearestIsAbove(calls, current);
+            return direction == MOVE_UP
+                    ? above(calls, current) != 0 && nearestAbove
+                    : below(calls, current) != 0 && !nearestAbove;
+        }
+        return (direction == MOVE_UP ? above(calls, current) : below(calls, current)) != 0;
+    }
+
+    private void move(int car) {
+        final long calls = insideCalls[car] | outsideCalls[car];
+        final int current = floor[car];
+        final byte direction = state[car];
+        final boolean canGo = direction == MOVE_UP ? current < floorsCount : current > 1;
+        if (canGo && keepMoving(calls, current, direction)) {
+            schedule(car, floorTravelTimeMillis, ARRIVE);
+        } else if (calls == 0) {
+            enterIdle(car);
+        } else {
+            selectDirection(car);
+        }
+    }
+
+    /**
+     * Calls are checked before the presses made on the way are collected, as the controller does.
+     */
+    private void arrive(int car) {
+        floor[car] += state[car] == MOVE_UP ? 1 : -1;
+        listener.atFloor(car, floor[car]);
+        if (isCalled(car, floor[car])) {
+            serve(car);
+            openDoor(car);
+        } else {
+            collect(car);
+            move(car);
+        }
+    }
+
+    private void serve(int car) {
+        final long bit = 1L << floor[car];
+        insideCalls[car] &= ~bit;
+        outsideCalls[car] &= ~bit;
+    }
+
+    private void openDoor(int car) {
+        listener.doorOpening(car);
+        schedule(car, doorOpenCloseTimeMillis, DOOR_CLOSED);
+    }
+
+    private void onDoorClosed(int car) {
+        listener.doorClosed(car);
+        if (state[car] == MOVE_UP || state[car] == MOVE_DOWN) {
+            collect(car);
+            move(car);
+        } else {
+            selectDirection(car);
+        }
+    }
+
+    private static int above(long calls, int current) {
+        if (current >= MAX_FLOORS) {
+            return 0;
+        }
+        final long higher = calls & -1L << current + 1;
+        return higher == 0 ? 0 : Long.numberOfTrailingZeros(higher);
+    }
+
+    private static int below(long calls, int current) {
+        final long lower = calls & (1L << current) - 1;
+        return lower == 0 ? 0 : 63 - Long.numberOfLeadingZeros(lower);
+    }
+
+    private static boolean nearestIsAbove(long calls, int current) {
+        final int above = above(calls, current);
+        final int below = below(calls, current);
+        return above != 0 && (below == 0 || above - current <= current - below);
+    }
+
+    /**
+     * Events of the cars, the same as {@link ElevatorListener} events of their controllers.
+     */
+    public interface Listener {
+
+        void atFloor(int car, int floorNumber);
+
+        void doorOpening(int car);
+
+        void doorClosed(int car);
+
+        /**
+         * Null-object.
+         */
+        Listener NOOP = of(car -> ElevatorListener.NOOP);
+
+        /**
+         * Passes the events to a listener per car.
+         */
+        static Listener of(IntFunction<ElevatorListener> listeners) {
+            return new Listener() {
+                @Override
+                public void atFloor(int car, int floorNumber) {
+                    listeners.apply(car).atFloor(floorNumber);
+                }
+
+                @Override
+                public void doorOpening(int car) {
+                    listeners.apply(car).doorOpening();
+                }
+
+                @Override
+                public void doorClosed(int car) {
+                    listeners.apply(car).doorClosed();
+                }
+            };
+        }
+    }
+}
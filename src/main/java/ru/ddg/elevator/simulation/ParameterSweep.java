@@ -0,0 +1,168 @@
+package ru.ddg.elevator.simulation;
+
+import ru.ddg.elevator.controller.ControllerProps;
+import ru.ddg.elevator.controller.DispatchPolicy;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Monte-Carlo sweep over elevator settings: every combination of floors count, speed, door time, dispatch policy
+ * and cars count is simulated in virtual time a number of times, each run with its own seeded traffic,
+ * and wait and ride times are aggregated per combination.
+ *
+ * Runs are independent and spread over a fork/join pool. Run number i gets the same traffic seed
+ * in every combination, so combinations are compared on the same passengers.
+ */
+public class ParameterSweep {
+
+    private final ControllerProps baseProps;
+    private final TrafficModel traffic;
+    private final int runsPerCombination;
+    private final long seed;
+    private int[] floorsCounts;
+    private float[] liftSpeedsMetersPerSecond;
+    private int[] doorOpenCloseTimesMillis;
+    private DispatchPolicy[] dispatchPolicies;
+    private int[] carsCounts = {1};
+
+    /**
+     * Dimensions which are not set keep the value of the base settings, a dimension set needs a value at least.
+     * @param baseProps settings for everything which is not swept
+     * @param runsPerCombination simulations per parameter combination
+     * @param seed seed of the whole sweep
+     */
+    public ParameterSweep(ControllerProps baseProps, TrafficModel traffic, int runsPerCombination, long seed) {
+        if (runsPerCombination < 1) {
+            throw new IllegalArgumentException("Runs count should be positive, Input " + runsPerCombination);
+        }
+        this.baseProps = baseProps;
+        this.traffic = traffic;
+        this.runsPerCombination = runsPerCombination;
+        this.seed = seed;
+        this.floorsCounts = new int[]{baseProps.getFloorsCount()};
+        this.liftSpeedsMetersPerSecond = new float[]{baseProps.getLiftSpeedCentimetersPerSecond() / 100f};
+        this.doorOpenCloseTimesMillis = new int[]{baseProps.getDoorOpenCloseTimeMillis()};
+        this.dispatchPolicies = new DispatchPolicy[]{baseProps.getDispatchPolicy()};
+    }
+
+    public void setFloorsCounts(int... floorsCounts) {
+        assertNotEmpty(floorsCounts.length, "Floors counts");
+        this.floorsCounts = floorsCounts.clone();
+    }
+
+    public void setLiftSpeedsMetersPerSecond(float... liftSpeedsMetersPerSecond) {
+        assertNotEmpty(liftSpeedsMetersPerSecond.length, "Lift speeds");
+        this.liftSpeedsMetersPerSecond = liftSpeedsMetersPerSecond.clone();
+    }
+
+    public void setDoorOpenCloseTimesMillis(int... doorOpenCloseTimesMillis) {
+        assertNotEmpty(doorOpenCloseTimesMillis.length, "Door times");
+        this.doorOpenCloseTimesMillis = doorOpenCloseTimesMillis.clone();
+    }
+
+    public void setDispatchPolicies(DispatchPolicy... dispatchPolicies) {
+        assertNotEmpty(dispatchPolicies.length, "Dispatch policies");
+        this.dispatchPolicies = dispatchPolicies.clone();
+    }
+
+    public void setCarsCounts(int... carsCounts) {
+        assertNotEmpty(carsCounts.length, "Cars counts");
+        this.carsCounts = carsCounts.clone();
+    }
+
+    /**
+     * Runs all simulations in the pool and waits for them.
+     * @return one result per combination, in the order of the dimensions
+     */
+    public List<SweepResult> run(ForkJoinPool pool) {
+        final List<SweepResult> results = new ArrayList<>();
+        for (int floorsCount : floorsCounts) {
+            for (float speed : liftSpeedsMetersPerSecond) {
+                for (int doorTime : doorOpenCloseTimesMillis) {
+                    for (DispatchPolicy policy : dispatchPolicies) {
+                        for (int carsCount : carsCounts) {
+                            results.add(new SweepResult(floorsCount, speed, doorTime, policy, carsCount));
+                        }
+                    }
+                }
+            }
+        }
+        final long[] runSeeds = new long[runsPerCombination];
+        final SplittableRandom random = new SplittableRandom(seed);
+        for (int run = 0; run < runsPerCombination; run++) {
+            runSeeds[run] = random.nextLong();
+        }
+        pool.invoke(new Runs(results, runSeeds, 0, results.size() * runsPerCombination));
+        return results;
+    }
+
+    /**
+     * Writes results as CSV with a header line, times in milliseconds.
+     */
+    public static void writeCsv(List<SweepResult> results, Writer writer) throws IOException {
+        writer.write(SweepResult.CSV_HEADER);
+        writer.write('\n');
+        for (SweepResult result : results) {
+            writer.write(result.toCsvRow());
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    private static void assertNotEmpty(int valuesCount, String dimension) {
+        if (valuesCount == 0) {
+            throw new IllegalArgumentException(dimension + " should have at least one value, Input none");
+        }
+    }
+
+    private SimulationReport simulate(SweepResult combination, long runSeed) {
+        final ControllerProps props = new ControllerProps(baseProps);
+        props.setFloorsCount(combination.getFloorsCount());
+        props.setCurrentFloor(Math.min(props.getCurrentFloor(), combination.getFloorsCount()));
+        props.setLiftSpeedMetersPerSecond(combination.getLiftSpeedMetersPerSecond());
+        props.setDoorOpenCloseTimeMillis(combination.getDoorOpenCloseTimeMillis());
+        props.setDispatchPolicy(combination.getDispatchPolicy());
+        return new PassengerSimulation(props, 0, combination.getCarsCount())
+                .run(traffic.passengers(combination.getFloorsCount(), runSeed));
+    }
+
+    /**
+     * Runs from the range, split in halves until one is left.
+     */
+    private final class Runs extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<SweepResult> results;
+        private final long[] runSeeds;
+        private final int from;
+        private final int to;
+
+        Runs(List<SweepResult> results, long[] runSeeds, int from, int to) {
+            this.results = results;
+            this.runSeeds = runSeeds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from < 1) {
+                return;
+            }
+            if (to - from == 1) {
+                final SweepResult combination = results.get(from / runsPerCombination);
+                combination.add(simulate(combination, runSeeds[from % runsPerCombination]));
+                return;
+            }
+            final int middle = (from + to) >>> 1;
+            invokeAll(new Runs(results, runSeeds, from, middle), new Runs(results, runSeeds, middle, to));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package ru.ddg.elevator.simulation;
+
+/**
+ * One trip: a passenger appears at the origin floor, calls the elevator and rides to the destination.
+ */
+public class Passenger {
+
+    private final long arrivalTimeMillis;
+    private final int originFloor;
+    private final int destinationFloor;
+    private long boardingTimeMillis;
+
+    public Passenger(long arrivalTimeMillis, int originFloor, int destinationFloor) {
+        this.arrivalTimeMillis = arrivalTimeMillis;
+        this.originFloor = originFloor;
+        this.destinationFloor = destinationFloor;
+    }
+
+    public long getArrivalTimeMillis() {
+        return arrivalTimeMillis;
+    }
+
+    public int getOriginFloor() {
+        return originFloor;
+    }
+
+    public int getDestinationFloor() {
+        return destinationFloor;
+    }
+
+    long getBoardingTimeMillis() {
+        return boardingTimeMillis;
+    }
+
+    void setBoardingTimeMillis(long boardingTimeMillis) {
+        this.boardingTimeMillis = boardingTimeMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "Passenger{" +
+                "arrivalTimeMillis=" + arrivalTimeMillis +
+                ", originFloor=" + originFloor +
+                ", destinationFloor=" + destinationFloor +
+                '}';
+    }
+}
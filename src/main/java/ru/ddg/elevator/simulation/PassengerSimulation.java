@@ -0,0 +1,157 @@
+package ru.ddg.elevator.simulation;
+
+import ru.ddg.elevator.controller.ControllerProps;
+import ru.ddg.elevator.controller.DemandModel;
+import ru.ddg.elevator.controller.ElevatorController;
+import ru.ddg.elevator.controller.ElevatorListener;
+import ru.ddg.elevator.controller.GroupDispatcher;
+import ru.ddg.elevator.metrics.LatencyHistogram;
+import ru.ddg.elevator.model.BasicElevator;
+import ru.ddg.elevator.scheduler.VirtualTimeScheduler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Runs passengers through an {@link ElevatorController} or a {@link GroupDispatcher group} of them in virtual time.
+ *
+ * A passenger calls an elevator from the origin floor on arrival, boards the first car which opens its door there
+ * and presses the destination button inside. Passengers are taken from the iterator one at a time,
+ * right before they arrive, so a trace of any length needs memory only for people in the building.
+ */
+public class PassengerSimulation {
+
+    private final VirtualTimeScheduler scheduler;
+    private final List<ElevatorController> cars = new ArrayList<>();
+    private final GroupDispatcher group;
+    private final ArrayDeque<Passenger>[] waitingAt;
+    private final ArrayDeque<Passenger>[][] ridingTo;
+    private final int[] currentFloor;
+    private final LatencyHistogram waitTimes = new LatencyHistogram();
+    private final LatencyHistogram rideTimes = new LatencyHistogram();
+    private final Runnable arrivalTask = this::onArrival;
+
+    private Iterator<Passenger> passengers;
+    private Passenger arriving;
+    private long passengersCount;
+    private long lastDoorClosedMillis;
+
+    public PassengerSimulation(ControllerProps props) {
+        this(props, 0);
+    }
+
+    /**
+     * @param startTimeMillis virtual time when the elevator starts
+     */
+    public PassengerSimulation(ControllerProps props, long startTimeMillis) {
+        this(props, startTimeMillis, 1);
+    }
+
+    /**
+     * @param startTimeMillis virtual time when the elevators start
+     * @param carsCount elevators in the group, all start from {@link ControllerProps#getCurrentFloor()}
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public PassengerSimulation(ControllerProps props, long startTimeMillis, int carsCount) {
+        this.scheduler = new VirtualTimeScheduler(startTimeMillis);
+        for (int car = 0; car < carsCount; car++) {
+            cars.add(new ElevatorController(new BasicElevator(), props, scheduler));
+        }
+        this.group = new GroupDispatcher(
+                cars, scheduler, props.getFloorTravelTimeMillis(), props.getFloorTravelTimeMillis()
+        );
+        this.waitingAt = new ArrayDeque[props.getFloorsCount() + 1];
+        this.ridingTo = new ArrayDeque[carsCount][props.getFloorsCount() + 1];
+        this.currentFloor = new int[carsCount];
+        for (int floor = 1; floor <= props.getFloorsCount(); floor++) {
+            waitingAt[floor] = new ArrayDeque<>();
+            for (int car = 0; car < carsCount; car++) {
+                ridingTo[car][floor] = new ArrayDeque<>();
+            }
+        }
+        for (int car = 0; car < carsCount; car++) {
+            final int carIndex = car;
+            currentFloor[car] = props.getCurrentFloor();
+            group.setElevatorListener(car, new ElevatorListener() {
+                @Override
+                public void atFloor(int floorNumber) {
+                    currentFloor[carIndex] = floorNumber;
+                }
+
+                @Override
+                public void doorOpening() {
+                    exchangePassengers(carIndex);
+                }
+
+                @Override
+                public void doorClosed() {
+                    lastDoorClosedMillis = scheduler.currentTimeMillis();
+                }
+            });
+        }
+    }
+
+    /**
+     * Cars learn the demand into the model and park where it expects calls, must be called before {@link #run}.
+     */
+    public void setDemandModel(DemandModel demandModel) {
+        cars.forEach(car -> car.setDemandModel(demandModel));
+    }
+
+    /**
+     * Simulates until every passenger is delivered.
+     * @param passengers sorted by arrival time
+     * @throws IllegalArgumentException passenger has invalid floor number
+     */
+    public SimulationReport run(Iterator<Passenger> passengers) {
+        final long startTime = scheduler.currentTimeMillis();
+        this.passengers = passengers;
+        group.start();
+        scheduleNextArrival();
+        scheduler.runUntilIdle();
+        group.stop();
+        return new SimulationReport(
+                passengersCount, Math.max(lastDoorClosedMillis - startTime, 0), waitTimes, rideTimes
+        );
+    }
+
+    private void scheduleNextArrival() {
+        if (!passengers.hasNext()) {
+            arriving = null;
+            return;
+        }
+        arriving = passengers.next();
+        scheduler.schedule(arriving.getArrivalTimeMillis() - scheduler.currentTimeMillis(), arrivalTask);
+    }
+
+    private void onArrival() {
+        final Passenger passenger = arriving;
+        if (passenger.getDestinationFloor() < 1 || passenger.getDestinationFloor() > group.getFloorsCount()) {
+            throw new IllegalArgumentException("Invalid destination floor of " + passenger);
+        }
+        if (passenger.getOriginFloor() != passenger.getDestinationFloor()) {
+            passengersCount++;
+            group.outsideButtonPressed(passenger.getOriginFloor());
+            waitingAt[passenger.getOriginFloor()].add(passenger);
+        }
+        scheduleNextArrival();
+    }
+
+    private void exchangePassengers(int car) {
+        final long now = scheduler.currentTimeMillis();
+        final int floor = currentFloor[car];
+
+        Passenger passenger;
+        while ((passenger = ridingTo[car][floor].poll()) != null) {
+            rideTimes.record(now - passenger.getBoardingTimeMillis());
+        }
+        while ((passenger = waitingAt[floor].poll()) != null) {
+            waitTimes.record(now - passenger.getArrivalTimeMillis());
+            passenger.setBoardingTimeMillis(now);
+            ridingTo[car][passenger.getDestinationFloor()].add(passenger);
+            group.getCar(car).insideButtonPressed(passenger.getDestinationFloor());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package ru.ddg.elevator.simulation;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+/**
+ * Passengers arriving as a Poisson process whose rate and {@link TrafficPattern pattern} follow
+ * a schedule of periods, e.g. a working day of a building.
+ *
+ * Intervals between arrivals are exponential with the rate of the current period. Arrivals have no memory,
+ * so an interval running past the end of a period is drawn again from there with the rate of the next one.
+ * Passengers are generated one at a time as they are taken, a schedule of any length needs constant memory.
+ * The traffic ends with the last period.
+ */
+public class PoissonTraffic implements TrafficModel {
+
+    private static final double MILLIS_PER_HOUR = 3_600_000;
+
+    private final List<Period> periods = new ArrayList<>();
+
+    /**
+     * Appends a period to the schedule.
+     * @param passengersPerHour mean arrivals over the whole building, 0 for a quiet period
+     * @return this traffic
+     */
+    public PoissonTraffic addPeriod(long durationMillis, double passengersPerHour, TrafficPattern pattern) {
+        if (durationMillis < 1) {
+            throw new IllegalArgumentException("Period duration should be positive, Input " + durationMillis);
+        }
+        if (!(passengersPerHour >= 0) || Double.isInfinite(passengersPerHour)) {
+            throw new IllegalArgumentException(
+                    "Passengers per hour should be a non-negative number, Input " + passengersPerHour
+            );
+        }
+        periods.add(new Period(durationMillis, passengersPerHour / MILLIS_PER_HOUR, pattern));
+        return this;
+    }
+
+    /**
+     * Office building from nine to six: morning up-peak, daytime inter-floor traffic, lunch out and back
+     * and evening down-peak, quieter between the peaks.
+     * @param peakPassengersPerHour arrivals during the morning and evening peaks
+     */
+    public static PoissonTraffic officeDay(double peakPassengersPerHour) {
+        final long hour = (long) MILLIS_PER_HOUR;
+        final double daytime = peakPassengersPerHour * 0.3;
+        final double lunch = peakPassengersPerHour * 0.6;
+        return new PoissonTraffic()
+                .addPeriod(hour, peakPassengersPerHour, TrafficPattern.UP_PEAK)
+                .addPeriod(3 * hour, daytime, TrafficPattern.INTER_FLOOR)
+                .addPeriod(hour / 2, lunch, TrafficPattern.DOWN_PEAK)
+                .addPeriod(hour / 2, lunch, TrafficPattern.UP_PEAK)
+                .addPeriod(3 * hour, daytime, TrafficPattern.INTER_FLOOR)
+                .addPeriod(hour, peakPassengersPerHour, TrafficPattern.DOWN_PEAK);
+    }
+
+    @Override
+    public Iterator<Passenger> passengers(int floorsCount, long seed) {
+        if (floorsCount < 2) {
+            throw new IllegalArgumentException("Passengers need at least 2 floors, Input " + floorsCount);
+        }
+        final Period[] schedule = periods.toArray(new Period[0]);
+        final SplittableRandom random = new SplittableRandom(seed);
+        return new Iterator<Passenger>() {
+            private int period;
+            private double periodStart;
+            private double time;
+            private Passenger upcoming;
+
+            @Override
+            public boolean hasNext() {
+                while (upcoming == null && period < schedule.length) {
+                    final Period current = schedule[period];
+                    final double periodEnd = periodStart + current.durationMillis;
+                    final double arrival = current.ratePerMilli > 0
+                            ? time - Math.log(1 - random.nextDouble()) / current.ratePerMilli
+                            : Double.POSITIVE_INFINITY;
+                    if (arrival < periodEnd) {
+                        time = arrival;
+                        upcoming = current.pattern.passenger(random, floorsCount, (long) time);
+                    } else {
+                        time = periodEnd;
+                        periodStart = periodEnd;
+                        period++;
+                    }
+                }
+                return upcoming != null;
+            }
+
+            @Override
+            public Passenger next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final Passenger next = upcoming;
+                upcoming = null;
+                return next;
+            }
+        };
+    }
+
+    private static final class Period {
+
+        final long durationMillis;
+        final double ratePerMilli;
+        final TrafficPattern pattern;
+
+        Period(long durationMillis, double ratePerMilli, TrafficPattern pattern) {
+            this.durationMillis = durationMillis;
+            this.ratePerMilli = ratePerMilli;
+            this.pattern = pattern;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package ru.ddg.elevator.simulation;
+
+import ru.ddg.elevator.metrics.LatencyHistogram;
+
+/**
+ * Outcome of a simulation: how long passengers waited for the elevator and how long they rode.
+ */
+public class SimulationReport {
+
+    private final long passengers;
+    private final long simulatedMillis;
+    private final LatencyHistogram waitTimes;
+    private final LatencyHistogram rideTimes;
+
+    SimulationReport(long passengers, long simulatedMillis, LatencyHistogram waitTimes, LatencyHistogram rideTimes) {
+        this.passengers = passengers;
+        this.simulatedMillis = simulatedMillis;
+        this.waitTimes = waitTimes;
+        this.rideTimes = rideTimes;
+    }
+
+    public long getPassengers() {
+        return passengers;
+    }
+
+    /**
+     * Passengers who reached their destination.
+     */
+    public long getDelivered() {
+        return rideTimes.getCount();
+    }
+
+    public long getSimulatedMillis() {
+        return simulatedMillis;
+    }
+
+    /**
+     * From the call until the door opens at the origin floor.
+     */
+    public LatencyHistogram getWaitTimes() {
+        return waitTimes;
+    }
+
+    /**
+     * From boarding until the door opens at the destination floor.
+     */
+    public LatencyHistogram getRideTimes() {
+        return rideTimes;
+    }
+
+    @Override
+    public String toString() {
+        return "Passengers: " + passengers + ", delivered: " + getDelivered() +
+                ", simulated: " + simulatedMillis / 1000 + " s\n" +
+                format("Wait", waitTimes) + "\n" +
+                format("Ride", rideTimes);
+    }
+
+    private static String format(String name, LatencyHistogram histogram) {
+        return String.format(
+                "%s time, s: mean %.1f, p50 %.1f, p90 %.1f, p99 %.1f, max %.1f",
+                name,
+                histogram.getMean() / 1000,
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(90) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getMax() / 1000.0
+        );
+    }
+}
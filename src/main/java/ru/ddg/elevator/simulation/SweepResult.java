@@ -0,0 +1,116 @@
+package ru.ddg.elevator.simulation;
+
+import ru.ddg.elevator.controller.DispatchPolicy;
+import ru.ddg.elevator.metrics.LatencyHistogram;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wait and ride times of all runs of one parameter combination of a {@link ParameterSweep}.
+ */
+public class SweepResult {
+
+    static final String CSV_HEADER = "floorsCount,liftSpeedMetersPerSecond,doorOpenCloseTimeMillis,dispatchPolicy,"
+            + "carsCount,runs,passengers,delivered,"
+            + "waitMeanMillis,waitP50Millis,waitP90Millis,waitP99Millis,waitMaxMillis,"
+            + "rideMeanMillis,rideP50Millis,rideP90Millis,rideP99Millis,rideMaxMillis";
+
+    private final int floorsCount;
+    private final float liftSpeedMetersPerSecond;
+    private final int doorOpenCloseTimeMillis;
+    private final DispatchPolicy dispatchPolicy;
+    private final int carsCount;
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder passengers = new LongAdder();
+    private final LatencyHistogram waitTimes = new LatencyHistogram();
+    private final LatencyHistogram rideTimes = new LatencyHistogram();
+
+    SweepResult(
+            int floorsCount, float liftSpeedMetersPerSecond, int doorOpenCloseTimeMillis,
+            DispatchPolicy dispatchPolicy, int carsCount
+    ) {
+        this.floorsCount = floorsCount;
+        this.liftSpeedMetersPerSecond = liftSpeedMetersPerSecond;
+        this.doorOpenCloseTimeMillis = doorOpenCloseTimeMillis;
+        this.dispatchPolicy = dispatchPolicy;
+        this.carsCount = carsCount;
+    }
+
+    public int getFloorsCount() {
+        return floorsCount;
+    }
+
+    public float getLiftSpeedMetersPerSecond() {
+        return liftSpeedMetersPerSecond;
+    }
+
+    public int getDoorOpenCloseTimeMillis() {
+        return doorOpenCloseTimeMillis;
+    }
+
+    public DispatchPolicy getDispatchPolicy() {
+        return dispatchPolicy;
+    }
+
+    public int getCarsCount() {
+        return carsCount;
+    }
+
+    public long getRuns() {
+        return runs.sum();
+    }
+
+    public long getPassengers() {
+        return passengers.sum();
+    }
+
+    public LatencyHistogram getWaitTimes() {
+        return waitTimes;
+    }
+
+    public LatencyHistogram getRideTimes() {
+        return rideTimes;
+    }
+
+    /**
+     * Adds one run, called concurrently by the sweep workers.
+     */
+    void add(SimulationReport report) {
+        runs.increment();
+        passengers.add(report.getPassengers());
+        waitTimes.add(report.getWaitTimes());
+        rideTimes.add(report.getRideTimes());
+    }
+
+    String toCsvRow() {
+        return String.format(
+                Locale.ROOT, "%d,%s,%d,%s,%d,%d,%d,%d,%s,%s",
+                floorsCount, liftSpeedMetersPerSecond, doorOpenCloseTimeMillis, dispatchPolicy, carsCount,
+                getRuns(), getPassengers(), rideTimes.getCount(), csv(waitTimes), csv(rideTimes)
+        );
+    }
+
+    private static String csv(LatencyHistogram histogram) {
+        return String.format(
+                Locale.ROOT, "%.0f,%d,%d,%d,%d",
+                histogram.getMean(),
+                histogram.getValueAtPercentile(50),
+                histogram.getValueAtPercentile(90),
+                histogram.getValueAtPercentile(99),
+                histogram.getMax()
+        );
+    }
+
+    @Override
+    public String toString() {
+        return "SweepResult{" +
+                "floorsCount=" + floorsCount +
+                ", liftSpeedMetersPerSecond=" + liftSpeedMetersPerSecond +
+                ", doorOpenCloseTimeMillis=" + doorOpenCloseTimeMillis +
+                ", dispatchPolicy=" + dispatchPolicy +
+                ", carsCount=" + carsCount +
+                ", runs=" + getRuns() +
+                '}';
+    }
+}
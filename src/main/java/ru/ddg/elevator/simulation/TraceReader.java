@@ -0,0 +1,152 @@
+package ru.ddg.elevator.simulation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams passengers from a recorded trace file, one trip per line:
+ * <pre>
+ * # arrival time millis, origin floor, destination floor
+ * 0 1 5
+ * 1500 7 1
+ * </pre>
+ * Lines must be sorted by time. The file is read through a fixed direct buffer and parsed byte by byte,
+ * so traces of any size are streamed without loading them into the heap.
+ */
+public class TraceReader implements Iterator<Passenger>, Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int EOF = -1;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private int current;
+    private long line = 1;
+    private long lastTime = Long.MIN_VALUE;
+    private Passenger next;
+
+    public TraceReader(Path trace) throws IOException {
+        this.channel = FileChannel.open(trace, StandardOpenOption.READ);
+        buffer.flip();
+        try {
+            current = nextByte();
+            next = read();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    /**
+     * @throws UncheckedIOException reading failed
+     * @throws IllegalArgumentException malformed or unsorted trace
+     */
+    @Override
+    public Passenger next() {
+        if (next == null) {
+            throw new NoSuchElementException();
+        }
+        final Passenger passenger = next;
+        try {
+            next = read();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return passenger;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private Passenger read() throws IOException {
+        while (true) {
+            skipBlanks();
+            if (current == EOF) {
+                return null;
+            }
+            if (current == '\n') {
+                nextLine();
+                continue;
+            }
+            if (current == '#') {
+                while (current != '\n' && current != EOF) {
+                    current = nextByte();
+                }
+                continue;
+            }
+            final long time = readNumber();
+            final long origin = readNumber();
+            final long destination = readNumber();
+            skipBlanks();
+            if (current != '\n' && current != EOF) {
+                throw malformed();
+            }
+            if (time < lastTime) {
+                throw new IllegalArgumentException("The trace should be sorted by time, line " + line);
+            }
+            if (origin > Integer.MAX_VALUE || destination > Integer.MAX_VALUE) {
+                throw malformed();
+            }
+            lastTime = time;
+            return new Passenger(time, (int) origin, (int) destination);
+        }
+    }
+
+    private long readNumber() throws IOException {
+        skipBlanks();
+        if (current < '0' || current > '9') {
+            throw malformed();
+        }
+        long value = 0;
+        while (current >= '0' && current <= '9') {
+            try {
+                value = Math.addExact(Math.multiplyExact(value, 10), current - '0');
+            } catch (ArithmeticException e) {
+                throw malformed(); // longer than a long
+            }
+            current = nextByte();
+        }
+        return value;
+    }
+
+    private void skipBlanks() throws IOException {
+        while (current == ' ' || current == '\t' || current == '\r') {
+            current = nextByte();
+        }
+    }
+
+    private void nextLine() throws IOException {
+        line++;
+        current = nextByte();
+    }
+
+    private int nextByte() throws IOException {
+        if (!buffer.hasRemaining()) {
+            buffer.clear();
+            final int read = channel.read(buffer);
+            buffer.flip();
+            if (read <= 0) {
+                return EOF;
+            }
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    private IllegalArgumentException malformed() {
+        return new IllegalArgumentException("Malformed trace line " + line);
+    }
+}
@@ -0,0 +1,16 @@
+package ru.ddg.elevator.simulation;
+
+import java.util.Iterator;
+
+/**
+ * Source of simulated passengers for a building, reproducible from a seed.
+ */
+public interface TrafficModel {
+
+    /**
+     * @param floorsCount floors of the building, passengers travel between 1 and floorsCount
+     * @param seed same seed gives the same passengers
+     * @return passengers sorted by arrival time, generated lazily
+     */
+    Iterator<Passenger> passengers(int floorsCount, long seed);
+}
@@ -0,0 +1,62 @@
+package ru.ddg.elevator.simulation;
+
+import java.util.SplittableRandom;
+
+/**
+ * Where passengers go at a time of day. Floor 1 is the lobby.
+ */
+public enum TrafficPattern {
+
+    /**
+     * Morning: most passengers come into the building and go up from the lobby.
+     */
+    UP_PEAK {
+        @Override
+        Passenger passenger(SplittableRandom random, int floorsCount, long arrivalTimeMillis) {
+            if (random.nextDouble() >= LOBBY_SHARE) {
+                return INTER_FLOOR.passenger(random, floorsCount, arrivalTimeMillis);
+            }
+            return new Passenger(arrivalTimeMillis, LOBBY, upperFloor(random, floorsCount));
+        }
+    },
+
+    /**
+     * Evening: most passengers leave the building, going down to the lobby.
+     */
+    DOWN_PEAK {
+        @Override
+        Passenger passenger(SplittableRandom random, int floorsCount, long arrivalTimeMillis) {
+            if (random.nextDouble() >= LOBBY_SHARE) {
+                return INTER_FLOOR.passenger(random, floorsCount, arrivalTimeMillis);
+            }
+            return new Passenger(arrivalTimeMillis, upperFloor(random, floorsCount), LOBBY);
+        }
+    },
+
+    /**
+     * Daytime: trips between any two different floors, the lobby included.
+     */
+    INTER_FLOOR {
+        @Override
+        Passenger passenger(SplittableRandom random, int floorsCount, long arrivalTimeMillis) {
+            final int origin = 1 + random.nextInt(floorsCount);
+            final int destination = 1 + (origin + random.nextInt(floorsCount - 1)) % floorsCount;
+            return new Passenger(arrivalTimeMillis, origin, destination);
+        }
+    };
+
+    static final int LOBBY = 1;
+    /**
+     * Part of the peak traffic going from or to the lobby, the rest is inter-floor.
+     */
+    static final double LOBBY_SHARE = 0.85;
+
+    /**
+     * @param floorsCount at least 2
+     */
+    abstract Passenger passenger(SplittableRandom random, int floorsCount, long arrivalTimeMillis);
+
+    private static int upperFloor(SplittableRandom random, int floorsCount) {
+        return LOBBY + 1 + random.nextInt(floorsCount - 1);
+    }
+}
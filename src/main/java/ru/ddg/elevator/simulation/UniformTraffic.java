@@ -0,0 +1,59 @@
+package ru.ddg.elevator.simulation;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+/**
+ * A fixed number of passengers arriving at random intervals around the mean,
+ * each travelling between two different floors picked uniformly.
+ */
+public class UniformTraffic implements TrafficModel {
+
+    private final int passengersCount;
+    private final long meanIntervalMillis;
+
+    /**
+     * @param passengersCount passengers per simulation
+     * @param meanIntervalMillis intervals between arrivals are uniform from 0 to twice this
+     */
+    public UniformTraffic(int passengersCount, long meanIntervalMillis) {
+        if (passengersCount < 0) {
+            throw new IllegalArgumentException("Passengers count should not be negative, Input " + passengersCount);
+        }
+        if (meanIntervalMillis < 0) {
+            throw new IllegalArgumentException("Mean interval should not be negative, Input " + meanIntervalMillis);
+        }
+        this.passengersCount = passengersCount;
+        this.meanIntervalMillis = meanIntervalMillis;
+    }
+
+    @Override
+    public Iterator<Passenger> passengers(int floorsCount, long seed) {
+        if (floorsCount < 2) {
+            throw new IllegalArgumentException("Passengers need at least 2 floors, Input " + floorsCount);
+        }
+        final SplittableRandom random = new SplittableRandom(seed);
+        return new Iterator<Passenger>() {
+            private int generated;
+            private long time;
+
+            @Override
+            public boolean hasNext() {
+                return generated < passengersCount;
+            }
+
+            @Override
+            public Passenger next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                generated++;
+                time += random.nextLong(2 * meanIntervalMillis + 1);
+                final int origin = 1 + random.nextInt(floorsCount);
+                final int destination = 1 + (origin + random.nextInt(floorsCount - 1)) % floorsCount;
+                return new Passenger(time, origin, destination);
+            }
+        };
+    }
+}
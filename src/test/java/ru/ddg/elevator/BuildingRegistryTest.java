@@ -0,0 +1,103 @@
+package ru.ddg.elevator;
+
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ddg.elevator.controller.BuildingRegistry;
+import ru.ddg.elevator.controller.ControllerProps;
+import ru.ddg.elevator.controller.ElevatorListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Many buildings on a few event loop shards.
+ */
+public class BuildingRegistryTest {
+
+    private static final int BUILDINGS = 400;
+
+    private final BuildingRegistry registry = new BuildingRegistry(4);
+
+    @After
+    public void tearDown() {
+        registry.close();
+    }
+
+    @Test
+    public void servesBuildingsOnTheirShards() throws InterruptedException {
+        final CountDownLatch served = new CountDownLatch(BUILDINGS);
+        final List<String> wrongThreads = new ArrayList<>();
+        for (int building = 0; building < BUILDINGS; building++) {
+            final ControllerProps props = ControllerPropsBuilder.instance()
+                    .setFloorsCount(2 + building % 20)
+                    .setFloorHeightMeters(1f)
+                    .setDoorOpenCloseTimeMillis(100)
+                    .build();
+            registry.register("building-" + building, props, new ElevatorListener() {
+                @Override
+                public void atFloor(int floorNumber) {
+                }
+
+                @Override
+                public void doorOpening() {
+                    if (!Thread.currentThread().getName().startsWith("Elevator-shard-")) {
+                        synchronized (wrongThreads) {
+                            wrongThreads.add(Thread.currentThread().getName());
+                        }
+                    }
+                }
+
+                @Override
+                public void doorClosed() {
+                    served.countDown();
+                }
+            });
+        }
+
+        final List<Thread> panels = new ArrayList<>();
+        for (int panel = 0; panel < 4; panel++) {
+            final int first = panel;
+            final Thread thread = new Thread(() -> {
+                for (int building = first; building < BUILDINGS; building += 4) {
+                    registry.controls("building-" + building).outsideButtonPressed(2);
+                }
+            });
+            thread.start();
+            panels.add(thread);
+        }
+        for (Thread panel : panels) {
+            panel.join();
+        }
+
+        Assert.assertTrue(served.await(30, TimeUnit.SECONDS));
+        Assert.assertEquals(List.of(), wrongThreads);
+        Assert.assertEquals(BUILDINGS, registry.getBuildingsCount());
+        int buildings = 0;
+        int minFloors = Integer.MAX_VALUE;
+        int maxFloors = 0;
+        for (BuildingRegistry.ShardLoad load : registry.getLoad()) {
+            buildings += load.getBuildings();
+            minFloors = Math.min(minFloors, load.getFloors());
+            maxFloors = Math.max(maxFloors, load.getFloors());
+            Assert.assertTrue(load.toString(), load.getTasks() > 0);
+        }
+        Assert.assertEquals(BUILDINGS, buildings);
+        Assert.assertTrue("Shards get about the same floors", maxFloors - minFloors <= 21);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void refusesUnknownBuilding() {
+        registry.controls("nowhere");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void refusesBuildingRegisteredTwice() {
+        registry.register("a", ControllerPropsBuilder.defaultProps(), null);
+        registry.register("a", ControllerPropsBuilder.defaultProps(), null);
+    }
+}
@@ -0,0 +1,105 @@
+package ru.ddg.elevator;
+
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ddg.elevator.controller.ElevatorControls;
+import ru.ddg.elevator.net.CallPanelLoadGenerator;
+import ru.ddg.elevator.net.CallPanelServer;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Network call panel ingestion test.
+ */
+public class CallPanelServerTest {
+
+    private static final int FLOORS = 10;
+
+    private final List<String> presses = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicLong pressCount = new AtomicLong();
+    private final CallPanelServer server = new CallPanelServer(new ElevatorControls() {
+        @Override
+        public void insideButtonPressed(int floorNumber) {
+            pressButtons(new int[]{floorNumber}, true);
+        }
+
+        @Override
+        public void outsideButtonPressed(int floorNumber) {
+            pressButtons(new int[]{floorNumber}, false);
+        }
+
+        @Override
+        public int pressButtons(int[] floorNumbers, boolean inside) {
+            if (pressCount.addAndGet(floorNumbers.length) < 100) {
+                for (int floor : floorNumbers) {
+                    presses.add(inside ? "[" + floor + "]" : String.valueOf(floor));
+                }
+            }
+            return floorNumbers.length;
+        }
+
+        @Override
+        public int getFloorsCount() {
+            return FLOORS;
+        }
+    }, new InetSocketAddress("localhost", 0));
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void pressesValidTokensAndAnswersInvalidOnes() throws Exception {
+        server.start();
+        try (Socket panel = new Socket("localhost", server.getLocalAddress().getPort())) {
+            final OutputStream out = panel.getOutputStream();
+            out.write("3 [5]\t[10]\r\nx [7 8] 11 [] 0".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            final BufferedReader answers = new BufferedReader(
+                    new InputStreamReader(panel.getInputStream(), StandardCharsets.US_ASCII)
+            );
+            Assert.assertEquals("ERR Input 'x' is not a floor from 1 to 10", answers.readLine());
+            Assert.assertEquals("ERR Input '[7' is not a floor from 1 to 10", answers.readLine());
+            Assert.assertEquals("ERR Input '8]' is not a floor from 1 to 10", answers.readLine());
+            Assert.assertEquals("ERR Input '11' is not a floor from 1 to 10", answers.readLine());
+            Assert.assertEquals("ERR Input '[]' is not a floor from 1 to 10", answers.readLine());
+            out.write("\n".getBytes(StandardCharsets.US_ASCII));
+            Assert.assertEquals("ERR Input '0' is not a floor from 1 to 10", answers.readLine());
+        }
+        Assert.assertEquals(6, server.getInvalidCount());
+        Assert.assertEquals(3, server.getAcceptedCount());
+        Assert.assertEquals(3, presses.size());
+        Assert.assertTrue(presses.containsAll(List.of("3", "[5]", "[10]")));
+    }
+
+    @Test
+    public void takesPressesFromHundredsOfPanels() throws Exception {
+        server.start();
+        final long sent = new CallPanelLoadGenerator(server.getLocalAddress(), 300, FLOORS, 1)
+                .run(500);
+
+        final long deadline = System.currentTimeMillis() + 10_000;
+        while ((server.getAcceptedCount() < sent || server.getConnectionsCount() > 0)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(sent > 300);
+        Assert.assertEquals(sent, server.getAcceptedCount());
+        Assert.assertEquals(sent, pressCount.get());
+        Assert.assertEquals(0, server.getInvalidCount());
+        Assert.assertEquals(0, server.getConnectionsCount());
+    }
+}
@@ -0,0 +1,152 @@
+package ru.ddg.elevator;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ddg.elevator.controller.ElevatorController;
+import ru.ddg.elevator.controller.ElevatorListener;
+import ru.ddg.elevator.model.CommandPipeline;
+import ru.ddg.elevator.model.ElevatorCommand;
+import ru.ddg.elevator.model.SimulatedDrive;
+import ru.ddg.elevator.scheduler.VirtualTimeScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+
+/**
+ * Drive commands handed over without waiting for the hardware.
+ */
+public class CommandPipelineTest {
+
+    private final VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+
+    @Test
+    public void slowDriveDoesNotDelayTheElevator() {
+        final SimulatedDrive drive = new SimulatedDrive(scheduler, 3000);
+        final List<ElevatorCommand> sent = new ArrayList<>();
+        final CommandPipeline pipeline = new CommandPipeline(command -> {
+            sent.add(command);
+            return drive.execute(command);
+        }, scheduler, 5000, 2);
+        final ElevatorController controller = new ElevatorController(
+                pipeline, ControllerPropsBuilder.defaultProps(), scheduler
+        );
+        final List<String> events = new ArrayList<>();
+        controller.setElevatorListener(new ElevatorListener() {
+            @Override
+            public void atFloor(int floorNumber) {
+                events.add(scheduler.currentTimeMillis() + " at " + floorNumber);
+            }
+
+            @Override
+            public void doorOpening() {
+                events.add(scheduler.currentTimeMillis() + " opening");
+            }
+
+            @Override
+            public void doorClosed() {
+                events.add(scheduler.currentTimeMillis() + " closed");
+            }
+        });
+        controller.start();
+        scheduler.runUntil(0);
+        controller.insideButtonPressed(2);
+
+        scheduler.runUntil(10000);
+        Assert.assertEquals(List.of(ElevatorCommand.UP, ElevatorCommand.STOP, ElevatorCommand.OPEN_CLOSE_DOOR), sent);
+        Assert.assertEquals(2, pipeline.getInFlightCount());
+        Assert.assertEquals(0, pipeline.getWaitingCount());
+
+        scheduler.runUntilIdle();
+        Assert.assertEquals(List.of("0 at 1", "10000 at 2", "10000 opening", "12000 closed"), events);
+        Assert.assertEquals(ElevatorCommand.UP, sent.get(3));
+        Assert.assertEquals(4, pipeline.getAcknowledgedCount());
+        Assert.assertEquals(0, pipeline.getInFlightCount());
+    }
+
+    @Test
+    public void sendsInOrderAsPlacesFreeUp() {
+        final List<CompletableFuture<Void>> acknowledgements = new ArrayList<>();
+        final List<ElevatorCommand> sent = new ArrayList<>();
+        final CommandPipeline pipeline = new CommandPipeline(command -> {
+            sent.add(command);
+            final CompletableFuture<Void> acknowledged = new CompletableFuture<>();
+            acknowledgements.add(acknowledged);
+            return acknowledged;
+        }, scheduler, 1000, 2);
+
+        final CompletableFuture<Void> up = pipeline.send(ElevatorCommand.UP);
+        pipeline.send(ElevatorCommand.STOP);
+        final CompletableFuture<Void> door = pipeline.send(ElevatorCommand.OPEN_CLOSE_DOOR);
+        pipeline.send(ElevatorCommand.DOWN);
+        Assert.assertEquals(List.of(ElevatorCommand.UP, ElevatorCommand.STOP), sent);
+        Assert.assertEquals(2, pipeline.getWaitingCount());
+
+        acknowledgements.get(1).complete(null);
+        Assert.assertEquals(List.of(ElevatorCommand.UP, ElevatorCommand.STOP, ElevatorCommand.OPEN_CLOSE_DOOR), sent);
+        acknowledgements.get(0).completeExceptionally(new IllegalStateException("Drive fault"));
+        Assert.assertEquals(4, sent.size());
+        Assert.assertTrue(up.isCompletedExceptionally());
+        Assert.assertEquals(1, pipeline.getFailedCount());
+
+        acknowledgements.get(2).complete(null);
+        scheduler.runUntil(1000);
+        Assert.assertTrue(door.isDone() && !door.isCompletedExceptionally());
+        Assert.assertEquals(2, pipeline.getAcknowledgedCount());
+        Assert.assertEquals(1, pipeline.getTimedOutCount());
+        Assert.assertEquals(0, pipeline.getInFlightCount());
+    }
+
+    @Test
+    public void sendsWaitingCommandsInOneLoop() {
+        final CompletableFuture<Void> first = new CompletableFuture<>();
+        final List<ElevatorCommand> sent = new ArrayList<>();
+        final CommandPipeline pipeline = new CommandPipeline(command -> {
+            sent.add(command);
+            // the drive acknowledges every command but the first one before returning
+            return sent.size() == 1 ? first : CompletableFuture.completedFuture(null);
+        }, scheduler, 1000, 1);
+
+        final int count = 100_000;
+        final List<ElevatorCommand> expected = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final ElevatorCommand command = ElevatorCommand.values()[i % ElevatorCommand.values().length];
+            expected.add(command);
+            pipeline.send(command);
+        }
+        Assert.assertEquals(count - 1, pipeline.getWaitingCount());
+        first.complete(null);
+        Assert.assertEquals(expected, sent);
+        Assert.assertEquals(count, pipeline.getAcknowledgedCount());
+        Assert.assertEquals(0, pipeline.getInFlightCount());
+        // acknowledged commands leave no timeouts behind, the one timer finds nothing to do
+        Assert.assertEquals(1, scheduler.runUntilIdle());
+        Assert.assertEquals(0, pipeline.getTimedOutCount());
+    }
+
+    @Test
+    public void givesUpOnSilentDrive() throws InterruptedException {
+        final CommandPipeline pipeline = new CommandPipeline(command -> new CompletableFuture<>(), scheduler, 500, 1);
+        final CompletableFuture<Void> up = pipeline.send(ElevatorCommand.UP);
+        final CompletableFuture<Void> stop = pipeline.send(ElevatorCommand.STOP);
+
+        scheduler.runUntil(499);
+        Assert.assertFalse(up.isDone());
+        scheduler.runUntil(500);
+        try {
+            up.get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException);
+            Assert.assertEquals("UP is not acknowledged in 500 ms", e.getCause().getMessage());
+        }
+        Assert.assertFalse(stop.isDone());
+        scheduler.runUntilIdle();
+        Assert.assertTrue(stop.isCompletedExceptionally());
+        Assert.assertEquals(2, pipeline.getTimedOutCount());
+    }
+}
@@ -0,0 +1,105 @@
+package ru.ddg.elevator;
+
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.ddg.elevator.controller.ControllerProps;
+import ru.ddg.elevator.controller.ElevatorController;
+import ru.ddg.elevator.model.BasicElevator;
+import ru.ddg.elevator.scheduler.VirtualTimeScheduler;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+
+/**
+ * Flight recorder events of a trip.
+ */
+public class ControllerEventsTest {
+
+    private static final String PREFIX = "ru.ddg.elevator.";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+
+    @Test
+    public void recordsTheTrip() throws Exception {
+        final ElevatorController controller = new ElevatorController(
+                new BasicElevator(), ControllerPropsBuilder.defaultProps(), scheduler
+        );
+        final List<RecordedEvent> events = record(controller, () -> {
+            controller.insideButtonPressed(3);
+            controller.insideButtonPressed(3);
+        });
+
+        Assert.assertEquals(Arrays.asList("ACCEPTED", "COALESCED"), values(events, "ButtonPress", "result"));
+        Assert.assertEquals(Arrays.asList(1), values(events, "RequestsCollected", "collected"));
+        Assert.assertEquals(
+                Arrays.asList("SELECT_DIRECTION", "MOVE_UP", "IDLE"), values(events, "StateTransition", "to")
+        );
+        Assert.assertEquals(Arrays.asList(1, 2, 3), values(events, "StopDecision", "floor"));
+        Assert.assertEquals(Arrays.asList(true, true, false), values(events, "StopDecision", "keepMoving"));
+        Assert.assertEquals(Arrays.asList(3), values(events, "DoorCycle", "floor"));
+        Assert.assertEquals(
+                Arrays.asList("atFloor", "atFloor", "atFloor", "doorOpening", "doorClosed"),
+                values(events, "ListenerCallback", "callback")
+        );
+    }
+
+    @Test
+    public void recordsDecisionsAtBrakingPoints() throws Exception {
+        final ControllerProps props = ControllerPropsBuilder.instance()
+                .setAccelerationMetersPerSecondSquared(0.5f)
+                .build();
+        final ElevatorController controller = new ElevatorController(new BasicElevator(), props, scheduler);
+        final List<RecordedEvent> events = record(controller, () -> controller.insideButtonPressed(3));
+
+        // leaving 1, passing 2 at its braking point, braking for 3 at its one, nothing to do after the door at 3
+        Assert.assertEquals(Arrays.asList(1, 2, 3, 3), values(events, "StopDecision", "floor"));
+        Assert.assertEquals(Arrays.asList(true, true, false, false), values(events, "StopDecision", "keepMoving"));
+    }
+
+    /**
+     * Records the events of the controller from its start until the scheduler is idle after the presses.
+     */
+    private List<RecordedEvent> record(ElevatorController controller, Runnable presses) throws IOException {
+        final Path file = folder.getRoot().toPath().resolve("trip.jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : Arrays.asList("StateTransition", "ButtonPress", "RequestsCollected", "DoorCycle",
+                    "ListenerCallback", "StopDecision")) {
+                recording.enable(PREFIX + name);
+            }
+            recording.start();
+            controller.start();
+            scheduler.runUntilIdle();
+            presses.run();
+            scheduler.runUntilIdle();
+            recording.stop();
+            recording.dump(file);
+        }
+        final List<RecordedEvent> events = new ArrayList<>(RecordingFile.readAllEvents(file));
+        events.sort((a, b) -> a.getStartTime().compareTo(b.getStartTime()));
+        for (RecordedEvent event : events) {
+            Assert.assertEquals(System.identityHashCode(controller), event.getInt("controller"));
+        }
+        return events;
+    }
+
+    private static List<Object> values(List<RecordedEvent> events, String name, String field) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(PREFIX + name))
+                .map(event -> event.getValue(field))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,196 @@
+package ru.ddg.elevator;
+
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.ddg.elevator.controller.ControllerJournal;
+import ru.ddg.elevator.controller.ControllerProps;
+import ru.ddg.elevator.controller.ElevatorController;
+import ru.ddg.elevator.controller.ElevatorListener;
+import ru.ddg.elevator.controller.ElevatorState;
+import ru.ddg.elevator.model.BasicElevator;
+import ru.ddg.elevator.scheduler.VirtualTimeScheduler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+
+/**
+ * Controller recovery from the journal and snapshots after a crash.
+ */
+public class ControllerJournalTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final ControllerProps props = ControllerPropsBuilder.defaultProps();
+    private final List<String> events = new ArrayList<>();
+
+    private ElevatorController controller(VirtualTimeScheduler scheduler) {
+        final ElevatorController controller = new ElevatorController(new BasicElevator(), props, scheduler);
+        controller.setElevatorListener(new ElevatorListener() {
+            @Override
+            public void atFloor(int floorNumber) {
+                events.add(scheduler.currentTimeMillis() + " atFloor " + floorNumber);
+            }
+
+            @Override
+            public void doorOpening() {
+                events.add(scheduler.currentTimeMillis() + " doorOpening");
+            }
+
+            @Override
+            public void doorClosed() {
+                events.add(scheduler.currentTimeMillis() + " doorClosed");
+            }
+        });
+        return controller;
+    }
+
+    @Test
+    public void resumesTripWithPendingCallsAfterCrash() throws IOException {
+        final Path directory = folder.getRoot().toPath();
+        final VirtualTimeScheduler beforeCrash = new VirtualTimeScheduler();
+        final ElevatorController crashed = controller(beforeCrash);
+        crashed.setJournal(ControllerJournal.open(directory, props.getFloorsCount(), 1024));
+        crashed.start();
+        crashed.insideButtonPressed(5);
+        crashed.outsideButtonPressed(3);
+        beforeCrash.runUntil(15000);
+        crashed.outsideButtonPressed(2);
+        beforeCrash.runUntil(25000);
+        // the process dies: nothing is closed or flushed
+
+        events.clear();
+        final VirtualTimeScheduler afterCrash = new VirtualTimeScheduler();
+        final ElevatorController recovered = controller(afterCrash);
+        final ControllerJournal journal = ControllerJournal.open(directory, props.getFloorsCount(), 1024);
+        Assert.assertEquals(3, journal.getFloor());
+        Assert.assertEquals(ElevatorState.MOVE_UP, journal.getState());
+        recovered.setJournal(journal);
+        recovered.insideButtonPressed(5);
+        recovered.start();
+        afterCrash.runUntilIdle();
+
+        Assert.assertEquals(1, recovered.getCoalescedPresses());
+        Assert.assertEquals(Arrays.asList(
+                "0 atFloor 3",
+                "10000 atFloor 4",
+                "20000 atFloor 5",
+                "20000 doorOpening",
+                "22000 doorClosed",
+                "32000 atFloor 4",
+                "42000 atFloor 3",
+                "52000 atFloor 2",
+                "52000 doorOpening",
+                "54000 doorClosed"
+        ), events);
+        journal.close();
+    }
+
+    @Test
+    public void compactsJournalIntoSnapshots() throws IOException {
+        final Path directory = folder.getRoot().toPath();
+        final VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+        final ElevatorController controller = controller(scheduler);
+        final ControllerJournal journal = ControllerJournal.open(directory, props.getFloorsCount(), 8);
+        controller.setJournal(journal);
+        controller.start();
+
+        final Random random = new Random(7);
+        for (int second = 0; second < 1000; second++) {
+            if (random.nextInt(5) == 0) {
+                controller.outsideButtonPressed(1 + random.nextInt(props.getFloorsCount()));
+            }
+            if (random.nextInt(5) == 0) {
+                controller.insideButtonPressed(1 + random.nextInt(props.getFloorsCount()));
+            }
+            scheduler.runFor(1000);
+        }
+        scheduler.runUntilIdle();
+
+        Assert.assertTrue(journal.getGeneration() > 10);
+        Assert.assertTrue(journal.getRecords() <= 8);
+        Assert.assertTrue(Files.exists(directory.resolve("snapshot")));
+        final String lastEvent = events.stream().filter(event -> event.contains("atFloor")).reduce((a, b) -> b).get();
+
+        final ControllerJournal reopened = ControllerJournal.open(directory, props.getFloorsCount(), 8);
+        Assert.assertEquals(journal.getGeneration(), reopened.getGeneration());
+        Assert.assertEquals(journal.getRecords(), reopened.getRecords());
+        Assert.assertEquals(ElevatorState.IDLE, reopened.getState());
+        Assert.assertTrue(lastEvent.endsWith("atFloor " + reopened.getFloor()));
+        reopened.close();
+        journal.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void refusesJournalOfOtherBuilding() throws IOException {
+        final Path directory = folder.getRoot().toPath();
+        final VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+        final ElevatorController controller = controller(scheduler);
+        controller.setJournal(ControllerJournal.open(directory, props.getFloorsCount(), 2));
+        controller.start();
+        controller.insideButtonPressed(7);
+        scheduler.runUntilIdle();
+
+        ControllerJournal.open(directory, 5, 2);
+    }
+
+    @Test
+    public void reopensSnapshotTakenBeforeTheCarMoved() throws IOException {
+        final Path directory = folder.getRoot().toPath();
+        final VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+        final ElevatorController controller = controller(scheduler);
+        final ControllerJournal journal = ControllerJournal.open(directory, props.getFloorsCount(), 2);
+        controller.setJournal(journal);
+        controller.start();
+        for (int press = 0; press < 3; press++) {
+            controller.outsideButtonPressed(1);
+            scheduler.runUntilIdle();
+        }
+        Assert.assertTrue(journal.getGeneration() > 0);
+        journal.close();
+
+        final ControllerJournal reopened = ControllerJournal.open(directory, props.getFloorsCount(), 2);
+        Assert.assertEquals(1, reopened.getFloor());
+        reopened.close();
+    }
+
+    @Test
+    public void refusesSnapshotWithUnknownState() throws IOException {
+        final Path directory = folder.getRoot().toPath();
+        final VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+        final ElevatorController controller = controller(scheduler);
+        final ControllerJournal journal = ControllerJournal.open(directory, props.getFloorsCount(), 2);
+        controller.setJournal(journal);
+        controller.start();
+        controller.insideButtonPressed(7);
+        scheduler.runUntilIdle();
+        journal.close();
+
+        // a state ordinal out of range behind a valid checksum, e.g. written by a newer version
+        final Path snapshot = directory.resolve("snapshot");
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(snapshot));
+        buffer.putInt(20, 1000);
+        final CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.limit() - 8);
+        buffer.putLong(buffer.limit() - 8, crc.getValue());
+        Files.write(snapshot, buffer.array());
+
+        try {
+            ControllerJournal.open(directory, props.getFloorsCount(), 2);
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+            Assert.assertEquals("Unknown elevator state 1000 in the snapshot " + snapshot, expected.getMessage());
+        }
+    }
+}
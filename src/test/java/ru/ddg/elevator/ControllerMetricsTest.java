@@ -0,0 +1,84 @@
+package ru.ddg.elevator;
+
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ddg.elevator.controller.ControllerMetrics;
+import ru.ddg.elevator.controller.ElevatorController;
+import ru.ddg.elevator.controller.ElevatorState;
+import ru.ddg.elevator.model.BasicElevator;
+import ru.ddg.elevator.scheduler.VirtualTimeScheduler;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Controller instrumentation test in virtual time.
+ */
+public class ControllerMetricsTest {
+
+    private final VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+    private final ElevatorController liftController =
+            new ElevatorController(new BasicElevator(), ControllerPropsBuilder.defaultProps(), scheduler);
+
+    @Test
+    public void recordsCallWaitsStatesAndTrips() {
+        liftController.start();
+        liftController.outsideButtonPressed(3);
+        liftController.outsideButtonPressed(5);
+        scheduler.runUntilIdle();
+        liftController.outsideButtonPressed(5);
+        scheduler.runUntilIdle();
+
+        final ControllerMetrics metrics = liftController.getMetrics();
+        Assert.assertEquals(2, metrics.getHallCallWait(ElevatorState.MOVE_UP).getCount());
+        Assert.assertEquals(1, metrics.getHallCallWait(3, ElevatorState.MOVE_UP).getCount());
+        Assert.assertEquals(20000, metrics.getHallCallWait(3, ElevatorState.MOVE_UP).getMax());
+        Assert.assertEquals(42000, metrics.getHallCallWait(5, ElevatorState.MOVE_UP).getMax());
+        Assert.assertNull(metrics.getHallCallWait(4, ElevatorState.MOVE_UP));
+        Assert.assertEquals(1, metrics.getHallCallWait(5, ElevatorState.SELECT_DIRECTION).getCount());
+
+        Assert.assertEquals(1, metrics.getStateDwell(ElevatorState.MOVE_UP).getCount());
+        Assert.assertEquals(44000, metrics.getStateDwell(ElevatorState.MOVE_UP).getMax());
+        Assert.assertArrayEquals(
+                new long[]{2, 2, 1},
+                new long[]{
+                        metrics.getStopsPerTrip().getCount(),
+                        metrics.getStopsPerTrip().getMax(),
+                        metrics.getStopsPerTrip().getValueAtPercentile(50)
+                }
+        );
+    }
+
+    @Test
+    public void publishesToMicrometer() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        new ControllerMetricsBinder(liftController, true).bindTo(registry);
+
+        liftController.start();
+        liftController.outsideButtonPressed(2);
+        liftController.outsideButtonPressed(2);
+        scheduler.runUntilIdle();
+
+        Assert.assertEquals(1, registry.get("elevator.hall.call.wait")
+                .tags("direction", "up").functionTimer().count(), 0);
+        Assert.assertEquals(10000, registry.get("elevator.hall.call.wait.floor")
+                .tags("direction", "up", "floor", "2").functionTimer().totalTime(TimeUnit.MILLISECONDS), 0);
+        Assert.assertEquals(10000, registry.get("elevator.hall.call.wait.percentile")
+                .tags("direction", "up", "percentile", "99.0").gauge().value(), 0);
+        Assert.assertEquals(1, registry.get("elevator.presses")
+                .tags("result", "coalesced").functionCounter().count(), 0);
+        Assert.assertEquals(0, registry.get("elevator.requests.pending").gauge().value(), 0);
+    }
+
+    @Test
+    public void publishesFloorsOnlyIfAsked() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        new ControllerMetricsBinder(liftController).bindTo(registry);
+
+        Assert.assertTrue(registry.find("elevator.hall.call.wait.floor").meters().isEmpty());
+        Assert.assertEquals(3, registry.find("elevator.hall.call.wait").meters().size());
+    }
+}
@@ -2,6 +2,7 @@ package ru.ddg.elevator;
 
 
 import ru.ddg.elevator.controller.ControllerProps;
+import ru.ddg.elevator.controller.DispatchPolicy;
 
 /**
  */
@@ -46,11 +47,26 @@ public class ControllerPropsBuilder {
         return this;
     }
 
+    ControllerPropsBuilder setAccelerationMetersPerSecondSquared(float accelerationMetersPerSecondSquared) {
+        props.setAccelerationMetersPerSecondSquared(accelerationMetersPerSecondSquared);
+        return this;
+    }
+
     ControllerPropsBuilder setDoorOpenCloseTimeMillis(int doorOpenCloseTimeMillis) {
         props.setDoorOpenCloseTimeMillis(doorOpenCloseTimeMillis);
         return this;
     }
 
+    ControllerPropsBuilder setRequestQueueSize(int requestQueueSize) {
+        props.setRequestQueueSize(requestQueueSize);
+        return this;
+    }
+
+    ControllerPropsBuilder setDispatchPolicy(DispatchPolicy dispatchPolicy) {
+        props.setDispatchPolicy(dispatchPolicy);
+        return this;
+    }
+
     ControllerProps build() {
         return props;
     }
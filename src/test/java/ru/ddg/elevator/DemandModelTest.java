@@ -0,0 +1,85 @@
+package ru.ddg.elevator;
+
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.ddg.elevator.controller.DemandModel;
+import ru.ddg.elevator.simulation.PassengerSimulation;
+import ru.ddg.elevator.simulation.PoissonTraffic;
+import ru.ddg.elevator.simulation.SimulationReport;
+import ru.ddg.elevator.simulation.TrafficPattern;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+
+/**
+ * Idle cars parked where hall calls are expected.
+ */
+public class DemandModelTest {
+
+    private static final long HOUR = 3_600_000;
+    private static final long QUARTER = HOUR / 4;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void parksAtTheMedianOfCalls() {
+        final DemandModel model = new DemandModel(7, QUARTER);
+        Assert.assertEquals(0, model.parkingFloor(8 * HOUR));
+        model.record(1, 8 * HOUR);
+        model.record(1, 8 * HOUR + 1000);
+        model.record(6, 8 * HOUR + QUARTER);
+        model.record(7, 18 * HOUR);
+
+        Assert.assertEquals(1, model.parkingFloor(8 * HOUR + 5000));
+        Assert.assertEquals(6, model.parkingFloor(8 * HOUR + QUARTER));
+        Assert.assertEquals("The next bucket counts too", 7, model.parkingFloor(18 * HOUR - 1));
+        Assert.assertEquals("Every day is the same", 1, model.parkingFloor(DemandModel.DAY_MILLIS + 8 * HOUR));
+        Assert.assertEquals(0, model.parkingFloor(12 * HOUR));
+    }
+
+    @Test
+    public void cutsWaitsOfTheMorningPeak() {
+        final PoissonTraffic traffic = new PoissonTraffic().addPeriod(2 * HOUR, 30, TrafficPattern.UP_PEAK);
+
+        final SimulationReport stay = new PassengerSimulation(ControllerPropsBuilder.defaultProps())
+                .run(traffic.passengers(7, 1));
+        final PassengerSimulation parking = new PassengerSimulation(ControllerPropsBuilder.defaultProps());
+        parking.setDemandModel(new DemandModel(7, QUARTER));
+        final SimulationReport parked = parking.run(traffic.passengers(7, 1));
+
+        Assert.assertEquals(stay.getPassengers(), parked.getDelivered());
+        Assert.assertTrue(
+                parked.getWaitTimes().getMean() + " vs " + stay.getWaitTimes().getMean(),
+                parked.getWaitTimes().getMean() < 0.75 * stay.getWaitTimes().getMean()
+        );
+    }
+
+    @Test
+    public void keepsCallsBetweenRuns() throws IOException {
+        final Path file = folder.getRoot().toPath().resolve("demand");
+        try (DemandModel model = DemandModel.open(file, 7, QUARTER)) {
+            model.record(5, 9 * HOUR);
+            model.record(5, 9 * HOUR);
+        }
+
+        try (DemandModel model = DemandModel.open(file, 7, QUARTER)) {
+            Assert.assertEquals(2, model.getCalls(5, 9 * HOUR));
+            Assert.assertEquals(5, model.parkingFloor(9 * HOUR));
+        }
+        try {
+            DemandModel.open(file, 8, QUARTER);
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+            Assert.assertEquals(
+                    "The demand model is for 7 floors and buckets of 900000 ms, "
+                            + "the elevator has 8 floors and buckets of 900000 ms",
+                    expected.getMessage()
+            );
+        }
+    }
+}
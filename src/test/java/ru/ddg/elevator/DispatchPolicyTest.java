@@ -0,0 +1,220 @@
+package ru.ddg.elevator;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ddg.elevator.controller.ControllerProps;
+import ru.ddg.elevator.controller.DispatchPolicy;
+import ru.ddg.elevator.controller.DispatchStrategy;
+import ru.ddg.elevator.controller.ElevatorController;
+import ru.ddg.elevator.controller.ElevatorListener;
+import ru.ddg.elevator.controller.ElevatorState;
+import ru.ddg.elevator.controller.PendingCalls;
+import ru.ddg.elevator.model.BasicElevator;
+import ru.ddg.elevator.scheduler.VirtualTimeScheduler;
+import ru.ddg.elevator.simulation.Passenger;
+import ru.ddg.elevator.simulation.PassengerSimulation;
+import ru.ddg.elevator.simulation.SimulationReport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ * Built-in dispatch policies.
+ */
+public class DispatchPolicyTest {
+
+    private final VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+    private final List<String> events = new ArrayList<>();
+
+    private ElevatorController controller(DispatchPolicy policy, int currentFloor) {
+        final ControllerProps props = ControllerPropsBuilder.instance()
+                .setCurrentFloor(currentFloor)
+                .setDispatchPolicy(policy)
+                .build();
+        final ElevatorController controller = new ElevatorController(new BasicElevator(), props, scheduler);
+        controller.setElevatorListener(new ElevatorListener() {
+            @Override
+            public void atFloor(int floorNumber) {
+                events.add("atFloor " + floorNumber);
+            }
+
+            @Override
+            public void doorOpening() {
+                events.add(scheduler.currentTimeMillis() + " doorOpening");
+            }
+
+            @Override
+            public void doorClosed() {
+            }
+        });
+        controller.start();
+        return controller;
+    }
+
+    @Test
+    public void strategyBreakingItsContractDoesNotStrandTheCar() {
+        final ElevatorController controller = controller(DispatchPolicy.LOOK, 1);
+        controller.setDispatchStrategy(new DispatchStrategy() {
+            @Override
+            public int selectFloor(PendingCalls calls, int currentFloor, ElevatorState lastDirection, long nowMillis) {
+                return 7;
+            }
+
+            @Override
+            public boolean keepMoving(PendingCalls calls, int currentFloor, ElevatorState direction, long nowMillis) {
+                return false;
+            }
+        });
+        controller.insideButtonPressed(3);
+        scheduler.runUntilIdle();
+
+        Assert.assertEquals(Arrays.asList("atFloor 1", "atFloor 2", "atFloor 3", "20000 doorOpening"), events);
+        Assert.assertEquals(ElevatorState.IDLE, controller.getSnapshot().getState());
+    }
+
+    @Test
+    public void insideFirstServesCarCallBeforeNearerHallCall() {
+        final ElevatorController controller = controller(DispatchPolicy.INSIDE_FIRST, 4);
+        controller.outsideButtonPressed(3);
+        controller.insideButtonPressed(7);
+        scheduler.runUntilIdle();
+
+        Assert.assertEquals(Arrays.asList(
+                "atFloor 4", "atFloor 5", "atFloor 6", "atFloor 7", "30000 doorOpening",
+                "atFloor 6", "atFloor 5", "atFloor 4", "atFloor 3", "72000 doorOpening"
+        ), events);
+    }
+
+    @Test
+    public void nearestGoesToTheClosestCall() {
+        final ElevatorController controller = controller(DispatchPolicy.NEAREST, 4);
+        controller.insideButtonPressed(7);
+        controller.outsideButtonPressed(3);
+        scheduler.runUntilIdle();
+
+        Assert.assertEquals(Arrays.asList(
+                "atFloor 4", "atFloor 3", "10000 doorOpening",
+                "atFloor 4", "atFloor 5", "atFloor 6", "atFloor 7", "52000 doorOpening"
+        ), events);
+    }
+
+    @Test
+    public void lookTurnsAtTheLastCall() {
+        final ElevatorController controller = controller(DispatchPolicy.LOOK, 4);
+        controller.outsideButtonPressed(2);
+        controller.outsideButtonPressed(5);
+        scheduler.runUntilIdle();
+
+        Assert.assertEquals(Arrays.asList(
+                "atFloor 4", "atFloor 5", "10000 doorOpening",
+                "atFloor 4", "atFloor 3", "atFloor 2", "42000 doorOpening"
+        ), events);
+    }
+
+    @Test
+    public void scanSweepsToTheEndFloor() {
+        final ElevatorController controller = controller(DispatchPolicy.SCAN, 4);
+        controller.outsideButtonPressed(2);
+        controller.outsideButtonPressed(5);
+        scheduler.runUntilIdle();
+
+        Assert.assertEquals(Arrays.asList(
+                "atFloor 4", "atFloor 5", "10000 doorOpening",
+                "atFloor 6", "atFloor 7", "atFloor 6", "atFloor 5", "atFloor 4", "atFloor 3", "atFloor 2",
+                "82000 doorOpening"
+        ), events);
+    }
+
+    @Test
+    public void shortestWaitTurnsForLongWaitingCall() {
+        final long now = 1_000_000;
+        Assert.assertEquals(5, DispatchPolicy.SHORTEST_WAIT.selectFloor(
+                calls(now, now), 4, ElevatorState.MOVE_UP, now
+        ));
+        Assert.assertEquals(1, DispatchPolicy.SHORTEST_WAIT.selectFloor(
+                calls(now - 120_000, now), 4, ElevatorState.MOVE_UP, now
+        ));
+        Assert.assertFalse(DispatchPolicy.SHORTEST_WAIT.keepMoving(
+                calls(now - 120_000, now), 4, ElevatorState.MOVE_UP, now
+        ));
+        Assert.assertTrue(DispatchPolicy.LOOK.keepMoving(
+                calls(now - 120_000, now), 4, ElevatorState.MOVE_UP, now
+        ));
+    }
+
+    @Test
+    public void everyPolicyDeliversEveryone() {
+        final List<Passenger> passengers = new ArrayList<>();
+        final Random random = new Random(3);
+        for (int i = 0; i < 300; i++) {
+            final int origin = 1 + random.nextInt(7);
+            passengers.add(new Passenger(i * 15_000L, origin, 1 + (origin + random.nextInt(6)) % 7));
+        }
+        for (DispatchPolicy policy : DispatchPolicy.values()) {
+            final ControllerProps props = ControllerPropsBuilder.instance().setDispatchPolicy(policy).build();
+            final SimulationReport report = new PassengerSimulation(props).run(passengers.iterator());
+            Assert.assertEquals(policy.name(), 300, report.getDelivered());
+        }
+    }
+
+    /**
+     * Floor 1 called outside at the given time, floor 5 called inside, 7 floors.
+     */
+    private static PendingCalls calls(long floor1PressedAt, long floor5PressedAt) {
+        return new PendingCalls() {
+            @Override
+            public int getFloorsCount() {
+                return 7;
+            }
+
+            @Override
+            public int getFloorTravelTimeMillis() {
+                return 10000;
+            }
+
+            @Override
+            public int getDoorOpenCloseTimeMillis() {
+                return 2000;
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return false;
+            }
+
+            @Override
+            public boolean isCalled(int floorNumber) {
+                return floorNumber == 1 || floorNumber == 5;
+            }
+
+            @Override
+            public int oldestInside() {
+                return 5;
+            }
+
+            @Override
+            public int oldestOutside() {
+                return 1;
+            }
+
+            @Override
+            public int above(int floorNumber) {
+                return floorNumber < 1 ? 1 : floorNumber < 5 ? 5 : 0;
+            }
+
+            @Override
+            public int below(int floorNumber) {
+                return floorNumber > 5 ? 5 : floorNumber > 1 ? 1 : 0;
+            }
+
+            @Override
+            public long pressedAt(int floorNumber) {
+                return floorNumber == 1 ? floor1PressedAt : floor5PressedAt;
+            }
+        };
+    }
+}
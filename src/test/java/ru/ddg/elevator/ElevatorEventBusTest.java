@@ -0,0 +1,116 @@
+package ru.ddg.elevator;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import ru.ddg.elevator.controller.ElevatorEventBus;
+import ru.ddg.elevator.controller.ElevatorListener;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+
+/**
+ * Asynchronous listener dispatch test.
+ */
+public class ElevatorEventBusTest {
+
+    @Test
+    public void deliversToAllListenersInOrder() {
+        final ElevatorListener first = mock(ElevatorListener.class);
+        final ElevatorListener second = mock(ElevatorListener.class);
+
+        try (ElevatorEventBus eventBus = new ElevatorEventBus(4, ElevatorEventBus.OverflowPolicy.BLOCK)) {
+            eventBus.addListener(first);
+            eventBus.addListener(second);
+            for (int floor = 1; floor <= 100; floor++) {
+                eventBus.atFloor(floor);
+            }
+            eventBus.doorOpening();
+            eventBus.doorClosed();
+        }
+
+        for (ElevatorListener listener : new ElevatorListener[]{first, second}) {
+            InOrder inOrder = inOrder(listener);
+            for (int floor = 1; floor <= 100; floor++) {
+                inOrder.verify(listener).atFloor(floor);
+            }
+            inOrder.verify(listener).doorOpening();
+            inOrder.verify(listener).doorClosed();
+            verifyNoMoreInteractions(listener);
+        }
+    }
+
+    @Test
+    public void listenerFailureGoesToUncaughtExceptionHandler() {
+        final ElevatorListener failing = mock(ElevatorListener.class);
+        final IllegalStateException failure = new IllegalStateException("Display is off");
+        Mockito.doThrow(failure).when(failing).doorOpening();
+        final ElevatorListener next = mock(ElevatorListener.class);
+        final List<Throwable> uncaught = new CopyOnWriteArrayList<>();
+        final Thread.UncaughtExceptionHandler defaultHandler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> uncaught.add(e));
+        try {
+            try (ElevatorEventBus eventBus = new ElevatorEventBus(4, ElevatorEventBus.OverflowPolicy.BLOCK)) {
+                eventBus.addListener(failing);
+                eventBus.addListener(next);
+                eventBus.doorOpening();
+                eventBus.doorClosed();
+            }
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(defaultHandler);
+        }
+
+        Assert.assertEquals(List.of(failure), uncaught);
+        verify(next).doorOpening();
+        verify(next).doorClosed();
+    }
+
+    @Test
+    public void dropsEventsWhenListenerIsStuck() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final ElevatorListener stuck = Mockito.spy(new ElevatorListener() {
+            @Override
+            public void atFloor(int floorNumber) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+
+            @Override
+            public void doorOpening() {
+            }
+
+            @Override
+            public void doorClosed() {
+            }
+        });
+
+        final ElevatorEventBus eventBus = new ElevatorEventBus(8, ElevatorEventBus.OverflowPolicy.DROP);
+        eventBus.addListener(stuck);
+        eventBus.atFloor(1);
+        verify(stuck, timeout(1000)).atFloor(1);
+
+        // the event being delivered still holds its slot
+        for (int i = 0; i < 20; i++) {
+            eventBus.doorOpening();
+        }
+        final long dropped = eventBus.getDroppedCount();
+        release.countDown();
+        eventBus.close();
+
+        Assert.assertEquals(13, dropped);
+        verify(stuck, Mockito.times(7)).doorOpening();
+    }
+}
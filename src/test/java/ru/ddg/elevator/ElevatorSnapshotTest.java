@@ -0,0 +1,106 @@
+package ru.ddg.elevator;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ddg.elevator.controller.ElevatorController;
+import ru.ddg.elevator.controller.ElevatorSnapshot;
+import ru.ddg.elevator.controller.ElevatorState;
+import ru.ddg.elevator.model.BasicElevator;
+import ru.ddg.elevator.scheduler.VirtualTimeScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * Live elevator state read from other threads.
+ */
+public class ElevatorSnapshotTest {
+
+    private final VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+
+    @Test
+    public void showsFloorMotionDoorAndCalls() {
+        final ElevatorController controller = new ElevatorController(
+                new BasicElevator(), ControllerPropsBuilder.defaultProps(), scheduler
+        );
+        controller.start();
+        scheduler.runUntil(0);
+        controller.insideButtonPressed(3);
+        controller.outsideButtonPressed(2);
+        controller.outsideButtonPressed(5);
+
+        scheduler.runUntil(5000);
+        ElevatorSnapshot snapshot = controller.getSnapshot();
+        Assert.assertEquals(1, snapshot.getFloor());
+        Assert.assertEquals(ElevatorState.MOVE_UP, snapshot.getState());
+        Assert.assertFalse(snapshot.isDoorOpen());
+        Assert.assertArrayEquals(new int[]{3}, snapshot.getInsideCalls());
+        Assert.assertArrayEquals(new int[]{2, 5}, snapshot.getOutsideCalls());
+        Assert.assertTrue(snapshot.isOutsideCalled(5));
+        Assert.assertFalse(snapshot.isInsideCalled(5));
+        Assert.assertEquals(1.5, snapshot.getPositionAt(5000), 1e-9);
+        Assert.assertEquals(
+                "Floor 1, MOVE_UP, door closed, inside calls [3], outside calls [2, 5]", snapshot.toString()
+        );
+
+        scheduler.runUntil(22000);
+        snapshot = controller.getSnapshot();
+        Assert.assertEquals(3, snapshot.getFloor());
+        Assert.assertTrue(snapshot.isDoorOpen());
+        Assert.assertArrayEquals(new int[0], snapshot.getInsideCalls());
+        Assert.assertEquals(3, controller.getPosition(), 1e-9);
+
+        scheduler.runUntilIdle();
+        snapshot = controller.getSnapshot();
+        Assert.assertEquals(ElevatorState.IDLE, snapshot.getState());
+        Assert.assertFalse(snapshot.isDoorOpen());
+        Assert.assertArrayEquals(new int[0], snapshot.getOutsideCalls());
+    }
+
+    @Test
+    public void readersSeeWholeSnapshotsWhileControllerRuns() throws InterruptedException {
+        final ElevatorController controller = new ElevatorController(
+                new BasicElevator(), ControllerPropsBuilder.defaultProps(), scheduler
+        );
+        controller.start();
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicReference<String> failure = new AtomicReference<>();
+        final List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            final Thread reader = new Thread(() -> {
+                long lastTime = 0;
+                while (running.get()) {
+                    final ElevatorSnapshot snapshot = controller.getSnapshot();
+                    final double position = snapshot.getPositionAt(snapshot.getTimeMillis());
+                    if (snapshot.getTimeMillis() < lastTime
+                            || snapshot.getFloor() < 1 || snapshot.getFloor() > 7
+                            || Math.abs(position - snapshot.getFloor()) > 1
+                            || snapshot.isDoorOpen() && snapshot.isInsideCalled(snapshot.getFloor())) {
+                        failure.compareAndSet(null, snapshot.getTimeMillis() + ": " + snapshot);
+                    }
+                    lastTime = snapshot.getTimeMillis();
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        final Random random = new Random(5);
+        for (int i = 0; i < 2000; i++) {
+            controller.insideButtonPressed(1 + random.nextInt(7));
+            controller.outsideButtonPressed(1 + random.nextInt(7));
+            scheduler.runFor(5000);
+        }
+        running.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        Assert.assertNull(failure.get());
+    }
+}
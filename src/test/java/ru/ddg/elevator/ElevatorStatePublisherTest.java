@@ -0,0 +1,216 @@
+package ru.ddg.elevator;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ddg.elevator.controller.ElevatorController;
+import ru.ddg.elevator.controller.ElevatorSnapshot;
+import ru.ddg.elevator.controller.ElevatorState;
+import ru.ddg.elevator.controller.ElevatorStatePublisher;
+import ru.ddg.elevator.model.BasicElevator;
+import ru.ddg.elevator.scheduler.VirtualTimeScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * State stream with per-subscriber demand.
+ */
+public class ElevatorStatePublisherTest {
+
+    private final VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+
+    private ElevatorController controller(ElevatorStatePublisher publisher) {
+        final ElevatorController controller = new ElevatorController(
+                new BasicElevator(), ControllerPropsBuilder.defaultProps(), scheduler
+        );
+        controller.setStatePublisher(publisher);
+        return controller;
+    }
+
+    @Test
+    public void slowSubscriberGetsLatestState() {
+        final ElevatorStatePublisher publisher = new ElevatorStatePublisher(Runnable::run);
+        final ElevatorController controller = controller(publisher);
+        final Recorder slow = new Recorder(1);
+        final Recorder fast = new Recorder(Long.MAX_VALUE);
+        publisher.subscribe(slow);
+        publisher.subscribe(fast);
+
+        controller.start();
+        controller.insideButtonPressed(7);
+        controller.outsideButtonPressed(3);
+        scheduler.runUntilIdle();
+
+        Assert.assertEquals("Only the state at subscription", 1, slow.states.size());
+        Assert.assertEquals(1, slow.states.get(0).getFloor());
+        Assert.assertTrue(fast.states.size() > 10);
+        for (int i = 1; i < fast.states.size(); i++) {
+            Assert.assertTrue(fast.states.get(i - 1).getTimeMillis() <= fast.states.get(i).getTimeMillis());
+        }
+        Assert.assertSame(controller.getSnapshot(), fast.states.get(fast.states.size() - 1));
+
+        slow.subscription.request(1);
+        Assert.assertEquals(2, slow.states.size());
+        Assert.assertSame("Everything in between is conflated", controller.getSnapshot(), slow.states.get(1));
+        Assert.assertEquals(ElevatorState.IDLE, slow.states.get(1).getState());
+        Assert.assertTrue(publisher.getConflatedCount() > 0);
+
+        slow.subscription.request(1);
+        Assert.assertEquals("The same state is not sent twice", 2, slow.states.size());
+    }
+
+    @Test
+    public void cancelledAndCompletedSubscribersGetNothingMore() {
+        final ElevatorStatePublisher publisher = new ElevatorStatePublisher(Runnable::run);
+        final ElevatorController controller = controller(publisher);
+        final Recorder cancelled = new Recorder(Long.MAX_VALUE);
+        final Recorder completed = new Recorder(Long.MAX_VALUE);
+        final Recorder invalid = new Recorder(0);
+        publisher.subscribe(cancelled);
+        publisher.subscribe(completed);
+        publisher.subscribe(invalid);
+        Assert.assertEquals(3, publisher.getSubscribersCount());
+
+        invalid.subscription.request(0);
+        Assert.assertTrue(invalid.error instanceof IllegalArgumentException);
+        cancelled.subscription.cancel();
+        controller.start();
+        scheduler.runUntilIdle();
+        publisher.close();
+        controller.insideButtonPressed(2);
+        scheduler.runUntilIdle();
+
+        Assert.assertEquals(1, cancelled.states.size());
+        Assert.assertTrue(completed.completed);
+        Assert.assertEquals(ElevatorState.IDLE, completed.states.get(completed.states.size() - 1).getState());
+        Assert.assertEquals(0, publisher.getSubscribersCount());
+    }
+
+    @Test
+    public void failingSubscriberIsCancelled() {
+        final ElevatorStatePublisher publisher = new ElevatorStatePublisher(Runnable::run);
+        final ElevatorController controller = controller(publisher);
+        final IllegalStateException failure = new IllegalStateException("Display is off");
+        final Recorder failing = new Recorder(Long.MAX_VALUE) {
+            @Override
+            public void onNext(ElevatorSnapshot item) {
+                super.onNext(item);
+                throw failure;
+            }
+        };
+        final Recorder working = new Recorder(Long.MAX_VALUE);
+        publisher.subscribe(failing);
+        publisher.subscribe(working);
+
+        controller.start();
+        controller.insideButtonPressed(2);
+        scheduler.runUntilIdle();
+
+        Assert.assertEquals(1, failing.states.size());
+        Assert.assertSame(failure, failing.error);
+        Assert.assertEquals(1, publisher.getSubscribersCount());
+        Assert.assertSame(controller.getSnapshot(), working.states.get(working.states.size() - 1));
+    }
+
+    @Test
+    public void requestInOnSubscribeWaitsForIt() {
+        final ElevatorStatePublisher publisher = new ElevatorStatePublisher(Runnable::run);
+        final ElevatorController controller = controller(publisher);
+        controller.start();
+        scheduler.runUntilIdle();
+        final List<String> signals = new ArrayList<>();
+        publisher.subscribe(new Recorder(0) {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(1);
+                publisher.close();
+                signals.add("subscribed");
+            }
+
+            @Override
+            public void onNext(ElevatorSnapshot item) {
+                signals.add("next");
+            }
+
+            @Override
+            public void onComplete() {
+                signals.add("complete");
+            }
+        });
+
+        Assert.assertEquals(List.of("subscribed", "next", "complete"), signals);
+    }
+
+    @Test
+    public void deliversOnExecutorThreads() throws InterruptedException {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final ElevatorStatePublisher publisher = new ElevatorStatePublisher(executor);
+        final ElevatorController controller = controller(publisher);
+        final List<Recorder> subscribers = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            final Recorder subscriber = new Recorder(Long.MAX_VALUE);
+            publisher.subscribe(subscriber);
+            subscribers.add(subscriber);
+        }
+        controller.start();
+        for (int floor = 7; floor >= 1; floor--) {
+            controller.insideButtonPressed(floor);
+            scheduler.runFor(30000);
+        }
+        scheduler.runUntilIdle();
+        final ElevatorSnapshot last = controller.getSnapshot();
+        publisher.close();
+
+        for (Recorder subscriber : subscribers) {
+            Assert.assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+            Assert.assertSame(last, subscriber.states.get(subscriber.states.size() - 1));
+        }
+        executor.shutdown();
+    }
+
+    private static class Recorder implements Flow.Subscriber<ElevatorSnapshot> {
+
+        private final long initialDemand;
+        private final List<ElevatorSnapshot> states = new ArrayList<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private Flow.Subscription subscription;
+        private volatile boolean completed;
+        private volatile Throwable error;
+
+        Recorder(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialDemand > 0) {
+                subscription.request(initialDemand);
+            }
+        }
+
+        @Override
+        public void onNext(ElevatorSnapshot item) {
+            states.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package ru.ddg.elevator;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ddg.elevator.controller.ControllerProps;
+import ru.ddg.elevator.controller.DispatchPolicy;
+import ru.ddg.elevator.controller.ElevatorController;
+import ru.ddg.elevator.controller.ElevatorListener;
+import ru.ddg.elevator.model.BasicElevator;
+import ru.ddg.elevator.scheduler.VirtualTimeScheduler;
+
+import java.util.Random;
+
+import static ru.ddg.elevator.controller.ElevatorState.MOVE_DOWN;
+import static ru.ddg.elevator.controller.ElevatorState.MOVE_UP;
+
+
+/**
+ * Arrival times the controller keeps for every floor and direction.
+ */
+public class EtaTableTest {
+
+    private final VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+    private final long[] doorOpenedAt = new long[8];
+
+    private ElevatorController controller() {
+        final ControllerProps props = ControllerPropsBuilder.instance()
+                .setDispatchPolicy(DispatchPolicy.LOOK)
+                .build();
+        final ElevatorController controller = new ElevatorController(new BasicElevator(), props, scheduler);
+        controller.setElevatorListener(new ElevatorListener() {
+            private int floor;
+
+            @Override
+            public void atFloor(int floorNumber) {
+                floor = floorNumber;
+            }
+
+            @Override
+            public void doorOpening() {
+                doorOpenedAt[floor] = scheduler.currentTimeMillis();
+            }
+
+            @Override
+            public void doorClosed() {
+            }
+        });
+        controller.start();
+        scheduler.runUntilIdle();
+        return controller;
+    }
+
+    @Test
+    public void estimatesEveryFloorAndDirection() {
+        final ElevatorController controller = controller();
+        controller.insideButtonPressed(4);
+        controller.outsideButtonPressed(6);
+        scheduler.runUntil(0);
+
+        // 10 s a floor, 2 s a stop, up to 6 and back
+        assertEstimates(controller, new long[]{104, 10, 20, 30, 42, 52, 64}, new long[]{104, 94, 84, 74, 64, 52, 64});
+
+        scheduler.runUntil(25_000);
+        assertEstimates(controller, new long[]{79, 69, 59, 5, 17, 27, 39}, new long[]{79, 69, 59, 49, 39, 27, 39});
+
+        controller.outsideButtonPressed(5);
+        scheduler.runUntil(32_000); // taken when the door closes at 4
+        assertEstimates(controller, new long[]{74, 64, 54, 44, 10, 22, 34}, new long[]{74, 64, 54, 44, 34, 22, 34});
+        Assert.assertEquals(44_000, controller.estimateMillisTo(4));
+        Assert.assertEquals(22_000, controller.estimateMillisTo(6));
+        Assert.assertEquals(54_000, controller.estimateMillisTo(3));
+
+        try {
+            controller.estimateMillisTo(3, null);
+            Assert.fail();
+        } catch (IllegalArgumentException expected) {
+            Assert.assertEquals("The direction should be MOVE_UP or MOVE_DOWN, Input null", expected.getMessage());
+        }
+    }
+
+    /**
+     * Between random calls a hall call is pressed and waited for, its door opens when the estimate said.
+     */
+    @Test
+    public void doorOpensWhenEstimated() {
+        final ElevatorController controller = controller();
+        final Random random = new Random(7);
+        for (int probe = 0; probe < 200; probe++) {
+            for (int press = random.nextInt(4); press > 0; press--) {
+                scheduler.runFor(random.nextInt(15_000));
+                controller.insideButtonPressed(1 + random.nextInt(7));
+            }
+            scheduler.runFor(random.nextInt(15_000));
+            while (controller.getPendingRequests() > 0 || controller.getSnapshot().isDoorOpen()) {
+                scheduler.runFor(random.nextInt(3000)); // presses are taken at the next step
+            }
+
+            final int carFloor = controller.getSnapshot().getFloor();
+            int floor;
+            do {
+                floor = 1 + random.nextInt(7);
+            } while (Math.abs(floor - carFloor) < 2);
+            final long expected = scheduler.currentTimeMillis() + controller.estimateMillisTo(floor);
+            controller.outsideButtonPressed(floor);
+            while (controller.getSnapshot().isOutsideCalled(floor) || controller.getPendingRequests() > 0) {
+                scheduler.runFor(1000);
+            }
+            Assert.assertEquals("Probe " + probe + " to " + floor, expected, doorOpenedAt[floor]);
+        }
+    }
+
+    private static void assertEstimates(ElevatorController controller, long[] upSeconds, long[] downSeconds) {
+        for (int floor = 1; floor <= 7; floor++) {
+            Assert.assertEquals(
+                    "Up " + floor, upSeconds[floor - 1] * 1000, controller.estimateMillisTo(floor, MOVE_UP)
+            );
+            Assert.assertEquals(
+                    "Down " + floor, downSeconds[floor - 1] * 1000, controller.estimateMillisTo(floor, MOVE_DOWN)
+            );
+        }
+    }
+}
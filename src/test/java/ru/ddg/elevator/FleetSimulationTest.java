@@ -0,0 +1,191 @@
+package ru.ddg.elevator;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ddg.elevator.controller.ControllerProps;
+import ru.ddg.elevator.controller.DispatchPolicy;
+import ru.ddg.elevator.controller.ElevatorController;
+import ru.ddg.elevator.controller.ElevatorListener;
+import ru.ddg.elevator.controller.ElevatorState;
+import ru.ddg.elevator.model.BasicElevator;
+import ru.ddg.elevator.scheduler.VirtualTimeScheduler;
+import ru.ddg.elevator.simulation.FleetSimulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntConsumer;
+import java.util.function.LongSupplier;
+
+
+/**
+ * Cars kept in arrays behave like controllers.
+ */
+public class FleetSimulationTest {
+
+    private static final int CARS = 8;
+
+    @Test
+    public void lookCarsMakeTheSameEventsAsControllers() {
+        assertSameEvents(DispatchPolicy.LOOK);
+    }
+
+    @Test
+    public void scanCarsMakeTheSameEventsAsControllers() {
+        assertSameEvents(DispatchPolicy.SCAN);
+    }
+
+    @Test
+    public void nearestCarsMakeTheSameEventsAsControllers() {
+        assertSameEvents(DispatchPolicy.NEAREST);
+    }
+
+    @Test
+    public void servesManyCars() {
+        final ControllerProps props = props(DispatchPolicy.LOOK);
+        final int cars = 100_000;
+        final FleetSimulation fleet = new FleetSimulation(props, cars);
+        final long[] doorOpenings = new long[1];
+        fleet.setListener(new FleetSimulation.Listener() {
+            @Override
+            public void atFloor(int car, int floorNumber) {
+            }
+
+            @Override
+            public void doorOpening(int car) {
+                doorOpenings[0]++;
+            }
+
+            @Override
+            public void doorClosed(int car) {
+            }
+        });
+        fleet.start();
+        long stops = 0;
+        for (int car = 0; car < cars; car++) {
+            final int floorNumber = 1 + car % props.getFloorsCount();
+            fleet.outsideButtonPressed(car, floorNumber);
+            fleet.insideButtonPressed(car, props.getFloorsCount());
+            stops += floorNumber == props.getFloorsCount() ? 1 : 2;
+        }
+
+        fleet.runUntil(10 * 60 * 1000);
+        Assert.assertEquals(stops, doorOpenings[0]);
+        for (int car = 0; car < cars; car++) {
+            Assert.assertEquals(ElevatorState.IDLE, fleet.getState(car));
+            Assert.assertEquals(props.getFloorsCount(), fleet.getFloor(car));
+        }
+    }
+
+    @Test
+    public void rejectsUnsupportedSettings() {
+        try {
+            new FleetSimulation(props(DispatchPolicy.INSIDE_FIRST), 1);
+            Assert.fail();
+        } catch (IllegalArgumentException expected) {
+            Assert.assertEquals(
+                    "Dispatch policy should be LOOK, SCAN or NEAREST, Input INSIDE_FIRST", expected.getMessage()
+            );
+        }
+        final FleetSimulation fleet = new FleetSimulation(props(DispatchPolicy.LOOK), 1);
+        try {
+            fleet.insideButtonPressed(0, 8);
+            Assert.fail();
+        } catch (IllegalArgumentException expected) {
+            Assert.assertEquals("The floor number should be from 1 to 7, Input 8", expected.getMessage());
+        }
+        Assert.assertTrue(fleet.insideButtonPressed(0, 3));
+        Assert.assertFalse(fleet.insideButtonPressed(0, 3));
+    }
+
+    /**
+     * Random presses from outside and from listeners, i.e. at any point of a step.
+     */
+    private static void assertSameEvents(DispatchPolicy policy) {
+        final ControllerProps props = props(policy);
+        final VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+        final FleetSimulation fleet = new FleetSimulation(props, CARS);
+        final List<ElevatorController> controllers = new ArrayList<>();
+        final List<List<String>> expected = new ArrayList<>();
+        final List<List<String>> actual = new ArrayList<>();
+        for (int car = 0; car < CARS; car++) {
+            expected.add(new ArrayList<>());
+            actual.add(new ArrayList<>());
+            final ElevatorController controller = new ElevatorController(new BasicElevator(), props, scheduler);
+            controller.setElevatorListener(recording(
+                    expected.get(car), scheduler::currentTimeMillis, new Random(car), controller::insideButtonPressed
+            ));
+            controllers.add(controller);
+        }
+        final ElevatorListener[] fleetListeners = new ElevatorListener[CARS];
+        for (int car = 0; car < CARS; car++) {
+            final int pressingCar = car;
+            fleetListeners[car] = recording(
+                    actual.get(car), fleet::currentTimeMillis, new Random(car),
+                    floorNumber -> fleet.insideButtonPressed(pressingCar, floorNumber)
+            );
+        }
+        fleet.setListener(FleetSimulation.Listener.of(car -> fleetListeners[car]));
+
+        controllers.forEach(ElevatorController::start);
+        fleet.start();
+        final Random random = new Random(policy.ordinal());
+        long time = 0;
+        for (int press = 0; press < 400; press++) {
+            time += random.nextInt(3000);
+            scheduler.runUntil(time);
+            fleet.runUntil(time);
+            final int car = random.nextInt(CARS);
+            final int floorNumber = 1 + random.nextInt(props.getFloorsCount());
+            if (random.nextBoolean()) {
+                controllers.get(car).insideButtonPressed(floorNumber);
+                fleet.insideButtonPressed(car, floorNumber);
+            } else {
+                controllers.get(car).outsideButtonPressed(floorNumber);
+                fleet.outsideButtonPressed(car, floorNumber);
+            }
+        }
+        scheduler.runUntilIdle();
+        fleet.runUntil(scheduler.currentTimeMillis() + 60_000);
+
+        for (int car = 0; car < CARS; car++) {
+            Assert.assertTrue(expected.get(car).size() > 50);
+            Assert.assertEquals("Car " + car, expected.get(car), actual.get(car));
+            Assert.assertEquals(ElevatorState.IDLE, fleet.getState(car));
+        }
+    }
+
+    /**
+     * Records the events and sometimes presses a button inside when the door opens, like a passenger.
+     */
+    private static ElevatorListener recording(
+            List<String> events, LongSupplier time, Random random, IntConsumer insideButton
+    ) {
+        return new ElevatorListener() {
+            @Override
+            public void atFloor(int floorNumber) {
+                events.add(time.getAsLong() + " at " + floorNumber);
+            }
+
+            @Override
+            public void doorOpening() {
+                events.add(time.getAsLong() + " opening");
+                if (random.nextInt(3) == 0) {
+                    insideButton.accept(1 + random.nextInt(7));
+                }
+            }
+
+            @Override
+            public void doorClosed() {
+                events.add(time.getAsLong() + " closed");
+            }
+        };
+    }
+
+    private static ControllerProps props(DispatchPolicy policy) {
+        final ControllerProps props = ControllerPropsBuilder.defaultProps();
+        props.setDispatchPolicy(policy);
+        return props;
+    }
+}
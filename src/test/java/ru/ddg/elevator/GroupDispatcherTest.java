@@ -0,0 +1,143 @@
+package ru.ddg.elevator;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ddg.elevator.controller.ControllerProps;
+import ru.ddg.elevator.controller.ElevatorController;
+import ru.ddg.elevator.controller.ElevatorListener;
+import ru.ddg.elevator.controller.GroupDispatcher;
+import ru.ddg.elevator.model.BasicElevator;
+import ru.ddg.elevator.scheduler.VirtualTimeScheduler;
+import ru.ddg.elevator.simulation.Passenger;
+import ru.ddg.elevator.simulation.PassengerSimulation;
+import ru.ddg.elevator.simulation.SimulationReport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ * Hall call assignment in a group of elevators.
+ */
+public class GroupDispatcherTest {
+
+    private final VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+    private final List<String> events = new ArrayList<>();
+
+    private GroupDispatcher group(int... startFloors) {
+        final List<ElevatorController> cars = new ArrayList<>();
+        for (int startFloor : startFloors) {
+            final ControllerProps props = ControllerPropsBuilder.instance().setCurrentFloor(startFloor).build();
+            cars.add(new ElevatorController(new BasicElevator(), props, scheduler));
+        }
+        final GroupDispatcher group = new GroupDispatcher(cars, scheduler, 10000, 10000);
+        for (int car = 0; car < startFloors.length; car++) {
+            final String name = String.valueOf((char) ('A' + car));
+            group.setElevatorListener(car, new ElevatorListener() {
+                @Override
+                public void atFloor(int floorNumber) {
+                    events.add(scheduler.currentTimeMillis() + " " + name + " atFloor " + floorNumber);
+                }
+
+                @Override
+                public void doorOpening() {
+                    events.add(scheduler.currentTimeMillis() + " " + name + " doorOpening");
+                }
+
+                @Override
+                public void doorClosed() {
+                }
+            });
+        }
+        group.start();
+        scheduler.runUntilIdle();
+        events.clear();
+        return group;
+    }
+
+    @Test
+    public void sendsTheNearestCar() {
+        final GroupDispatcher group = group(1, 7);
+        group.outsideButtonPressed(6);
+        group.outsideButtonPressed(2);
+        Assert.assertEquals(1, group.getAssignedCar(6));
+        Assert.assertEquals(0, group.getAssignedCar(2));
+        group.outsideButtonPressed(6);
+        scheduler.runUntilIdle();
+
+        Assert.assertEquals(Arrays.asList(
+                "10000 B atFloor 6",
+                "10000 B doorOpening",
+                "10000 A atFloor 2",
+                "10000 A doorOpening"
+        ), events);
+        Assert.assertEquals(-1, group.getAssignedCar(6));
+        Assert.assertEquals(-1, group.getAssignedCar(2));
+        Assert.assertEquals(0, group.getReassignedCount());
+    }
+
+    @Test
+    public void rejectedPressIsNotAssigned() {
+        final ControllerProps props = ControllerPropsBuilder.instance().setRequestQueueSize(1).build();
+        final ElevatorController car = new ElevatorController(new BasicElevator(), props, scheduler);
+        final GroupDispatcher group = new GroupDispatcher(List.of(car), scheduler, 10000, 10000);
+        group.start();
+        scheduler.runUntilIdle();
+
+        car.insideButtonPressed(5); // fills the queue until the car takes it
+        group.outsideButtonPressed(3);
+        Assert.assertEquals(-1, group.getAssignedCar(3));
+
+        scheduler.runUntil(0);
+        group.outsideButtonPressed(3);
+        Assert.assertEquals(0, group.getAssignedCar(3));
+        scheduler.runUntilIdle();
+        Assert.assertEquals(-1, group.getAssignedCar(3));
+        Assert.assertFalse(car.getSnapshot().isOutsideCalled(3));
+    }
+
+    @Test
+    public void movesCallToCarWhichComesSooner() {
+        final GroupDispatcher group = group(3, 7);
+        group.getCar(0).insideButtonPressed(1);
+        group.outsideButtonPressed(4);
+        Assert.assertEquals(0, group.getAssignedCar(4));
+        scheduler.runUntilIdle();
+
+        Assert.assertEquals(1, group.getReassignedCount());
+        Assert.assertEquals(Arrays.asList(
+                "10000 A atFloor 2",
+                "20000 A atFloor 1",
+                "20000 A doorOpening",
+                "20000 B atFloor 6",
+                "30000 B atFloor 5",
+                "40000 B atFloor 4",
+                "40000 B doorOpening"
+        ), events);
+    }
+
+    @Test
+    public void groupCutsWaitingTime() {
+        final ControllerProps props = ControllerPropsBuilder.instance().setFloorsCount(20).build();
+        final List<Passenger> passengers = new ArrayList<>();
+        final Random random = new Random(11);
+        for (int i = 0; i < 500; i++) {
+            final int origin = random.nextBoolean() ? 1 : 2 + random.nextInt(19);
+            final int destination = origin == 1 ? 2 + random.nextInt(19) : 1;
+            passengers.add(new Passenger(i * 20_000L, origin, destination));
+        }
+
+        final SimulationReport single = new PassengerSimulation(props, 0, 1).run(passengers.iterator());
+        final SimulationReport group = new PassengerSimulation(props, 0, 4).run(passengers.iterator());
+
+        Assert.assertEquals(500, single.getDelivered());
+        Assert.assertEquals(500, group.getDelivered());
+        Assert.assertTrue(
+                single.getWaitTimes().getMean() + " > " + group.getWaitTimes().getMean(),
+                group.getWaitTimes().getMean() * 2 < single.getWaitTimes().getMean()
+        );
+    }
+}
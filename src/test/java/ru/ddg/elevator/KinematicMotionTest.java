@@ -0,0 +1,173 @@
+package ru.ddg.elevator;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ddg.elevator.controller.ControllerProps;
+import ru.ddg.elevator.controller.ElevatorController;
+import ru.ddg.elevator.controller.ElevatorListener;
+import ru.ddg.elevator.model.BasicElevator;
+import ru.ddg.elevator.scheduler.VirtualTimeScheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * Car speeding up and braking: 1 m/s, 0.5 m/s², so 2 s and 1 m to speed up or to brake, 10 m floors.
+ */
+public class KinematicMotionTest {
+
+    private final VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+    private final List<String> events = new ArrayList<>();
+
+    private ElevatorController controller(float accelerationMetersPerSecondSquared) {
+        final ControllerProps props = ControllerPropsBuilder.instance()
+                .setAccelerationMetersPerSecondSquared(accelerationMetersPerSecondSquared)
+                .build();
+        final ElevatorController controller = new ElevatorController(new BasicElevator(), props, scheduler);
+        controller.setElevatorListener(new ElevatorListener() {
+            @Override
+            public void atFloor(int floorNumber) {
+                events.add("atFloor " + floorNumber);
+            }
+
+            @Override
+            public void doorOpening() {
+                events.add(scheduler.currentTimeMillis() + " doorOpening");
+            }
+
+            @Override
+            public void doorClosed() {
+            }
+        });
+        controller.start();
+        return controller;
+    }
+
+    @Test
+    public void speedsUpCruisesAndBrakes() {
+        final ControllerProps props = ControllerPropsBuilder.instance().setAccelerationMetersPerSecondSquared(0.5f).build();
+        Assert.assertEquals(100, props.getBrakingDistanceCentimeters());
+
+        final ElevatorController controller = controller(0.5f);
+        controller.insideButtonPressed(3);
+        scheduler.runUntil(1000);
+        Assert.assertEquals("0.25 m in the first second", 1.025, controller.getPosition(), 1e-9);
+        scheduler.runUntil(12000);
+        Assert.assertEquals("Cruising past the second floor", 2.1, controller.getPosition(), 1e-9);
+        scheduler.runUntil(21000);
+        Assert.assertEquals("Braking, 0.25 m to go", 2.975, controller.getPosition(), 1e-9);
+        scheduler.runUntilIdle();
+
+        Assert.assertEquals(3, controller.getPosition(), 1e-9);
+        Assert.assertEquals(Arrays.asList("atFloor 1", "atFloor 2", "atFloor 3", "22000 doorOpening"), events);
+    }
+
+    @Test
+    public void stopsForCallOfApproachingFloorWhileItCanBrake() {
+        final ElevatorController controller = controller(0.5f);
+        controller.insideButtonPressed(5);
+        scheduler.runUntil(19999);
+        controller.outsideButtonPressed(3);
+        scheduler.runUntilIdle();
+
+        Assert.assertEquals(Arrays.asList(
+                "atFloor 1", "atFloor 2", "atFloor 3", "22000 doorOpening",
+                "atFloor 4", "atFloor 5", "46000 doorOpening"
+        ), events);
+    }
+
+    @Test
+    public void passesFloorCalledTooLateToBrake() {
+        final ElevatorController controller = controller(0.5f);
+        controller.insideButtonPressed(5);
+        scheduler.runUntil(20001);
+        controller.outsideButtonPressed(3);
+        scheduler.runUntilIdle();
+
+        Assert.assertEquals(Arrays.asList(
+                "atFloor 1", "atFloor 2", "atFloor 3", "atFloor 4", "atFloor 5", "42000 doorOpening",
+                "atFloor 4", "atFloor 3", "66000 doorOpening"
+        ), events);
+    }
+
+    @Test
+    public void constantSpeedCarTakesCallsOnlyAtFloors() {
+        final ElevatorController controller = controller(0);
+        controller.insideButtonPressed(5);
+        scheduler.runUntil(15000);
+        Assert.assertEquals(2.5, controller.getPosition(), 1e-9);
+        controller.outsideButtonPressed(3);
+        scheduler.runUntilIdle();
+
+        Assert.assertEquals(Arrays.asList(
+                "atFloor 1", "atFloor 2", "atFloor 3", "atFloor 4", "atFloor 5", "40000 doorOpening",
+                "atFloor 4", "atFloor 3", "62000 doorOpening"
+        ), events);
+    }
+
+    /**
+     * 3 m floors at 3 m/s and 0.5 m/s²: 9 m to brake, the car brakes three floors ahead.
+     */
+    @Test
+    public void brakesSeveralFloorsAheadOnShortFloors() {
+        final ControllerProps props = ControllerPropsBuilder.instance()
+                .setFloorsCount(5)
+                .setFloorHeightMeters(3f)
+                .setLiftSpeedMetersPerSecond(3f)
+                .setAccelerationMetersPerSecondSquared(0.5f)
+                .build();
+        final ElevatorController controller = new ElevatorController(new BasicElevator(), props, scheduler);
+        controller.setElevatorListener(new ElevatorListener() {
+            @Override
+            public void atFloor(int floorNumber) {
+                events.add("atFloor " + floorNumber);
+            }
+
+            @Override
+            public void doorOpening() {
+                events.add("doorOpening " + Math.round(controller.getPosition()));
+            }
+
+            @Override
+            public void doorClosed() {
+            }
+        });
+        controller.start();
+        controller.insideButtonPressed(5);
+        scheduler.runUntilIdle();
+        Assert.assertEquals(5, controller.getPosition(), 1e-9);
+
+        controller.insideButtonPressed(1);
+        scheduler.runUntil(scheduler.currentTimeMillis() + 5500); // braking for the first floor already
+        controller.outsideButtonPressed(2);
+        scheduler.runUntilIdle();
+        Assert.assertEquals(2, controller.getPosition(), 1e-9);
+
+        Assert.assertEquals(Arrays.asList(
+                "atFloor 1", "atFloor 2", "atFloor 3", "atFloor 4", "atFloor 5", "doorOpening 5",
+                "atFloor 4", "atFloor 3", "atFloor 2", "atFloor 1", "doorOpening 1",
+                "atFloor 2", "doorOpening 2"
+        ), events);
+    }
+
+    @Test
+    public void rejectsBrakingLongerThanTheShaft() {
+        final ControllerProps props = ControllerPropsBuilder.instance()
+                .setFloorsCount(3)
+                .setFloorHeightMeters(3f)
+                .setLiftSpeedMetersPerSecond(3f)
+                .setAccelerationMetersPerSecondSquared(0.5f)
+                .build();
+        try {
+            new ElevatorController(new BasicElevator(), props, scheduler);
+            Assert.fail();
+        } catch (IllegalArgumentException expected) {
+            Assert.assertEquals(
+                    "The braking distance should fit into the shaft of 600 cm, Input 900 cm", expected.getMessage()
+            );
+        }
+    }
+}
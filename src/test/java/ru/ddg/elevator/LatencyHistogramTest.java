@@ -0,0 +1,63 @@
+package ru.ddg.elevator;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ddg.elevator.metrics.LatencyHistogram;
+
+
+/**
+ * Histogram precision test.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void percentilesWithinThreePercent() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value);
+        }
+
+        Assert.assertEquals(100_000, histogram.getCount());
+        Assert.assertEquals(50_000.5, histogram.getMean(), 0.001);
+        Assert.assertEquals(100_000, histogram.getMax());
+        assertClose(50_000, histogram.getValueAtPercentile(50));
+        assertClose(99_000, histogram.getValueAtPercentile(99));
+        Assert.assertEquals(100_000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(0);
+        histogram.record(7);
+        histogram.record(31);
+
+        Assert.assertEquals(0, histogram.getValueAtPercentile(33));
+        Assert.assertEquals(7, histogram.getValueAtPercentile(66));
+        Assert.assertEquals(31, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void addsOtherHistograms() {
+        final LatencyHistogram total = new LatencyHistogram();
+        final LatencyHistogram small = new LatencyHistogram();
+        final LatencyHistogram large = new LatencyHistogram();
+        small.record(5);
+        small.record(5);
+        large.record(1_000_000);
+        total.record(5);
+        total.add(small);
+        total.add(large);
+
+        Assert.assertEquals(4, total.getCount());
+        Assert.assertEquals(1_000_015, total.getSum());
+        Assert.assertEquals(1_000_000, total.getMax());
+        Assert.assertEquals(5, total.getValueAtPercentile(75));
+        assertClose(1_000_000, total.getValueAtPercentile(100));
+    }
+
+    private static void assertClose(long expected, long actual) {
+        Assert.assertTrue("expected: " + expected + " actual: " + actual, Math.abs(expected - actual) <= expected * 0.03);
+    }
+}
@@ -0,0 +1,79 @@
+package ru.ddg.elevator;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ddg.elevator.controller.DispatchPolicy;
+import ru.ddg.elevator.simulation.ParameterSweep;
+import ru.ddg.elevator.simulation.SweepResult;
+import ru.ddg.elevator.simulation.UniformTraffic;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+
+/**
+ * Parallel Monte-Carlo sweeps over elevator settings.
+ */
+public class ParameterSweepTest {
+
+    @Test
+    public void simulatesEveryCombination() throws IOException {
+        final List<SweepResult> results = sweep(42).run(new ForkJoinPool(4));
+
+        Assert.assertEquals(4, results.size());
+        Assert.assertEquals(DispatchPolicy.INSIDE_FIRST, results.get(0).getDispatchPolicy());
+        Assert.assertEquals(1000, results.get(0).getDoorOpenCloseTimeMillis());
+        Assert.assertEquals(DispatchPolicy.LOOK, results.get(3).getDispatchPolicy());
+        Assert.assertEquals(3000, results.get(3).getDoorOpenCloseTimeMillis());
+        for (SweepResult result : results) {
+            Assert.assertEquals(5, result.getRuns());
+            Assert.assertEquals(5 * 20, result.getPassengers());
+            Assert.assertEquals(5 * 20, result.getWaitTimes().getCount());
+            Assert.assertEquals(5 * 20, result.getRideTimes().getCount());
+        }
+        Assert.assertTrue(
+                "Longer door times make passengers wait longer",
+                results.get(0).getWaitTimes().getSum() < results.get(2).getWaitTimes().getSum()
+        );
+
+        final StringWriter csv = new StringWriter();
+        ParameterSweep.writeCsv(results, csv);
+        final String[] lines = csv.toString().split("\n");
+        Assert.assertEquals(5, lines.length);
+        Assert.assertTrue(lines[0].startsWith("floorsCount,liftSpeedMetersPerSecond,doorOpenCloseTimeMillis"));
+        Assert.assertTrue(lines[1], lines[1].startsWith("7,1.0,1000,INSIDE_FIRST,1,5,100,100,"));
+        Assert.assertEquals(lines[0].split(",").length, lines[1].split(",").length);
+    }
+
+    @Test
+    public void sameSeedGivesSameResults() throws IOException {
+        final StringWriter first = new StringWriter();
+        ParameterSweep.writeCsv(sweep(7).run(new ForkJoinPool(4)), first);
+        final StringWriter second = new StringWriter();
+        ParameterSweep.writeCsv(sweep(7).run(new ForkJoinPool(1)), second);
+
+        Assert.assertEquals(first.toString(), second.toString());
+    }
+
+    @Test
+    public void rejectsEmptyDimension() {
+        try {
+            sweep(7).setCarsCounts();
+            Assert.fail();
+        } catch (IllegalArgumentException expected) {
+            Assert.assertEquals("Cars counts should have at least one value, Input none", expected.getMessage());
+        }
+    }
+
+    private static ParameterSweep sweep(long seed) {
+        final ParameterSweep sweep = new ParameterSweep(
+                ControllerPropsBuilder.defaultProps(), new UniformTraffic(20, 4000), 5, seed
+        );
+        sweep.setDoorOpenCloseTimesMillis(1000, 3000);
+        sweep.setDispatchPolicies(DispatchPolicy.INSIDE_FIRST, DispatchPolicy.LOOK);
+        return sweep;
+    }
+}
@@ -0,0 +1,77 @@
+package ru.ddg.elevator;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ddg.elevator.simulation.Passenger;
+import ru.ddg.elevator.simulation.PassengerSimulation;
+import ru.ddg.elevator.simulation.PoissonTraffic;
+import ru.ddg.elevator.simulation.SimulationReport;
+import ru.ddg.elevator.simulation.TrafficPattern;
+
+import java.util.Iterator;
+
+
+/**
+ * Synthetic passengers following time-of-day profiles.
+ */
+public class PoissonTrafficTest {
+
+    private static final long HOUR = 3_600_000;
+
+    @Test
+    public void followsProfiles() {
+        final PoissonTraffic traffic = new PoissonTraffic()
+                .addPeriod(HOUR, 3600, TrafficPattern.UP_PEAK)
+                .addPeriod(HOUR, 0, TrafficPattern.INTER_FLOOR)
+                .addPeriod(HOUR, 3600, TrafficPattern.DOWN_PEAK);
+
+        final long[] passengers = new long[3];
+        final long[] lobby = new long[3];
+        long lastArrival = 0;
+        for (Iterator<Passenger> it = traffic.passengers(10, 1); it.hasNext(); ) {
+            final Passenger passenger = it.next();
+            Assert.assertTrue(passenger.getArrivalTimeMillis() >= lastArrival);
+            Assert.assertNotEquals(passenger.getOriginFloor(), passenger.getDestinationFloor());
+            lastArrival = passenger.getArrivalTimeMillis();
+            final int period = (int) (lastArrival / HOUR);
+            passengers[period]++;
+            if (period == 0 && passenger.getOriginFloor() == 1 || period == 2 && passenger.getDestinationFloor() == 1) {
+                lobby[period]++;
+            }
+        }
+
+        Assert.assertEquals(0, passengers[1]);
+        for (int period : new int[]{0, 2}) {
+            Assert.assertEquals("About one passenger per second", 3600, passengers[period], 250);
+            Assert.assertEquals("Peak traffic mostly uses the lobby", 0.87, (double) lobby[period] / passengers[period], 0.03);
+        }
+    }
+
+    @Test
+    public void sameSeedGivesSamePassengers() {
+        final PoissonTraffic traffic = PoissonTraffic.officeDay(600);
+        final Iterator<Passenger> first = traffic.passengers(7, 42);
+        final Iterator<Passenger> second = traffic.passengers(7, 42);
+        int count = 0;
+        while (first.hasNext()) {
+            Assert.assertTrue(second.hasNext());
+            Assert.assertEquals(first.next().toString(), second.next().toString());
+            count++;
+        }
+        Assert.assertFalse(second.hasNext());
+        Assert.assertEquals("Office day has about 2600 passengers", 2640, count, 300);
+    }
+
+    @Test
+    public void feedsSimulationLazily() {
+        final PoissonTraffic traffic = new PoissonTraffic()
+                .addPeriod(10_000 * HOUR, 100, TrafficPattern.INTER_FLOOR);
+
+        final SimulationReport report = new PassengerSimulation(ControllerPropsBuilder.defaultProps())
+                .run(traffic.passengers(7, 3));
+
+        Assert.assertEquals(1_000_000, report.getPassengers(), 5000);
+        Assert.assertEquals(report.getPassengers(), report.getDelivered());
+    }
+}
@@ -0,0 +1,136 @@
+package ru.ddg.elevator;
+
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ddg.elevator.controller.CarState;
+import ru.ddg.elevator.controller.ControllerProps;
+import ru.ddg.elevator.controller.DispatchPolicy;
+import ru.ddg.elevator.controller.DispatchStrategy;
+import ru.ddg.elevator.controller.ElevatorController;
+import ru.ddg.elevator.controller.ElevatorListener;
+import ru.ddg.elevator.controller.ElevatorState;
+import ru.ddg.elevator.controller.PendingCalls;
+import ru.ddg.elevator.controller.RolloutDispatch;
+import ru.ddg.elevator.model.BasicElevator;
+import ru.ddg.elevator.scheduler.VirtualTimeScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * Decisions tried out on forks of the controller state.
+ */
+public class RolloutDispatchTest {
+
+    private final VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+    private final List<Integer> floors = new ArrayList<>();
+    private final ExecutorService pool = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void forkPlaysCallsWithoutTouchingTheElevator() {
+        final AtomicReference<CarState> fork = new AtomicReference<>();
+        final ElevatorController controller = controller(new DispatchStrategy() {
+            @Override
+            public int selectFloor(PendingCalls calls, int currentFloor, ElevatorState lastDirection, long nowMillis) {
+                fork.compareAndSet(null, calls.fork(currentFloor, lastDirection, nowMillis));
+                return DispatchPolicy.LOOK.selectFloor(calls, currentFloor, lastDirection, nowMillis);
+            }
+
+            @Override
+            public boolean keepMoving(PendingCalls calls, int currentFloor, ElevatorState direction, long nowMillis) {
+                return DispatchPolicy.LOOK.keepMoving(calls, currentFloor, direction, nowMillis);
+            }
+        });
+        pressInside(controller, 7, 1, 2, 3);
+        scheduler.runUntil(1);
+
+        final CarState played = fork.get().copy();
+        played.play(DispatchPolicy.LOOK, 0, 600_000, new long[0], new int[0], new SplittableRandom(1));
+        Assert.assertEquals("7 after 30 s, then 3, 2 and 1 after 72, 84 and 96 s", 282_000, played.getWaitMillis());
+        Assert.assertEquals(4, played.getServedCount());
+        Assert.assertEquals(1, played.getFloor());
+        Assert.assertEquals(0, fork.get().getServedCount());
+        Assert.assertEquals(4, fork.get().getFloor());
+        Assert.assertTrue(fork.get().isCalled(7));
+        Assert.assertEquals(ElevatorState.MOVE_UP, controller.getSnapshot().getState());
+
+        final CarState cancelled = fork.get().copy();
+        Assert.assertFalse(cancelled.play(
+                DispatchPolicy.LOOK, 0, 600_000, new long[0], new int[0], new SplittableRandom(1), () -> true
+        ));
+        Assert.assertEquals(0, cancelled.getWaitMillis());
+        Assert.assertEquals(4, cancelled.getFloor());
+    }
+
+    @Test
+    public void goesWhereCallsWaitLess() {
+        final RolloutDispatch dispatch = new RolloutDispatch(DispatchPolicy.LOOK, pool, 300_000, 5000);
+        final ElevatorController controller = controller(dispatch);
+        pressOutside(controller, 7, 1, 2, 3);
+
+        scheduler.runUntilIdle();
+        Assert.assertEquals("LOOK would go up first", List.of(4, 3, 2, 1), floors.subList(0, 4));
+        Assert.assertEquals(1, dispatch.getOverriddenCount());
+        Assert.assertEquals(0, dispatch.getOverBudgetCount());
+    }
+
+    @Test
+    public void baseDecidesWhenBudgetIsOver() {
+        final RolloutDispatch dispatch = new RolloutDispatch(DispatchPolicy.LOOK, pool, 300_000, 0);
+        dispatch.setForecast(120, null);
+        final ElevatorController controller = controller(dispatch);
+        pressOutside(controller, 7, 1, 2, 3);
+
+        scheduler.runUntil(30_000);
+        Assert.assertEquals(List.of(4, 5, 6, 7), floors);
+        Assert.assertEquals(0, dispatch.getOverriddenCount());
+        Assert.assertEquals(1, dispatch.getOverBudgetCount());
+    }
+
+    private ElevatorController controller(DispatchStrategy strategy) {
+        final ControllerProps props = ControllerPropsBuilder.instance().setCurrentFloor(4).build();
+        final ElevatorController controller = new ElevatorController(new BasicElevator(), props, scheduler);
+        controller.setDispatchStrategy(strategy);
+        controller.setElevatorListener(new ElevatorListener() {
+            @Override
+            public void atFloor(int floorNumber) {
+                floors.add(floorNumber);
+            }
+
+            @Override
+            public void doorOpening() {
+            }
+
+            @Override
+            public void doorClosed() {
+            }
+        });
+        controller.start();
+        scheduler.runUntil(0);
+        return controller;
+    }
+
+    private static void pressInside(ElevatorController controller, int... floorNumbers) {
+        for (int floorNumber : floorNumbers) {
+            controller.insideButtonPressed(floorNumber);
+        }
+    }
+
+    private static void pressOutside(ElevatorController controller, int... floorNumbers) {
+        for (int floorNumber : floorNumbers) {
+            controller.outsideButtonPressed(floorNumber);
+        }
+    }
+}
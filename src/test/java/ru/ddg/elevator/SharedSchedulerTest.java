@@ -0,0 +1,68 @@
+package ru.ddg.elevator;
+
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ddg.elevator.controller.ControllerProps;
+import ru.ddg.elevator.controller.ElevatorController;
+import ru.ddg.elevator.controller.ElevatorListener;
+import ru.ddg.elevator.model.BasicElevator;
+import ru.ddg.elevator.scheduler.RealTimeScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Many controllers in real time on a couple of carrier threads.
+ */
+public class SharedSchedulerTest {
+
+    private static final int CONTROLLERS = 10_000;
+
+    private final RealTimeScheduler scheduler = new RealTimeScheduler("Test-scheduler", 2);
+    private final List<ElevatorController> controllers = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        controllers.forEach(ElevatorController::stop);
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void thousandsOfControllersOnTwoThreads() throws InterruptedException {
+        final ControllerProps props = ControllerPropsBuilder.instance()
+                .setFloorHeightMeters(1f)
+                .setDoorOpenCloseTimeMillis(100)
+                .build();
+        final int threadsBefore = Thread.activeCount();
+        final CountDownLatch arrived = new CountDownLatch(CONTROLLERS);
+
+        for (int i = 0; i < CONTROLLERS; i++) {
+            ElevatorController controller = new ElevatorController(new BasicElevator(), props, scheduler);
+            controller.setElevatorListener(new ElevatorListener() {
+                @Override
+                public void atFloor(int floorNumber) {
+                }
+
+                @Override
+                public void doorOpening() {
+                }
+
+                @Override
+                public void doorClosed() {
+                    arrived.countDown();
+                }
+            });
+            controller.start();
+            controller.insideButtonPressed(3);
+            controllers.add(controller);
+        }
+
+        Assert.assertTrue(arrived.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(Thread.activeCount() <= threadsBefore + 2);
+    }
+}
@@ -0,0 +1,158 @@
+package ru.ddg.elevator;
+
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import ru.ddg.elevator.controller.ElevatorController;
+import ru.ddg.elevator.controller.ElevatorListener;
+import ru.ddg.elevator.model.BasicElevator;
+import ru.ddg.elevator.scheduler.VirtualTimeScheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * Elevator behavior test in virtual time: exact timings, no waiting.
+ */
+public class SimulatedElevatorTest {
+
+    private VirtualTimeScheduler scheduler;
+    private ElevatorController liftController;
+    private List<String> events;
+
+    @Before
+    public void setup() {
+        scheduler = new VirtualTimeScheduler();
+        events = new ArrayList<>();
+        liftController = new ElevatorController(new BasicElevator(), ControllerPropsBuilder.defaultProps(), scheduler);
+        liftController.setElevatorListener(new ElevatorListener() {
+            @Override
+            public void atFloor(int floorNumber) {
+                events.add(scheduler.currentTimeMillis() + " atFloor " + floorNumber);
+            }
+
+            @Override
+            public void doorOpening() {
+                events.add(scheduler.currentTimeMillis() + " doorOpening");
+            }
+
+            @Override
+            public void doorClosed() {
+                events.add(scheduler.currentTimeMillis() + " doorClosed");
+            }
+        });
+        liftController.start();
+    }
+
+    @Test
+    public void from_1st_To_7th_Floor() {
+        liftController.insideButtonPressed(7);
+        scheduler.runUntilIdle();
+
+        Assert.assertEquals(Arrays.asList(
+                "0 atFloor 1",
+                "10000 atFloor 2",
+                "20000 atFloor 3",
+                "30000 atFloor 4",
+                "40000 atFloor 5",
+                "50000 atFloor 6",
+                "60000 atFloor 7",
+                "60000 doorOpening",
+                "62000 doorClosed"
+        ), events);
+    }
+
+    @Test
+    public void servesOutsideCallsOnTheWayBack() {
+        liftController.insideButtonPressed(4);
+        scheduler.runUntil(15000);
+        liftController.outsideButtonPressed(3);
+        liftController.outsideButtonPressed(1);
+        scheduler.runUntilIdle();
+
+        Assert.assertEquals(Arrays.asList(
+                "0 atFloor 1",
+                "10000 atFloor 2",
+                "20000 atFloor 3",
+                "30000 atFloor 4",
+                "30000 doorOpening",
+                "32000 doorClosed",
+                "42000 atFloor 3",
+                "42000 doorOpening",
+                "44000 doorClosed",
+                "54000 atFloor 2",
+                "64000 atFloor 1",
+                "64000 doorOpening",
+                "66000 doorClosed"
+        ), events);
+    }
+
+    @Test
+    public void tallTower() {
+        liftController = new ElevatorController(
+                new BasicElevator(),
+                ControllerPropsBuilder.instance().setFloorsCount(200).build(),
+                scheduler
+        );
+        liftController.start();
+        liftController.insideButtonPressed(200);
+        liftController.outsideButtonPressed(100);
+        liftController.outsideButtonPressed(150);
+        scheduler.runUntilIdle();
+
+        Assert.assertEquals(199 * 10000 + 3 * 2000, scheduler.currentTimeMillis());
+    }
+
+    @Test
+    public void coalescesPressesOfLitButtons() {
+        liftController.insideButtonPressed(5);
+        liftController.insideButtonPressed(5);
+        Assert.assertEquals(2, liftController.pressButtons(new int[]{3, 5, 6}, true));
+        Assert.assertEquals(2, liftController.getCoalescedPresses());
+
+        scheduler.runUntilIdle();
+        Assert.assertTrue(events.contains("42000 atFloor 5"));
+
+        // served buttons go out and can be pressed again
+        Assert.assertEquals(1, liftController.pressButtons(new int[]{5}, true));
+        Assert.assertEquals(2, liftController.getCoalescedPresses());
+    }
+
+    @Test
+    public void rejectsPressesBeyondQueueSize() {
+        liftController = new ElevatorController(
+                new BasicElevator(),
+                ControllerPropsBuilder.instance().setRequestQueueSize(2).build(),
+                scheduler
+        );
+        Assert.assertEquals(2, liftController.pressButtons(new int[]{2, 3, 4}, false));
+        Assert.assertEquals(1, liftController.getRejectedPresses());
+
+        // rejected button is not lit
+        liftController.start();
+        scheduler.runUntilIdle();
+        liftController.outsideButtonPressed(4);
+        Assert.assertEquals(0, liftController.getCoalescedPresses());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bulkPressValidatesAllFloors() {
+        liftController.pressButtons(new int[]{2, 8}, true);
+    }
+
+    @Test
+    public void simulatedDayTakesNoTime() {
+        long startedAt = System.currentTimeMillis();
+        for (int hour = 0; hour < 24; hour++) {
+            liftController.outsideButtonPressed(1 + hour % 7);
+            liftController.insideButtonPressed(7 - hour % 7);
+            scheduler.runFor(3_600_000);
+        }
+
+        Assert.assertEquals(24 * 3_600_000, scheduler.currentTimeMillis());
+        Assert.assertTrue(System.currentTimeMillis() - startedAt < 5000);
+    }
+}
@@ -0,0 +1,100 @@
+package ru.ddg.elevator;
+
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ddg.elevator.controller.ElevatorController;
+import ru.ddg.elevator.model.BasicElevator;
+import ru.ddg.elevator.net.StateBoardServer;
+import ru.ddg.elevator.scheduler.VirtualTimeScheduler;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Live board streamed to browsers.
+ */
+public class StateBoardServerTest {
+
+    private final VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+    private final List<ElevatorController> cars = List.of(
+            new ElevatorController(new BasicElevator(), ControllerPropsBuilder.defaultProps(), scheduler),
+            new ElevatorController(new BasicElevator(), ControllerPropsBuilder.defaultProps(), scheduler)
+    );
+    private final StateBoardServer server = new StateBoardServer(cars, new InetSocketAddress("localhost", 0), 20);
+    private final List<Socket> sockets = new ArrayList<>();
+
+    @After
+    public void tearDown() throws IOException {
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+        server.close();
+    }
+
+    @Test
+    public void streamsChangedCarsToAllViewers() throws IOException {
+        cars.forEach(ElevatorController::start);
+        scheduler.runUntil(0);
+        server.start();
+        final List<BufferedReader> viewers = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            viewers.add(open("GET /states HTTP/1.1\r\nHost: localhost\r\nAccept: text/event-stream\r\n\r\n"));
+        }
+        for (BufferedReader viewer : viewers) {
+            Assert.assertEquals("HTTP/1.1 200 OK", viewer.readLine());
+            Assert.assertEquals("Content-Type: text/event-stream", viewer.readLine());
+            skipTo(viewer, "");
+            Assert.assertEquals("event: state", viewer.readLine());
+            Assert.assertEquals(
+                    "data: {\"car\":0,\"floor\":1,\"position\":1.00,\"state\":\"IDLE\",\"doorOpen\":false,"
+                            + "\"inside\":[],\"outside\":[]}",
+                    viewer.readLine()
+            );
+            skipTo(viewer, "data: {\"car\":1,\"floor\":1,\"position\":1.00,\"state\":\"IDLE\",\"doorOpen\":false,"
+                    + "\"inside\":[],\"outside\":[]}");
+        }
+        Assert.assertEquals(200, server.getViewersCount());
+
+        cars.get(1).insideButtonPressed(3);
+        scheduler.runUntil(20000);
+        for (BufferedReader viewer : viewers) {
+            skipTo(viewer, "data: {\"car\":1,\"floor\":3,\"position\":3.00,\"state\":\"MOVE_UP\",\"doorOpen\":true,"
+                    + "\"inside\":[],\"outside\":[]}");
+        }
+        Assert.assertTrue("Frames are shared by viewers", server.getFramesCount() < 100);
+    }
+
+    @Test
+    public void refusesOtherMethods() throws IOException {
+        server.start();
+        final BufferedReader viewer = open("POST /states HTTP/1.1\r\n\r\n");
+
+        Assert.assertEquals("HTTP/1.1 405 Method Not Allowed", viewer.readLine());
+        Assert.assertEquals(0, server.getViewersCount());
+    }
+
+    private BufferedReader open(String request) throws IOException {
+        final Socket socket = new Socket("localhost", server.getLocalAddress().getPort());
+        socket.setSoTimeout(10_000);
+        sockets.add(socket);
+        socket.getOutputStream().write(request.getBytes(StandardCharsets.US_ASCII));
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+    }
+
+    private static void skipTo(BufferedReader viewer, String expected) throws IOException {
+        String line;
+        do {
+            line = viewer.readLine();
+            Assert.assertNotNull("Stream ended before " + expected, line);
+        } while (!line.equals(expected));
+    }
+}
@@ -0,0 +1,97 @@
+package ru.ddg.elevator;
+
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.ddg.elevator.simulation.Passenger;
+import ru.ddg.elevator.simulation.PassengerSimulation;
+import ru.ddg.elevator.simulation.SimulationReport;
+import ru.ddg.elevator.simulation.TraceReader;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+
+/**
+ * Replay of recorded passenger traces in virtual time.
+ */
+public class TraceReplayTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void measuresWaitAndRideTimes() throws IOException {
+        final Path trace = folder.newFile("trace.txt").toPath();
+        Files.write(trace, (
+                "# time origin destination\n" +
+                "0 1 3\r\n" +
+                "\n" +
+                "5000\t2 1\n"
+        ).getBytes());
+
+        final SimulationReport report;
+        try (TraceReader passengers = new TraceReader(trace)) {
+            report = new PassengerSimulation(ControllerPropsBuilder.defaultProps()).run(passengers);
+        }
+
+        // first boards at once and rides two floors, second is picked up on the way back
+        Assert.assertEquals(2, report.getPassengers());
+        Assert.assertEquals(2, report.getDelivered());
+        Assert.assertEquals(29000, report.getWaitTimes().getMax());
+        Assert.assertEquals(0, report.getWaitTimes().getValueAtPercentile(50));
+        Assert.assertEquals(22000, report.getRideTimes().getMax());
+        // until the door closes after the last passenger
+        Assert.assertEquals(48000, report.getSimulatedMillis());
+    }
+
+    @Test
+    public void streamsLargeTrace() throws IOException {
+        final Path trace = folder.newFile("large.txt").toPath();
+        final int passengers = 200_000;
+        try (BufferedWriter writer = Files.newBufferedWriter(trace)) {
+            for (int i = 0; i < passengers; i++) {
+                writer.write(i * 30_000L + " " + (1 + i % 7) + " " + (1 + (i % 7 + 1 + i % 6) % 7) + "\n");
+            }
+        }
+
+        final SimulationReport report;
+        try (TraceReader reader = new TraceReader(trace)) {
+            report = new PassengerSimulation(ControllerPropsBuilder.defaultProps()).run(reader);
+        }
+
+        Assert.assertEquals(passengers, report.getPassengers());
+        Assert.assertEquals(passengers, report.getDelivered());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnsortedTrace() throws IOException {
+        final Path trace = folder.newFile("unsorted.txt").toPath();
+        Files.write(trace, "1000 1 2\n999 2 1\n".getBytes());
+
+        try (TraceReader passengers = new TraceReader(trace)) {
+            while (passengers.hasNext()) {
+                Passenger passenger = passengers.next();
+                Assert.assertEquals(1000, passenger.getArrivalTimeMillis());
+            }
+        }
+    }
+
+    @Test
+    public void rejectsNumberLongerThanLong() throws IOException {
+        final Path trace = folder.newFile("overflow.txt").toPath();
+        Files.write(trace, "1000 1 2\n99999999999999999999 2 1\n".getBytes());
+
+        try (TraceReader passengers = new TraceReader(trace)) {
+            passengers.next();
+            passengers.next();
+            Assert.fail();
+        } catch (IllegalArgumentException expected) {
+            Assert.assertEquals("Malformed trace line 2", expected.getMessage());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package ru.ddg.elevator.controller;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Floor calls set test.
+ */
+public class FloorCallsTest {
+
+    private final FloorCalls calls = new FloorCalls(200);
+
+    @Test
+    public void keepsArrivalOrder() {
+        calls.add(150, 10);
+        calls.add(3, 20);
+        calls.add(64, 30);
+        Assert.assertFalse(calls.add(150, 40));
+        Assert.assertEquals(10, calls.pressedAt(150));
+
+        Assert.assertEquals(150, calls.oldest());
+        calls.remove(150);
+        Assert.assertEquals(3, calls.oldest());
+        calls.remove(64);
+        Assert.assertEquals(3, calls.oldest());
+        calls.remove(3);
+        Assert.assertEquals(0, calls.oldest());
+        Assert.assertTrue(calls.isEmpty());
+    }
+
+    @Test
+    public void findsCallsAboveAndBelow() {
+        Assert.assertFalse(calls.anyAbove(1));
+        Assert.assertFalse(calls.anyBelow(200));
+
+        calls.add(128, 0);
+        Assert.assertTrue(calls.anyAbove(1));
+        Assert.assertTrue(calls.anyAbove(127));
+        Assert.assertFalse(calls.anyAbove(128));
+        Assert.assertTrue(calls.anyBelow(129));
+        Assert.assertTrue(calls.anyBelow(200));
+        Assert.assertFalse(calls.anyBelow(128));
+
+        calls.add(1, 0);
+        Assert.assertTrue(calls.anyBelow(2));
+        Assert.assertFalse(calls.anyBelow(1));
+        Assert.assertFalse(calls.anyAbove(200));
+    }
+
+    @Test
+    public void findsLowestAndHighestCalls() {
+        Assert.assertEquals(0, calls.lowest());
+        Assert.assertEquals(0, calls.highest());
+
+        calls.add(70, 0);
+        Assert.assertEquals(70, calls.lowest());
+        Assert.assertEquals(70, calls.highest());
+
+        calls.add(200, 0);
+        calls.add(63, 0);
+        Assert.assertEquals(63, calls.lowest());
+        Assert.assertEquals(200, calls.highest());
+    }
+
+    @Test
+    public void findsNearestCallsAroundFloor() {
+        Assert.assertEquals(0, calls.above(1));
+        Assert.assertEquals(0, calls.below(200));
+
+        calls.add(5, 0);
+        calls.add(130, 0);
+        calls.add(64, 0);
+        Assert.assertEquals(5, calls.above(1));
+        Assert.assertEquals(64, calls.above(5));
+        Assert.assertEquals(130, calls.above(64));
+        Assert.assertEquals(0, calls.above(130));
+        Assert.assertEquals(130, calls.below(200));
+        Assert.assertEquals(64, calls.below(130));
+        Assert.assertEquals(5, calls.below(64));
+        Assert.assertEquals(0, calls.below(5));
+    }
+}
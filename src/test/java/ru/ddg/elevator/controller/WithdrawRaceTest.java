@@ -0,0 +1,62 @@
+package ru.ddg.elevator.controller;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ddg.elevator.model.BasicElevator;
+import ru.ddg.elevator.scheduler.VirtualTimeScheduler;
+
+import java.util.concurrent.CyclicBarrier;
+
+/**
+ * A hall call pressed again while it is withdrawn, from two threads at once.
+ */
+public class WithdrawRaceTest {
+
+    private static final int FLOOR = 7;
+    private static final int ROUNDS = 20_000;
+
+    @Test
+    public void litButtonAlwaysHasCall() throws Exception {
+        final ControllerProps props = new ControllerProps();
+        props.setFloorsCount(FLOOR);
+        props.setFloorHeightMeters(10f);
+        props.setLiftSpeedMetersPerSecond(1f);
+        props.setDoorOpenCloseTimeMillis(2000);
+        // not started: the test takes the presses itself, like the controller at its steps
+        final ElevatorController controller = new ElevatorController(
+                new BasicElevator(), props, new VirtualTimeScheduler()
+        );
+        controller.outsideButtonPressed(FLOOR);
+        controller.collectRequests();
+
+        final CyclicBarrier barrier = new CyclicBarrier(3);
+        final Thread withdrawing = new Thread(() -> repeat(barrier, () -> controller.withdrawOutsideCall(FLOOR)));
+        final Thread pressing = new Thread(() -> repeat(barrier, () -> controller.outsideButtonPressed(FLOOR)));
+        withdrawing.start();
+        pressing.start();
+        for (int round = 0; round < ROUNDS; round++) {
+            barrier.await(); // go
+            barrier.await(); // done
+            controller.collectRequests();
+            if (!controller.getSnapshot().isOutsideCalled(FLOOR)) {
+                Assert.assertEquals("Round " + round + ": the button is out", 1,
+                        controller.pressButtons(new int[]{FLOOR}, false));
+                controller.collectRequests();
+            }
+        }
+        withdrawing.join();
+        pressing.join();
+    }
+
+    private static void repeat(CyclicBarrier barrier, Runnable action) {
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                barrier.await();
+                action.run();
+                barrier.await();
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}